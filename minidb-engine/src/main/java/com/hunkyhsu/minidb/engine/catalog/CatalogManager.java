@@ -1,27 +1,269 @@
 package com.hunkyhsu.minidb.engine.catalog;
 
+import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
+import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
+import com.hunkyhsu.minidb.engine.storage.OverflowStore;
+import com.hunkyhsu.minidb.engine.storage.PageLayout;
+import com.hunkyhsu.minidb.engine.storage.PaxTableStore;
+import com.hunkyhsu.minidb.engine.storage.RowFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Tables and, when constructed with a {@link StorageOpener}, the data file of
+ * each one. Tables get OIDs in creation order starting at 1, so a catalog
+ * rebuilt in the same order finds the same files. A table's file is opened on
+ * first use and stays open until the catalog is closed.
+ * <p>
+ * A row table's opener may also open an overflow store for its long
+ * strings. That store logs under {@link #overflowOid(int)} of the table, so
+ * one write-ahead log and its recovery cover both files.
+ * <p>
+ * Once {@link #startServices(TableServiceFactory)} is called, every table
+ * also gets its own background services, started when its file is opened
+ * and stopped before it is closed.
+ *
  * @author hunkyhsu
  * @version 1.0
  * @date 2026/4/6 21:54
  */
-public class CatalogManager {
+public class CatalogManager implements AutoCloseable {
     private final ConcurrentMap<String, TableMetadata> tables;
+    private final ConcurrentMap<Integer, TableMetadata> tablesByOid;
+    private final ConcurrentMap<Integer, TableStorage> storages;
+    private final AtomicInteger nextOid;
+    private final StorageOpener opener;
+    private final ConcurrentMap<Integer, List<AutoCloseable>> services = new ConcurrentHashMap<>();
+    private volatile TableServiceFactory serviceFactory;
     public CatalogManager() {
+        this(null);
+    }
+    public CatalogManager(StorageOpener opener) {
         tables = new ConcurrentHashMap<>();
+        tablesByOid = new ConcurrentHashMap<>();
+        storages = new ConcurrentHashMap<>();
+        nextOid = new AtomicInteger(1);
+        this.opener = opener;
     }
     public void createTable(String tableName, List<Column> columns) {
-        if (tables.putIfAbsent(tableName, new TableMetadata(tableName, columns)) != null) {
+        createTable(tableName, columns, StorageLayout.ROW);
+    }
+    public void createTable(String tableName, List<Column> columns, StorageLayout layout) {
+        createTable(tableName, columns, layout, PageLayout.DEFAULT_PAGE_SIZE);
+    }
+    public synchronized void createTable(String tableName, List<Column> columns, StorageLayout layout, int pageSize) {
+        if (tables.containsKey(tableName)) {
             throw new IllegalArgumentException("Table already exists: " + tableName);
         }
+        TableMetadata table = new TableMetadata(nextOid.getAndIncrement(), tableName, columns, layout, pageSize);
+        tablesByOid.put(table.getOid(), table);
+        tables.put(tableName, table);
     }
     public TableMetadata getTable(String tableName) {
         if (!tables.containsKey(tableName)) { throw new NoSuchElementException(tableName); }
         return tables.get(tableName);
     }
+    public Collection<TableMetadata> getTables() {
+        return tablesByOid.values();
+    }
+    public TableMetadata getTable(int oid) {
+        TableMetadata table = tablesByOid.get(oid);
+        if (table == null) { throw new NoSuchElementException("Table oid not found: " + oid); }
+        return table;
+    }
+
+    public TableStorage getStorage(String tableName) {
+        return getStorage(getTable(tableName));
+    }
+
+    public TableStorage getStorage(int oid) {
+        return getStorage(getTable(oid));
+    }
+
+    private TableStorage getStorage(TableMetadata table) {
+        if (opener == null) { throw new IllegalStateException("Catalog has no storage"); }
+        TableStorage storage = storages.computeIfAbsent(table.getOid(), oid -> {
+            try {
+                return opener.open(table);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open table " + table.getTableName(), e);
+            }
+        });
+        TableServiceFactory factory = serviceFactory;
+        if (factory != null && !services.containsKey(table.getOid())) { startServices(factory, table, storage); }
+        return storage;
+    }
+
+    /**
+     * Starts {@code factory}'s services on every table, opening any not used
+     * yet, and on each table created later once it is first used. Call it
+     * after recovery, so no service sees a table before its log is replayed.
+     */
+    public void startServices(TableServiceFactory factory) {
+        synchronized (this) {
+            if (serviceFactory != null) { throw new IllegalStateException("Table services already started"); }
+            serviceFactory = factory;
+        }
+        for (TableMetadata table : getTables()) {
+            getStorage(table);
+        }
+    }
+
+    private void startServices(TableServiceFactory factory, TableMetadata table, TableStorage storage) {
+        services.computeIfAbsent(table.getOid(), oid -> {
+            try {
+                return List.copyOf(factory.start(table, storage));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to start services of table " + table.getTableName(), e);
+            }
+        });
+    }
+
+    /**
+     * The service of {@code type} running on {@code tableName}, or null if
+     * its factory started none.
+     */
+    public <T> T getService(String tableName, Class<T> type) {
+        TableMetadata table = getTable(tableName);
+        getStorage(table);
+        for (AutoCloseable service : services.getOrDefault(table.getOid(), List.of())) {
+            if (type.isInstance(service)) { return type.cast(service); }
+        }
+        return null;
+    }
+
+    public AppendOnlyTableStore getStore(String tableName) {
+        return rowStore(getStorage(tableName), tableName);
+    }
+
+    public AppendOnlyTableStore getStore(int oid) {
+        return rowStore(getStorage(oid), getTable(oid).getTableName());
+    }
+
+    /**
+     * The stores of every row table, opening any not used yet.
+     */
+    public List<AppendOnlyTableStore> getRowStores() {
+        List<AppendOnlyTableStore> stores = new ArrayList<>();
+        for (TableMetadata table : getTables()) {
+            if (table.getLayout() == StorageLayout.ROW) { stores.add(getStore(table.getOid())); }
+        }
+        return stores;
+    }
+
+    /**
+     * The stores of every row table and their overflow stores: everything
+     * the write-ahead log holds records of, opening any table not used yet.
+     */
+    public List<AppendOnlyTableStore> getLoggedStores() {
+        List<AppendOnlyTableStore> stores = new ArrayList<>();
+        for (TableMetadata table : getTables()) {
+            if (table.getLayout() != StorageLayout.ROW) { continue; }
+            TableStorage storage = getStorage(table);
+            stores.add(storage.rowStore());
+            if (storage.overflow() != null) { stores.add(storage.overflow().getStore()); }
+        }
+        return stores;
+    }
+
+    /**
+     * The store a write-ahead log record stamped with {@code walOid} belongs
+     * to: a row table's, or a row table's overflow store.
+     */
+    public AppendOnlyTableStore getLoggedStore(int walOid) {
+        if (walOid > 0) { return getStore(walOid); }
+        int tableOid = overflowOid(walOid);
+        OverflowStore overflow = getStorage(tableOid).overflow();
+        if (overflow == null) { throw new NoSuchElementException("Table has no overflow store: " + tableOid); }
+        return overflow.getStore();
+    }
+
+    /**
+     * The format of a row table's rows, moving long strings to its overflow
+     * store if it has one.
+     */
+    public RowFormat getRowFormat(String tableName) {
+        TableStorage storage = getStorage(tableName);
+        rowStore(storage, tableName);
+        return new RowFormat(getTable(tableName), storage.overflow());
+    }
+
+    public PaxTableStore getPaxStore(String tableName) {
+        PaxTableStore store = getStorage(tableName).paxStore();
+        if (store == null) { throw new IllegalArgumentException("Table is not laid out as PAX: " + tableName); }
+        return store;
+    }
+
+    public MMapFileChannel getChannel(String tableName) {
+        return getStorage(tableName).channel();
+    }
+
+    private static AppendOnlyTableStore rowStore(TableStorage storage, String tableName) {
+        if (storage.rowStore() == null) { throw new IllegalArgumentException("Table is not laid out as rows: " + tableName); }
+        return storage.rowStore();
+    }
+
+    /**
+     * The conventional file of {@code table} under {@code dataDir}, named
+     * after its OID so renames never move data.
+     */
+    public static Path dataFile(Path dataDir, TableMetadata table) {
+        return dataDir.resolve(table.getOid() + ".dat");
+    }
+
+    /**
+     * The file beside {@link #dataFile} holding {@code table}'s overflow
+     * store.
+     */
+    public static Path overflowFile(Path dataDir, TableMetadata table) {
+        return dataDir.resolve(table.getOid() + ".ovf");
+    }
+
+    /**
+     * The oid an overflow store stamps on its log records: the negated oid
+     * of its table, which no table ever has.
+     */
+    public static int overflowOid(int tableOid) {
+        return -tableOid;
+    }
+
+    /**
+     * Stops every table's services, then closes the files under them.
+     */
+    public void close() throws IOException {
+        IOException failure = null;
+        serviceFactory = null;
+        for (Map.Entry<Integer, List<AutoCloseable>> entry : services.entrySet()) {
+            List<AutoCloseable> running = entry.getValue();
+            for (int i = running.size() - 1; i >= 0; i--) {
+                try {
+                    running.get(i).close();
+                } catch (Exception e) {
+                    IOException stopFailure = e instanceof IOException io ? io
+                            : new IOException("Failed to stop a service of table " + entry.getKey(), e);
+                    if (failure == null) { failure = stopFailure; } else { failure.addSuppressed(stopFailure); }
+                }
+            }
+        }
+        services.clear();
+        for (TableStorage storage : storages.values()) {
+            try {
+                storage.close();
+            } catch (IOException e) {
+                if (failure == null) { failure = e; } else { failure.addSuppressed(e); }
+            }
+        }
+        storages.clear();
+        if (failure != null) { throw failure; }
+    }
 }
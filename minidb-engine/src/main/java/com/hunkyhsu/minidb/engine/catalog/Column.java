@@ -8,5 +8,10 @@ package com.hunkyhsu.minidb.engine.catalog;
 public record Column(
         String columnName,
         Type type,
-        int offset
-) { }
+        int offset,
+        boolean nullable
+) {
+    public Column(String columnName, Type type, int offset) {
+        this(columnName, type, offset, false);
+    }
+}
@@ -0,0 +1,15 @@
+package com.hunkyhsu.minidb.engine.catalog;
+
+/**
+ * How a table's rows are laid out in its pages.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 18:50
+ */
+public enum StorageLayout {
+    /** Whole rows in slotted pages: cheap point inserts and full-row reads. */
+    ROW,
+    /** Each page holds one minipage per column, so scans read only the columns they touch. */
+    PAX
+}
@@ -0,0 +1,15 @@
+package com.hunkyhsu.minidb.engine.catalog;
+
+import java.io.IOException;
+
+/**
+ * Opens, formatting it on first use, the data file of one table.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 20:40
+ */
+@FunctionalInterface
+public interface StorageOpener {
+    TableStorage open(TableMetadata table) throws IOException;
+}
@@ -1,32 +1,84 @@
 package com.hunkyhsu.minidb.engine.catalog;
 
+import com.hunkyhsu.minidb.engine.storage.PageLayout;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
+ * Row format: an optional null bitmap (one bit per column, present only if
+ * some column is nullable), then every column's fixed-width part at a
+ * constant offset, then the bytes of variable-width values in column order.
+ * A {@link Type#VARCHAR}'s fixed part is its entry in the offset table, so a
+ * fixed-width column is read at the same offset in every row no matter what
+ * strings precede it. Tables of non-nullable fixed-width columns keep the
+ * plain packed layout.
+ *
  * @author hunkyhsu
  * @version 1.0
  * @date 2026/4/6 21:54
  */
 public class TableMetadata {
+    private final int oid;
     private final String tableName;
     private final List<Column> columns;
     private final int tupleSize;
+    private final int nullBitmapSize;
+    private final boolean variableWidth;
+    private final StorageLayout layout;
+    private final int pageSize;
 
     public TableMetadata(String tableName, List<Column> columns) {
+        this(tableName, columns, StorageLayout.ROW);
+    }
+
+    public TableMetadata(String tableName, List<Column> columns, StorageLayout layout) {
+        this(0, tableName, columns, layout);
+    }
+
+    public TableMetadata(int oid, String tableName, List<Column> columns, StorageLayout layout) {
+        this(oid, tableName, columns, layout, PageLayout.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param pageSize page size of the table's data file, a power of two
+     *                 between {@link PageLayout#MIN_PAGE_SIZE} and
+     *                 {@link PageLayout#MAX_PAGE_SIZE}
+     */
+    public TableMetadata(int oid, String tableName, List<Column> columns, StorageLayout layout, int pageSize) {
+        this.oid = oid;
         this.tableName = tableName;
+        this.layout = layout;
+        this.pageSize = PageLayout.checkPageSize(pageSize);
+        boolean anyNullable = false;
+        boolean anyVariable = false;
+        for (Column column : columns) {
+            anyNullable |= column.nullable();
+            anyVariable |= !column.type().isFixed();
+        }
+        this.nullBitmapSize = anyNullable ? (columns.size() + Byte.SIZE - 1) / Byte.SIZE : 0;
+        this.variableWidth = anyVariable;
         List<Column> fixedColumns = new ArrayList<>();
-        int currentOffset = 0;
+        int currentOffset = nullBitmapSize;
         for (Column column : columns) {
-            fixedColumns.add(new Column(column.columnName(), column.type(), currentOffset));
+            fixedColumns.add(new Column(column.columnName(), column.type(), currentOffset, column.nullable()));
             currentOffset += column.type().getFixedSize();
         }
         this.columns = Collections.unmodifiableList(fixedColumns);
         this.tupleSize = currentOffset;
     }
 
+    public int columnIndex(String columnName) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columnName.equals(columns.get(i).columnName())) {
+                return i;
+            }
+        }
+        throw new NoSuchElementException("Column not found: " + columnName);
+    }
+
     public int getColumnOffset(String columnName) {
         for (Column column : columns) {
             if (columnName.equals(column.columnName())) {
@@ -36,14 +88,33 @@ public class TableMetadata {
         throw new NoSuchElementException("Column not found: " + columnName);
     }
 
+    public int getOid() {
+        return oid;
+    }
     public String getTableName() {
         return tableName;
     }
     public List<Column> getColumns() {
         return columns;
     }
+    /**
+     * Size of the null bitmap and every fixed-width part; the whole row size
+     * unless the table has variable-width columns.
+     */
     public int getTupleSize() {
         return tupleSize;
     }
+    public int getNullBitmapSize() {
+        return nullBitmapSize;
+    }
+    public boolean hasVariableWidthColumns() {
+        return variableWidth;
+    }
+    public StorageLayout getLayout() {
+        return layout;
+    }
+    public int getPageSize() {
+        return pageSize;
+    }
 
 }
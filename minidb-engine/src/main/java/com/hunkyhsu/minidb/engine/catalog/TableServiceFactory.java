@@ -0,0 +1,18 @@
+package com.hunkyhsu.minidb.engine.catalog;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Creates and starts the background services of one table, such as its
+ * flusher or vacuum. The catalog closes them, last started first, before it
+ * closes the table's file.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:53
+ */
+@FunctionalInterface
+public interface TableServiceFactory {
+    List<AutoCloseable> start(TableMetadata table, TableStorage storage) throws IOException;
+}
@@ -0,0 +1,42 @@
+package com.hunkyhsu.minidb.engine.catalog;
+
+import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
+import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
+import com.hunkyhsu.minidb.engine.storage.OverflowStore;
+import com.hunkyhsu.minidb.engine.storage.PaxTableStore;
+
+import java.io.IOException;
+
+/**
+ * The open data file of one table and the store over it. Exactly one of
+ * {@code rowStore} and {@code paxStore} is set, following the table's
+ * {@link StorageLayout}. A row table may also have an {@code overflow} store,
+ * in a file of its own, for the strings too long to keep in its rows.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 20:40
+ */
+public record TableStorage(MMapFileChannel channel, AppendOnlyTableStore rowStore, PaxTableStore paxStore,
+                           OverflowStore overflow) implements AutoCloseable {
+
+    public static TableStorage rows(MMapFileChannel channel, AppendOnlyTableStore store) {
+        return rows(channel, store, null);
+    }
+
+    public static TableStorage rows(MMapFileChannel channel, AppendOnlyTableStore store, OverflowStore overflow) {
+        return new TableStorage(channel, store, null, overflow);
+    }
+
+    public static TableStorage pax(MMapFileChannel channel, PaxTableStore store) {
+        return new TableStorage(channel, null, store, null);
+    }
+
+    public void close() throws IOException {
+        try {
+            if (overflow != null) { overflow.getChannel().close(); }
+        } finally {
+            channel.close();
+        }
+    }
+}
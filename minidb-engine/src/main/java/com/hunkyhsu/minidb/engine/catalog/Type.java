@@ -1,12 +1,23 @@
 package com.hunkyhsu.minidb.engine.catalog;
 
 /**
+ * Column types. Fixed-width types are stored inline at a constant offset;
+ * for {@link #VARCHAR} the fixed size is that of its entry in the row's
+ * offset table, an int offset and an int length into the variable area.
+ *
  * @author hunkyhsu
  * @version 1.0
  * @date 2026/4/6 21:54
  */
 public enum Type {
-    INT(4, true);
+    INT(4, true),
+    BIGINT(8, true),
+    DOUBLE(8, true),
+    BOOLEAN(1, true),
+    /** Microseconds since the epoch, UTC. */
+    TIMESTAMP(8, true),
+    /** UTF-8 text of any length that fits the page. */
+    VARCHAR(8, false);
     private final int fixedSize;
     private final boolean isFixed;
     Type(int fixedSize, boolean isFixed) {
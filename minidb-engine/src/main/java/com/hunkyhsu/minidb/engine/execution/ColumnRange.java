@@ -0,0 +1,23 @@
+package com.hunkyhsu.minidb.engine.execution;
+
+/**
+ * An inclusive range on an INT column, pushed down to a scan so it can skip
+ * pages whose zone map rules the range out.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 18:40
+ */
+public record ColumnRange(
+        String columnName,
+        int low,
+        int high
+) {
+    public static ColumnRange atLeast(String columnName, int low) {
+        return new ColumnRange(columnName, low, Integer.MAX_VALUE);
+    }
+
+    public static ColumnRange atMost(String columnName, int high) {
+        return new ColumnRange(columnName, Integer.MIN_VALUE, high);
+    }
+}
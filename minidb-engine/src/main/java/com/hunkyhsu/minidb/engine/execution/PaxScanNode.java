@@ -0,0 +1,74 @@
+package com.hunkyhsu.minidb.engine.execution;
+
+import com.hunkyhsu.minidb.engine.storage.PaxTableStore;
+import com.hunkyhsu.minidb.engine.storage.TuplePointer;
+import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Sequential scan over a {@link PaxTableStore}, with an optional predicate on
+ * one INT column evaluated inside the page. Per page only the xmin array and
+ * the filtered column's minipage are read; callers then fetch the columns
+ * they project through {@link PaxTableStore#readInt}.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 19:10
+ */
+public class PaxScanNode implements DbIterator {
+    private final PaxTableStore store;
+    private final TransactionContext txContext;
+    private final String columnName;
+    private final IntPredicate predicate;
+    private final int[] rows;
+
+    private long currentOffset;
+    private long endOffset;
+    private int currentPageId;
+    private int rowCount;
+    private int rowCursor;
+    private int columnIndex;
+
+    public PaxScanNode(PaxTableStore store, TransactionContext txContext) {
+        this(store, txContext, null, null);
+    }
+
+    /**
+     * @param columnName INT column {@code predicate} is applied to, or null
+     *                   to return every visible row
+     */
+    public PaxScanNode(PaxTableStore store, TransactionContext txContext, String columnName, IntPredicate predicate) {
+        this.store = store;
+        this.txContext = txContext;
+        this.columnName = columnName;
+        this.predicate = predicate;
+        this.rows = new int[store.getRowsPerPage()];
+    }
+
+    public void open() {
+        currentOffset = store.getValidStartOffset();
+        endOffset = store.getValidEndOffset();
+        currentPageId = -1;
+        rowCount = 0;
+        rowCursor = 0;
+        columnIndex = columnName == null ? -1 : store.columnIndex(columnName);
+    }
+
+    public long next() {
+        while (rowCursor >= rowCount) {
+            if (currentOffset >= endOffset) { return DbIterator.EOF; }
+            currentPageId = (int) (currentOffset / store.getPageSize());
+            currentOffset = (currentPageId + 1L) * store.getPageSize();
+            rowCursor = 0;
+            rowCount = store.collectRows(currentPageId, txContext, columnIndex, predicate, rows);
+        }
+        return TuplePointer.pack(currentPageId, rows[rowCursor++]);
+    }
+
+    public void close() {
+        currentOffset = -1;
+        rowCount = 0;
+        rowCursor = 0;
+    }
+}
@@ -3,6 +3,10 @@ package com.hunkyhsu.minidb.engine.execution;
 import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
 import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
 import com.hunkyhsu.minidb.engine.storage.PageLayout;
+import com.hunkyhsu.minidb.engine.storage.PageReadAhead;
+import com.hunkyhsu.minidb.engine.storage.SlottedPage;
+import com.hunkyhsu.minidb.engine.storage.Superblock;
+import com.hunkyhsu.minidb.engine.storage.ZoneMap;
 import com.hunkyhsu.minidb.engine.storage.TuplePointer;
 import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
 
@@ -15,30 +19,125 @@ public class SeqScanNode implements DbIterator {
     private final MMapFileChannel channel;
     private final AppendOnlyTableStore store;
     private final TransactionContext txContext;
+    private final PageReadAhead readAhead;
+    private final ColumnRange pushedRange;
 
-    private int currentOffset;
-    private int endOffset;
+    private long currentOffset;
+    private long endOffset;
+    private int currentPageId;
+    private PageReadAhead.Stream readAheadStream;
+    private boolean slotted;
+    private int pageTupleCount;
+    private int slot;
+    private ZoneMap zoneMap;
+    private int zoneColumn;
 
     public SeqScanNode(MMapFileChannel channel, AppendOnlyTableStore store,  TransactionContext txContext) {
+        this(channel, store, txContext, null);
+    }
+
+    /**
+     * @param readAhead when non-null, pages ahead of the cursor are faulted
+     *                  in on its helper thread while this scan runs
+     */
+    public SeqScanNode(MMapFileChannel channel, AppendOnlyTableStore store, TransactionContext txContext,
+                       PageReadAhead readAhead) {
+        this(channel, store, txContext, readAhead, null);
+    }
+
+    /**
+     * @param pushedRange when non-null and the store keeps a zone map, pages
+     *                    that can not hold a row in this range are skipped.
+     *                    Rows on the remaining pages are returned unfiltered.
+     */
+    public SeqScanNode(MMapFileChannel channel, AppendOnlyTableStore store, TransactionContext txContext,
+                       PageReadAhead readAhead, ColumnRange pushedRange) {
         this.channel = channel;
         this.store = store;
         this.txContext = txContext;
+        this.readAhead = readAhead;
+        this.pushedRange = pushedRange;
     }
 
     public void open() {
-        currentOffset = 0;
+        currentOffset = store.getValidStartOffset();
         endOffset = store.getValidEndOffset();
+        currentPageId = -1;
+        readAheadStream = readAhead == null ? null : readAhead.open(endOffset);
+        slotted = store.getFormatVersion() != Superblock.LEGACY_FORMAT_VERSION;
+        pageTupleCount = 0;
+        slot = 0;
+        zoneMap = pushedRange == null ? null : store.getZoneMap();
+        zoneColumn = zoneMap == null ? -1 : zoneMap.columnIndex(pushedRange.columnName());
     }
 
     public long next() {
+        return slotted ? nextSlotted() : nextLegacy();
+    }
+
+    /**
+     * Walks each page's slot directory up to the tuple count read at page
+     * entry, skipping versions the snapshot sees as deleted; a creator hinted
+     * as committed is checked without the commit log. Vacated pages,
+     * pages whose xmin range the snapshot can not see, and pages whose zone
+     * map excludes the pushed-down range are skipped without touching their
+     * tuples. Every other page is checked against its checksum the first
+     * time it is read.
+     */
+    private long nextSlotted() {
+        while (true) {
+            while (slot < pageTupleCount) {
+                long tuplePointer = SlottedPage.tuplePointer(channel, currentPageId, slot++);
+                long xmin = channel.readXmin(tuplePointer);
+                boolean created = (channel.readTupleFlags(tuplePointer) & PageLayout.TUPLE_FLAG_XMIN_COMMITTED) != 0
+                        ? txContext.isVisibleCommitted(xmin) : txContext.isVisible(xmin);
+                long xmax = store.readXmax(tuplePointer);
+                if (created && (xmax == 0 || !txContext.isVisible(xmax))) {
+                    return tuplePointer;
+                }
+            }
+            if (currentOffset >= endOffset) {
+                return DbIterator.EOF;
+            }
+            currentPageId = channel.pageId(currentOffset);
+            currentOffset = channel.pageStart(currentPageId + 1);
+            if (readAheadStream != null) { readAheadStream.advance(currentOffset); }
+            slot = 0;
+            pageTupleCount = SlottedPage.tupleCount(channel, currentPageId);
+            if (pageTupleCount > 0
+                    && (SlottedPage.flags(channel, currentPageId) & PageLayout.PAGE_FLAG_VACATED) != 0) {
+                pageTupleCount = 0;
+            }
+            if (pageTupleCount > 0 && !txContext.mayContainVisible(
+                    SlottedPage.minXmin(channel, currentPageId), SlottedPage.maxXmin(channel, currentPageId))) {
+                pageTupleCount = 0;
+            }
+            if (pageTupleCount > 0 && zoneMap != null
+                    && !zoneMap.mayMatch(currentPageId, zoneColumn, pushedRange.low(), pushedRange.high())) {
+                pageTupleCount = 0;
+            }
+            if (pageTupleCount > 0) { store.verifyPage(currentPageId); }
+        }
+    }
+
+    private long nextLegacy() {
         while (currentOffset < endOffset) {
-            int pageId = currentOffset / PageLayout.PAGE_SIZE;
-            int pageOffset = currentOffset % PageLayout.PAGE_SIZE;
+            int pageId = channel.pageId(currentOffset);
+            if (pageId != currentPageId) {
+                currentPageId = pageId;
+                if (readAheadStream != null) { readAheadStream.advance(currentOffset); }
+            }
+            int pageOffset = (int) (currentOffset - channel.pageStart(pageId));
+            // Page tail too short to hold a header
+            if (pageOffset > channel.getPageSize() - PageLayout.HEADER_SIZE) {
+                currentOffset = channel.pageStart(pageId + 1);
+                continue;
+            }
             long tuplePointer = TuplePointer.pack(pageId, pageOffset);
             long currentXmin = channel.readXmin(tuplePointer);
             // Is empty space, need to next page
             if (currentXmin == 0) {
-                currentOffset = (pageId + 1) * PageLayout.PAGE_SIZE;
+                currentOffset = channel.pageStart(pageId + 1);
             } else {
                 int payloadLength = channel.readPayloadLength(tuplePointer);
                 currentOffset += PageLayout.HEADER_SIZE + payloadLength;
@@ -52,5 +151,7 @@ public class SeqScanNode implements DbIterator {
 
     public void close() {
         currentOffset = -1;
+        readAheadStream = null;
+        pageTupleCount = 0;
     }
 }
@@ -1,7 +1,20 @@
 package com.hunkyhsu.minidb.engine.storage;
 
-import java.security.InvalidParameterException;
-import java.util.concurrent.atomic.AtomicInteger;
+import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+import com.hunkyhsu.minidb.engine.transaction.WriteConflictException;
+import com.hunkyhsu.minidb.engine.wal.WriteAheadLog;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * @author hunkyhsu
@@ -9,41 +22,924 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @date 2026/4/4 15:51
  */
 public class AppendOnlyTableStore {
+    public static final int DEFAULT_RESERVATION_PAGES = 4;
+    private static final int VERSION_LOCK_STRIPES = 64;
+
     private final MMapFileChannel channel;
-    private final AtomicInteger currentOffset;
+    private final Superblock superblock;
+    private final WriteAheadLog wal;
+    private final AtomicLong reservedOffset;
+    private final AtomicLong publishedOffset;
+    private final ConcurrentMap<Long, Long> pendingPublications;
+    private final int reservationPages;
+    private final ThreadLocal<Reservation> reservations;
+    private final int formatVersion;
+    private final boolean slotted;
+    private final int versionHeaderSize;
+    private final boolean compact;
+    private final int tupleHeaderSize;
+    private final int pageSize;
+    private final Object[] versionLocks;
+    private final boolean pax;
+    private final ZoneMap zoneMap;
+    private final int tableOid;
+    private final PageChecksums checksums;
+    // Vacated pages offered for reuse, in the order they were freed; both guarded by freePages
+    private final ArrayDeque<FreePage> freePages = new ArrayDeque<>();
+    private final Set<Integer> freePageIds = new HashSet<>();
+    // Reused pages by the checkpoint generation they were handed out in, until their writers are done
+    private final ConcurrentMap<Integer, Long> refilledPages = new ConcurrentHashMap<>();
+    private volatile long sealedOffset;
+    private volatile long checkpointGeneration;
+    private long checkpointedOffset;
+    private long previousSealedOffset;
+    private volatile long checksumOffset;
+    private long recoveredXid;
 
     public AppendOnlyTableStore(MMapFileChannel channel) {
+        this(channel, DEFAULT_RESERVATION_PAGES);
+    }
+
+    public AppendOnlyTableStore(MMapFileChannel channel, int reservationPages) {
+        this(channel, reservationPages, null);
+    }
+
+    /**
+     * @param wal when non-null, every insert is also logged as a redo record
+     */
+    public AppendOnlyTableStore(MMapFileChannel channel, int reservationPages, WriteAheadLog wal) {
+        this(channel, reservationPages, wal, null);
+    }
+
+    /**
+     * @param zoneMap when non-null and the file is slotted, it is kept up to
+     *                date by every insert; existing pages are summarized when
+     *                a scan first consults them
+     */
+    public AppendOnlyTableStore(MMapFileChannel channel, int reservationPages, WriteAheadLog wal, ZoneMap zoneMap) {
+        this(channel, reservationPages, wal, zoneMap, 0);
+    }
+
+    /**
+     * @param tableOid table this file holds, stamped on every WAL record so
+     *                 recovery can route it back to this store
+     */
+    public AppendOnlyTableStore(MMapFileChannel channel, int reservationPages, WriteAheadLog wal, ZoneMap zoneMap,
+                                int tableOid) {
+        this(channel, reservationPages, wal, zoneMap, tableOid, Superblock.LAYOUT_ROW);
+    }
+
+    /**
+     * Opens or formats a file with the given {@link Superblock} layout. Only
+     * {@link PaxTableStore} asks for anything but rows.
+     */
+    AppendOnlyTableStore(MMapFileChannel channel, int reservationPages, WriteAheadLog wal, ZoneMap zoneMap,
+                         int tableOid, int layout) {
+        if (reservationPages <= 0) {
+            throw new IllegalArgumentException("Reservation pages must be positive: " + reservationPages);
+        }
         this.channel = channel;
-        this.currentOffset = new AtomicInteger(0);
+        this.wal = wal;
+        this.tableOid = tableOid;
+        this.reservationPages = reservationPages;
+        this.pageSize = channel.getPageSize();
+        this.superblock = new Superblock(channel);
+        if (superblock.isFormatted()) {
+            superblock.validate();
+            if (superblock.getLayout() != layout) {
+                throw new IllegalStateException("Layout mismatch: " + superblock.getLayout() + " != " + layout);
+            }
+        } else {
+            superblock.format(layout);
+        }
+        this.pax = layout == Superblock.LAYOUT_PAX;
+        this.formatVersion = superblock.getFormatVersion();
+        this.slotted = formatVersion != Superblock.LEGACY_FORMAT_VERSION;
+        this.versionHeaderSize = formatVersion >= Superblock.VERSIONED_FORMAT_VERSION ? PageLayout.VERSION_HEADER_SIZE : 0;
+        this.compact = !pax && formatVersion >= Superblock.FORMAT_VERSION;
+        this.tupleHeaderSize = compact ? PageLayout.COMPACT_HEADER_SIZE : PageLayout.HEADER_SIZE;
+        channel.setCompactTuples(compact);
+        this.versionLocks = new Object[VERSION_LOCK_STRIPES];
+        for (int i = 0; i < VERSION_LOCK_STRIPES; i++) {
+            versionLocks[i] = new Object();
+        }
+        this.reservations = ThreadLocal.withInitial(() -> new Reservation(slotted, compact, pageSize));
+        this.recoveredXid = superblock.getCheckpointXid();
+        this.checkpointedOffset = superblock.getTailWatermark();
+        this.reservedOffset = new AtomicLong(alignToPage(recoverTail(checkpointedOffset)));
+        this.publishedOffset = new AtomicLong(reservedOffset.get());
+        this.pendingPublications = new ConcurrentHashMap<>();
+        this.sealedOffset = reservedOffset.get();
+        this.previousSealedOffset = sealedOffset;
+        this.checksums = slotted ? new PageChecksums(channel, pax) : null;
+        this.checksumOffset = superblock.getChecksumWatermark();
+        this.zoneMap = slotted ? zoneMap : null;
+        if (this.zoneMap != null && publishedOffset.get() > getValidStartOffset()) {
+            // Appends resume on a fresh page, and a reused page drops its summary before it is refilled
+            zoneMap.summarizeLazily(channel.pageId(getValidStartOffset()),
+                    channel.pageId(publishedOffset.get() - 1) + 1, this::summarizePage);
+        }
     }
 
-    public long insertTuple(long xmin, byte[] payload) {
-        int totalTupleSize = PageLayout.HEADER_SIZE + payload.length;
-        if (totalTupleSize > PageLayout.PAGE_SIZE) {
-            throw new IllegalArgumentException("Not Support Oversized Tuple: " + totalTupleSize + " > " + PageLayout.PAGE_SIZE);
-        }
-        int absOffset;
-        int current;
-        int next;
-        // No-lock CAS Spin Loop
-        do {
-            current = currentOffset.get();
-            int takenPageSize = current % PageLayout.PAGE_SIZE;
-            if (totalTupleSize > PageLayout.PAGE_SIZE - takenPageSize) {
-                absOffset = ((current / PageLayout.PAGE_SIZE) + 1) * PageLayout.PAGE_SIZE;
+    private void summarizePage(int pageId) {
+        int count = SlottedPage.tupleCount(channel, pageId);
+        for (int slot = 0; slot < count; slot++) {
+            long pointer = SlottedPage.tuplePointer(channel, pageId, slot);
+            int payloadLength = channel.readPayloadLength(pointer);
+            channel.read(channel.payloadOffset(pointer),
+                    (buffer, index) -> zoneMap.include(pageId, buffer, index, payloadLength));
+        }
+    }
+
+    /**
+     * Re-validates everything past the checkpointed watermark: walks the
+     * remaining pages and keeps the end of the last complete tuple found.
+     * Unwritten pages cost one read each, so the work is bounded by what was
+     * appended since the last checkpoint plus the unused part of the mapping.
+     */
+    private long recoverTail(long watermark) {
+        return slotted ? recoverSlottedTail(watermark) : recoverLegacyTail(watermark);
+    }
+
+    /**
+     * Slotted pages answer from their header: the tuple count says whether
+     * the page holds anything and the free start says where it ends. PAX
+     * pages are laid out for their full capacity, so any row claims the page.
+     */
+    private long recoverSlottedTail(long watermark) {
+        long tail = watermark;
+        long capacity = channel.getCapacity();
+        for (long pageStart = watermark & -pageSize; pageStart < capacity; pageStart += pageSize) {
+            int pageId = channel.pageId(pageStart);
+            int count = SlottedPage.tupleCount(channel, pageId);
+            if (count <= 0) { continue; }
+            if (pax) {
+                tail = Math.max(tail, pageStart + pageSize);
             } else {
-                absOffset = current;
-            }
-            next = absOffset + totalTupleSize;
-        } while (!currentOffset.compareAndSet(current, next));
-        int pageId = absOffset / PageLayout.PAGE_SIZE;
-        int offset = absOffset % PageLayout.PAGE_SIZE;
-        long pointer = TuplePointer.pack(pageId, offset);
-        channel.writeTuple(pointer, xmin, payload);
+                int freeStart = SlottedPage.freeStart(channel, pageId);
+                // Torn header
+                if (freeStart <= PageLayout.PAGE_HEADER_SIZE
+                        || freeStart > pageSize - count * PageLayout.SLOT_SIZE) { continue; }
+                tail = Math.max(tail, pageStart + freeStart);
+            }
+            recoveredXid = Math.max(recoveredXid, SlottedPage.maxXmin(channel, pageId));
+        }
+        return tail;
+    }
+
+    private long recoverLegacyTail(long watermark) {
+        long tail = watermark;
+        long capacity = channel.getCapacity();
+        long offset = watermark;
+        while (offset < capacity) {
+            long pageEnd = (offset & -pageSize) + pageSize;
+            while (offset <= pageEnd - PageLayout.HEADER_SIZE) {
+                long xmin = channel.getLong(offset + PageLayout.XMIN_OFFSET);
+                int payloadLength = channel.getInt(offset + PageLayout.LEN_OFFSET);
+                long tupleEnd = offset + PageLayout.HEADER_SIZE + payloadLength;
+                // Empty space or a torn header ends this page
+                if (xmin == 0 || payloadLength < 0 || tupleEnd > pageEnd) { break; }
+                offset = tupleEnd;
+                tail = tupleEnd;
+                recoveredXid = Math.max(recoveredXid, xmin);
+            }
+            offset = pageEnd;
+        }
+        return tail;
+    }
+
+    public long insertTuple(long xmin, byte[] payload) {
+        long absOffset = allocate(tupleSize(payload.length), xmin) + versionHeaderSize;
+        channel.writeTupleAt(absOffset, xmin, payload, 0, payload.length);
+        register(absOffset, xmin, payload.length);
+        long pointer = toPointer(absOffset);
+        if (wal != null) { wal.logInsert(xmin, tableOid, pointer, payload, 0, payload.length); }
+        return pointer;
+    }
+
+    /**
+     * Copies the bytes between {@code payload}'s position and limit, from a
+     * heap or direct buffer, without changing its position.
+     */
+    public long insertTuple(long xmin, ByteBuffer payload) {
+        int payloadLength = payload.remaining();
+        long absOffset = allocate(tupleSize(payloadLength), xmin) + versionHeaderSize;
+        channel.writeTupleAt(absOffset, xmin, payload, payload.position(), payloadLength);
+        register(absOffset, xmin, payloadLength);
+        long pointer = toPointer(absOffset);
+        if (wal != null) { wal.logInsert(xmin, tableOid, pointer, payload, payload.position(), payloadLength); }
+        return pointer;
+    }
+
+    /**
+     * Reserves room for a {@code payloadLength}-byte payload and lets
+     * {@code encoder} write it in place.
+     */
+    public long insertTuple(long xmin, int payloadLength, TupleEncoder encoder) {
+        if (payloadLength < 0) {
+            throw new IllegalArgumentException("Negative payload length: " + payloadLength);
+        }
+        long absOffset = allocate(tupleSize(payloadLength), xmin) + versionHeaderSize;
+        try {
+            channel.writeTupleAt(absOffset, xmin, payloadLength, encoder);
+        } catch (RuntimeException e) {
+            // The xmin was never written, so hand the slot back before a later tuple hides behind it
+            reservations.get().release(absOffset - versionHeaderSize);
+            throw e;
+        }
+        register(absOffset, xmin, payloadLength);
+        long pointer = toPointer(absOffset);
+        if (wal != null) { logFromPage(xmin, pointer, absOffset, payloadLength); }
         return pointer;
     }
 
-    public int getValidEndOffset() {
-        return currentOffset.get();
+    private void logFromPage(long xmin, long pointer, long absOffset, int payloadLength) {
+        long payloadOffset = absOffset + tupleHeaderSize;
+        channel.read(payloadOffset, (buffer, index) -> wal.logInsert(xmin, tableOid, pointer, buffer, index, payloadLength));
+    }
+
+    /**
+     * Rewrites a tuple from a redo record at its original pointer and moves
+     * the tail past it. Only valid during recovery, before any insert.
+     */
+    public void redoTuple(long xmin, long pointer, ByteBuffer payload) {
+        long absOffset = absoluteOffset(pointer);
+        int payloadLength = payload.remaining();
+        tupleSize(payloadLength);
+        long end = alignToPage(absOffset + tupleHeaderSize + payloadLength);
+        channel.ensureCapacity(end);
+        channel.writeTupleAt(absOffset, xmin, payload, payload.position(), payloadLength);
+        register(absOffset, xmin, payloadLength);
+        if (end > reservedOffset.get()) {
+            reservedOffset.set(end);
+            publishedOffset.set(end);
+            sealedOffset = end;
+            previousSealedOffset = end;
+        }
+        recoveredXid = Math.max(recoveredXid, xmin);
+    }
+
+    private long allocate(int totalTupleSize, long xmin) {
+        Reservation reservation = reservations.get();
+        long absOffset = isSealed(reservation) ? -1 : reservation.allocate(totalTupleSize, xmin);
+        if (absOffset < 0) {
+            refill(reservation);
+            absOffset = reservation.allocate(totalTupleSize, xmin);
+        }
+        return absOffset;
+    }
+
+    /**
+     * Hands the calling thread a whole page of its own, for layouts that
+     * manage the page contents themselves.
+     */
+    long allocatePage() {
+        Reservation reservation = reservations.get();
+        long pageStart = isSealed(reservation) ? -1 : reservation.allocatePage();
+        if (pageStart < 0) {
+            refill(reservation);
+            pageStart = reservation.allocatePage();
+        }
+        return pageStart;
+    }
+
+    /**
+     * Tail reservations are sealed once a checkpoint passes them, reused
+     * pages once a checkpoint follows the one they were handed out in.
+     */
+    private boolean isSealed(Reservation reservation) {
+        return reservation.reusedIn >= 0 ? reservation.reusedIn != checkpointGeneration
+                : reservation.start < sealedOffset;
+    }
+
+    /**
+     * Hands out a vacated page if one is ready, and otherwise a fresh chunk
+     * past the tail.
+     */
+    private void refill(Reservation reservation) {
+        long reusedStart = takeFreePage();
+        if (reusedStart >= 0) {
+            if (zoneMap != null) { zoneMap.resetPage(channel.pageId(reusedStart)); }
+            reservation.reuse(reusedStart, pageSize, checkpointGeneration);
+            return;
+        }
+        long chunkBytes = (long) reservationPages * pageSize;
+        long chunkStart = reserve(chunkBytes);
+        // Unwritten pages read as empty, so a chunk is published as soon as it is mapped
+        publish(chunkStart, chunkStart + chunkBytes);
+        reservation.reset(chunkStart, chunkBytes);
+    }
+
+    /**
+     * Empties a sealed page none of whose tuples any snapshot can see: the
+     * header is reset to that of an unwritten page, flagged vacated, and
+     * forced, so neither scans nor a restart read the old tuples again. The
+     * first tuple registered on the page clears the flag.
+     */
+    synchronized void vacatePage(int pageId) {
+        long pageStart = channel.pageStart(pageId);
+        channel.write(pageStart, (page, base) -> {
+            page.putInt(base + PageLayout.PAGE_TUPLE_COUNT_OFFSET, 0);
+            page.putInt(base + PageLayout.PAGE_FREE_START_OFFSET, 0);
+            page.putLong(base + PageLayout.PAGE_MIN_XMIN_OFFSET, 0L);
+            page.putLong(base + PageLayout.PAGE_MAX_XMIN_OFFSET, 0L);
+            page.putInt(base + PageLayout.PAGE_FLAGS_OFFSET, PageLayout.PAGE_FLAG_VACATED);
+            page.putInt(base + PageLayout.PAGE_CHECKSUM_OFFSET, 0);
+        });
+        channel.force(pageStart, pageSize);
+    }
+
+    /**
+     * Offers a vacated page for reuse once no snapshot can still be reading
+     * its old tuples. Offering a page twice, or one being refilled, does
+     * nothing.
+     * <p>
+     * Only stores with a write-ahead log reuse pages: the rows written into
+     * a reused page are found again after a crash by replaying the log, not
+     * by walking the tail, and the page is only handed out once a checkpoint
+     * has moved the redo position past every record about its old tuples.
+     */
+    void freePage(int pageId) {
+        if (wal == null || refilledPages.containsKey(pageId)) { return; }
+        synchronized (freePages) {
+            if (freePageIds.add(pageId)) { freePages.add(new FreePage(pageId, wal.getAppendedLsn())); }
+        }
+    }
+
+    /**
+     * The oldest free page the last checkpoint has made safe to write, or
+     * -1. Pages not checksummed yet wait too, so a checksum is never taken
+     * of a page while it is being refilled.
+     */
+    private long takeFreePage() {
+        if (wal == null) { return -1; }
+        long redoLsn = superblock.getRedoLsn();
+        synchronized (freePages) {
+            for (Iterator<FreePage> it = freePages.iterator(); it.hasNext(); ) {
+                FreePage page = it.next();
+                // Freed in log order, so no later page is ready either
+                if (page.freedLsn() > redoLsn) { break; }
+                long pageStart = channel.pageStart(page.pageId());
+                if (pageStart >= checksumOffset) { continue; }
+                it.remove();
+                freePageIds.remove(page.pageId());
+                refilledPages.put(page.pageId(), checkpointGeneration);
+                return pageStart;
+            }
+        }
+        return -1;
+    }
+
+    int countFreePages() {
+        synchronized (freePages) {
+            return freePages.size();
+        }
+    }
+
+    /**
+     * False while a reused page may still have a writer: from the moment it
+     * is handed out until the checkpoint after the one that seals it.
+     */
+    boolean isSettled(int pageId) {
+        Long generation = refilledPages.get(pageId);
+        return generation == null || generation < checkpointGeneration - 1;
+    }
+
+    /**
+     * True once a checkpoint has sealed {@code offset}: it lies below the
+     * watermark restart walks from, so nothing may be appended there anymore.
+     */
+    boolean isSealed(long offset) {
+        return offset < sealedOffset;
+    }
+
+    /**
+     * Everything below this offset is sealed by a checkpoint and will never
+     * be appended to again.
+     */
+    long getSealedOffset() {
+        return sealedOffset;
+    }
+
+    /**
+     * Bytes the tuple at {@code pointer} takes in its page, version header
+     * included.
+     */
+    int tupleSpan(long pointer) {
+        return versionHeaderSize + tupleHeaderSize + channel.readPayloadLength(pointer);
+    }
+
+    /**
+     * Inserts {@code payloads} under one reservation sized for the whole batch
+     * and writes each header and payload in a single pass. Pointers are stored
+     * in {@code pointers} in input order.
+     *
+     * @return the number of rows inserted
+     */
+    public int insertTuples(long xmin, byte[][] payloads, long[] pointers) {
+        int rowCount = payloads.length;
+        checkPointerCapacity(rowCount, pointers);
+        if (rowCount == 0) { return 0; }
+        Reservation layout = new Reservation(slotted, compact, pageSize);
+        layout.reset(0, Long.MAX_VALUE);
+        for (byte[] payload : payloads) {
+            layout.allocate(tupleSize(payload.length), xmin);
+        }
+        long batchBytes = alignToPage(layout.position);
+        Reservation batch = new Reservation(slotted, compact, pageSize);
+        batch.reset(reserve(batchBytes), batchBytes);
+        try {
+            for (int i = 0; i < rowCount; i++) {
+                byte[] payload = payloads[i];
+                long tupleStart = batch.allocate(tupleSize(payload.length), xmin) + versionHeaderSize;
+                channel.writeTupleAt(tupleStart, xmin, payload, 0, payload.length);
+                register(tupleStart, xmin, payload.length);
+                pointers[i] = toPointer(tupleStart);
+                if (wal != null) { wal.logInsert(xmin, tableOid, pointers[i], payload, 0, payload.length); }
+            }
+        } finally {
+            publish(batch.start, batch.limit);
+            reservations.get().adopt(batch);
+        }
+        return rowCount;
+    }
+
+    /**
+     * Inserts the length-prefixed rows packed between {@code packedRows}'
+     * position and limit: each row is an {@code int} length followed by that
+     * many payload bytes. The buffer position is left unchanged.
+     *
+     * @return the number of rows inserted
+     */
+    public int insertTuples(long xmin, ByteBuffer packedRows, long[] pointers) {
+        int rowCount = 0;
+        Reservation layout = new Reservation(slotted, compact, pageSize);
+        layout.reset(0, Long.MAX_VALUE);
+        for (int cursor = packedRows.position(); cursor < packedRows.limit(); rowCount++) {
+            int payloadLength = packedRows.getInt(cursor);
+            if (payloadLength < 0 || cursor + Integer.BYTES + payloadLength > packedRows.limit()) {
+                throw new IllegalArgumentException("Malformed packed row at " + cursor);
+            }
+            layout.allocate(tupleSize(payloadLength), xmin);
+            cursor += Integer.BYTES + payloadLength;
+        }
+        checkPointerCapacity(rowCount, pointers);
+        if (rowCount == 0) { return 0; }
+        long batchBytes = alignToPage(layout.position);
+        Reservation batch = new Reservation(slotted, compact, pageSize);
+        batch.reset(reserve(batchBytes), batchBytes);
+        int cursor = packedRows.position();
+        try {
+            for (int i = 0; i < rowCount; i++) {
+                int payloadLength = packedRows.getInt(cursor);
+                long tupleStart = batch.allocate(tupleSize(payloadLength), xmin) + versionHeaderSize;
+                channel.writeTupleAt(tupleStart, xmin, packedRows, cursor + Integer.BYTES, payloadLength);
+                register(tupleStart, xmin, payloadLength);
+                pointers[i] = toPointer(tupleStart);
+                if (wal != null) { wal.logInsert(xmin, tableOid, pointers[i], packedRows, cursor + Integer.BYTES, payloadLength); }
+                cursor += Integer.BYTES + payloadLength;
+            }
+        } finally {
+            publish(batch.start, batch.limit);
+            reservations.get().adopt(batch);
+        }
+        return rowCount;
+    }
+
+    private static void checkPointerCapacity(int rowCount, long[] pointers) {
+        if (pointers.length < rowCount) {
+            throw new IllegalArgumentException("Pointer array too small: " + pointers.length + " < " + rowCount);
+        }
+    }
+
+    /**
+     * Bytes a tuple takes in its page, including the version header that
+     * precedes it in the current format.
+     */
+    private int tupleSize(int payloadLength) {
+        int totalTupleSize = versionHeaderSize + tupleHeaderSize + payloadLength;
+        int maxTupleSize = slotted
+                ? pageSize - pageHeaderSize(compact) - PageLayout.SLOT_SIZE
+                : pageSize;
+        if (compact) {
+            maxTupleSize = Math.min(maxTupleSize, versionHeaderSize + tupleHeaderSize + PageLayout.MAX_COMPACT_LENGTH);
+        }
+        if (totalTupleSize > maxTupleSize) {
+            throw new IllegalArgumentException("Not Support Oversized Tuple: " + totalTupleSize + " > " + maxTupleSize);
+        }
+        return totalTupleSize;
+    }
+
+    /**
+     * Makes a written tuple visible to scans of a slotted page. Legacy pages
+     * need nothing more: their tuples are published by the xmin itself.
+     * The zone map is widened first so it already covers the tuple by the
+     * time the page's tuple count exposes it.
+     */
+    private void register(long absOffset, long xmin, int payloadLength) {
+        if (zoneMap != null) {
+            int pageId = channel.pageId(absOffset);
+            channel.read(absOffset + tupleHeaderSize,
+                    (buffer, index) -> zoneMap.include(pageId, buffer, index, payloadLength));
+        }
+        if (slotted) {
+            SlottedPage.register(channel, absOffset, xmin, tupleHeaderSize + payloadLength);
+        }
+    }
+
+    /**
+     * The zone map maintained by this store, or null if it keeps none.
+     */
+    public ZoneMap getZoneMap() {
+        return zoneMap;
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTableOid() {
+        return tableOid;
+    }
+
+    /**
+     * Stamps the tuple at {@code pointer} as deleted by {@code txContext}'s
+     * transaction. The tuple must be visible to it.
+     *
+     * @throws WriteConflictException if another transaction that has not
+     *                                aborted already updated or deleted it
+     */
+    public void deleteTuple(TransactionContext txContext, long pointer) {
+        long stamped = stampXmax(txContext, pointer);
+        if (wal != null) { wal.logDelete(txContext.getCurrentTxnId(), tableOid, stamped, TuplePointer.NONE); }
+    }
+
+    /**
+     * Appends {@code payload} as the next version of the tuple at
+     * {@code pointer} and stamps the old version, which then points at the
+     * new one. Conflicts are detected before anything is appended.
+     *
+     * @return the pointer of the new version
+     * @throws WriteConflictException as {@link #deleteTuple}
+     */
+    public long updateTuple(TransactionContext txContext, long pointer, byte[] payload) {
+        tupleSize(payload.length);
+        long stamped = stampXmax(txContext, pointer);
+        long xid = txContext.getCurrentTxnId();
+        long nextVersion = insertTuple(xid, payload);
+        channel.putLong(absoluteOffset(stamped) + PageLayout.NEXT_VERSION_OFFSET, nextVersion);
+        if (wal != null) { wal.logDelete(xid, tableOid, stamped, nextVersion); }
+        return nextVersion;
+    }
+
+    /**
+     * Stamps the tuple at {@code pointer} as deleted by the committed
+     * transaction {@code xid}, with no snapshot or conflict check. Only for
+     * tuples reached solely through a row {@code xid} deleted, such as
+     * overflow chunks, which nobody else ever stamps.
+     */
+    public void stampDeleted(long xid, long pointer) {
+        if (versionHeaderSize == 0) {
+            throw new UnsupportedOperationException("Format version " + formatVersion + " tuples have no xmax");
+        }
+        channel.write(absoluteOffset(pointer) + PageLayout.XMAX_OFFSET, (buffer, index) -> {
+            buffer.putLong(index + Long.BYTES, TuplePointer.NONE);
+            buffer.putLong(index, xid);
+        });
+        if (wal != null) { wal.logDelete(xid, tableOid, pointer, TuplePointer.NONE); }
+    }
+
+    /**
+     * First updater wins: the xmax is checked and written under the tuple's
+     * lock stripe, so of two concurrent writers exactly one sees it empty.
+     * A stamp left by an aborted transaction may be taken over. A tuple a
+     * committed vacuum mover relocated is not stamped itself: the stamp
+     * goes to the copy, which the writer's snapshot may not see but which
+     * holds the same contents.
+     *
+     * @return the pointer of the version actually stamped
+     */
+    private long stampXmax(TransactionContext txContext, long pointer) {
+        if (versionHeaderSize == 0) {
+            throw new UnsupportedOperationException("Format version " + formatVersion + " tuples have no xmax");
+        }
+        long xid = txContext.getCurrentTxnId();
+        if (!txContext.isVisible(channel.readXmin(pointer))) {
+            throw new IllegalArgumentException("Tuple " + Long.toHexString(pointer) + " is not visible to transaction " + xid);
+        }
+        while (true) {
+            long versionHeader = absoluteOffset(pointer) + PageLayout.XMAX_OFFSET;
+            synchronized (versionLocks[(int) ((pointer * 0x9E3779B97F4A7C15L) >>> 58)]) {
+                long xmax = channel.getLong(versionHeader);
+                if (xmax == xid) {
+                    throw new IllegalArgumentException("Tuple " + Long.toHexString(pointer) + " was already deleted by transaction " + xid);
+                }
+                if (!txContext.canOverwrite(xmax)) { throw new WriteConflictException(pointer, xmax); }
+                if (!txContext.isRelocation(xmax)) {
+                    channel.write(versionHeader, (buffer, index) -> {
+                        buffer.putLong(index + Long.BYTES, TuplePointer.NONE);
+                        buffer.putLong(index, xid);
+                    });
+                    return pointer;
+                }
+            }
+            pointer = readNextVersion(pointer);
+        }
+    }
+
+    /**
+     * Re-applies a logged delete or update stamp. Only valid during recovery.
+     */
+    public void redoDelete(long xid, long pointer, long nextVersion) {
+        long versionHeader = absoluteOffset(pointer) + PageLayout.XMAX_OFFSET;
+        channel.write(versionHeader, (buffer, index) -> {
+            buffer.putLong(index, xid);
+            buffer.putLong(index + Long.BYTES, nextVersion);
+        });
+        recoveredXid = Math.max(recoveredXid, xid);
+    }
+
+    /**
+     * Transaction that deleted or replaced the tuple, or 0. Always 0 for
+     * formats without a version header.
+     */
+    public long readXmax(long pointer) {
+        return versionHeaderSize == 0 ? 0 : channel.getLong(absoluteOffset(pointer) + PageLayout.XMAX_OFFSET);
+    }
+
+    /**
+     * The version that replaced the tuple, or {@link TuplePointer#NONE}.
+     */
+    public long readNextVersion(long pointer) {
+        return versionHeaderSize == 0 ? TuplePointer.NONE
+                : channel.getLong(absoluteOffset(pointer) + PageLayout.NEXT_VERSION_OFFSET);
+    }
+
+    private long absoluteOffset(long pointer) {
+        return channel.absoluteOffset(pointer);
+    }
+
+    private long toPointer(long absOffset) {
+        return channel.toPointer(absOffset);
+    }
+
+    /**
+     * Claims {@code bytes} (whole pages) past the tail with a single atomic add.
+     * The tail only ever moves by whole pages, so every page has one writer.
+     */
+    private long reserve(long bytes) {
+        long start = reservedOffset.getAndAdd(bytes);
+        channel.ensureCapacity(start + bytes);
+        return start;
+    }
+
+    /**
+     * Marks {@code [start, end)} as published. The published watermark only
+     * advances over a contiguous prefix: a range that completes early is
+     * parked until every range below it has been published, and whichever
+     * thread closes the gap advances the watermark over the parked ranges.
+     */
+    private void publish(long start, long end) {
+        if (!publishedOffset.compareAndSet(start, end)) {
+            pendingPublications.put(start, end);
+        }
+        long published;
+        Long next;
+        while ((next = pendingPublications.remove(published = publishedOffset.get())) != null) {
+            publishedOffset.compareAndSet(published, next);
+        }
+    }
+
+    /**
+     * Seals every open reservation below the current tail, forces the bytes
+     * appended since the previous checkpoint, then records the tail and the
+     * xid in the superblock. Sealing makes writers move to pages above the
+     * watermark, so restart only has to walk forward from it. The xid is read
+     * after sealing so it covers every writer that may still land below.
+     */
+    public synchronized void checkpoint(LongSupplier lastXid) {
+        checkpoint(lastXid, superblock.getRedoLsn(), false);
+    }
+
+    /**
+     * Checkpoints like {@link #checkpoint(LongSupplier)}, but also forces
+     * every page changed in place since it was appended, such as by a
+     * delete, and then records {@code redoLsn}, read beforehand from
+     * {@link com.hunkyhsu.minidb.engine.transaction.TransactionManager#getRedoLsn()},
+     * as where recovery of this file has to start redoing the log.
+     */
+    public synchronized void checkpoint(LongSupplier lastXid, long redoLsn) {
+        checkpoint(lastXid, Math.max(redoLsn, superblock.getRedoLsn()), true);
+    }
+
+    private void checkpoint(LongSupplier lastXid, long redoLsn, boolean forceAll) {
+        long tail = reservedOffset.get();
+        sealedOffset = tail;
+        long generation = ++checkpointGeneration;
+        refilledPages.values().removeIf(reusedIn -> reusedIn < generation - 1);
+        long xid = lastXid.getAsLong();
+        long forceFrom = checkpointedOffset;
+        // Writers that were already inside a page sealed by the previous checkpoint have long finished
+        if (checksums != null && previousSealedOffset > checksumOffset) {
+            sealChecksums(checksumOffset, previousSealedOffset);
+            forceFrom = Math.min(forceFrom, checksumOffset);
+            checksumOffset = previousSealedOffset;
+        }
+        if (tail > forceFrom) {
+            channel.force(forceFrom, tail - forceFrom);
+        }
+        if (forceAll) { channel.flushDirty(Long.MAX_VALUE); }
+        superblock.writeCheckpoint(tail, xid, checksumOffset, redoLsn);
+        checkpointedOffset = tail;
+        previousSealedOffset = tail;
+    }
+
+    private void sealChecksums(long start, long end) {
+        for (long pageStart = start; pageStart < end; pageStart += pageSize) {
+            checksums.seal(channel.pageId(pageStart));
+        }
+    }
+
+    /**
+     * Checks {@code pageId} against its checksum on the first read since
+     * startup; later reads only test the page's verified bit. Pages not yet
+     * checksummed pass.
+     *
+     * @throws CorruptPageException if the page no longer matches its checksum
+     */
+    public void verifyPage(int pageId) {
+        if (checksums != null && !checksums.verify(pageId)) { throw new CorruptPageException(pageId); }
+    }
+
+    /**
+     * Re-checks every checksummed page, verified before or not.
+     *
+     * @return the ids of the pages that no longer match their checksum
+     */
+    public List<Integer> scrub() {
+        List<Integer> corruptPages = new ArrayList<>();
+        if (checksums == null) { return corruptPages; }
+        long end;
+        synchronized (this) {
+            end = checksumOffset;
+        }
+        for (long pageStart = getValidStartOffset(); pageStart < end; pageStart += pageSize) {
+            int pageId = channel.pageId(pageStart);
+            if (!checksums.check(pageId)) { corruptPages.add(pageId); }
+        }
+        return corruptPages;
+    }
+
+    /**
+     * Sets {@code flags} on a sealed page's header. Serialized with
+     * checkpoints, which set the checksum flag on the same word.
+     */
+    synchronized void addPageFlags(int pageId, int flags) {
+        SlottedPage.addFlags(channel, pageId, flags);
+    }
+
+    /**
+     * Write-ahead log position recovery has to redo this file from.
+     */
+    public long getRedoLsn() {
+        return superblock.getRedoLsn();
+    }
+
+    /**
+     * Highest xid known to have touched this file: the checkpointed xid or
+     * any newer xmin found while re-validating the tail on startup.
+     */
+    public long getRecoveredXid() {
+        return recoveredXid;
+    }
+
+    private static int pageHeaderSize(boolean compact) {
+        return compact ? PageLayout.COMPACT_PAGE_HEADER_SIZE : PageLayout.PAGE_HEADER_SIZE;
+    }
+
+    private long alignToPage(long offset) {
+        return alignToPage(offset, pageSize);
+    }
+
+    private static long alignToPage(long offset, int pageSize) {
+        return (offset + pageSize - 1) & -pageSize;
+    }
+
+    public long getValidStartOffset() {
+        return superblock.getSize();
+    }
+
+    /**
+     * End of the published region: every byte below it is mapped and either
+     * holds complete tuples or reads as empty. Scans stop here.
+     */
+    public long getValidEndOffset() {
+        return publishedOffset.get();
+    }
+
+    /**
+     * End of the reserved region, including ranges still being written.
+     */
+    public long getReservedEndOffset() {
+        return reservedOffset.get();
+    }
+
+    /**
+     * A vacated page waiting for reuse, with the log position it was freed at.
+     */
+    private record FreePage(int pageId, long freedLsn) {}
+
+    /**
+     * A writer-private run of pages. Tuples are bump-allocated inside it and
+     * never straddle a page; skipped page tails stay zero, which scans read as
+     * the end of the page. In the slotted format each page starts with its
+     * header and every tuple also needs room for a slot at the page end.
+     * Compact tuples start on an aligned offset, and a tuple whose xmin is
+     * too far from the page epoch for the relative xmin moves to a new page.
+     */
+    private static final class Reservation {
+        private final boolean slotted;
+        private final boolean compact;
+        private final int pageSize;
+        private long start;
+        private long position;
+        private long limit;
+        private int pageTuples;
+        private long pageEpoch;
+        // Checkpoint generation a reused page was handed out in, or -1 for the tail
+        private long reusedIn = -1;
+
+        Reservation(boolean slotted, boolean compact, int pageSize) {
+            this.slotted = slotted;
+            this.compact = compact;
+            this.pageSize = pageSize;
+        }
+
+        void reset(long start, long length) {
+            this.start = start;
+            position = start;
+            limit = start + length;
+            pageTuples = 0;
+            reusedIn = -1;
+        }
+
+        void reuse(long start, long length, long generation) {
+            reset(start, length);
+            reusedIn = generation;
+        }
+
+        void adopt(Reservation other) {
+            start = other.start;
+            position = other.position;
+            limit = other.limit;
+            pageTuples = other.pageTuples;
+            pageEpoch = other.pageEpoch;
+            reusedIn = other.reusedIn;
+        }
+
+        long allocate(int size, long xmin) {
+            long tupleStart = compact ? alignToTuple(position) : position;
+            int tuples = pageTuples;
+            if (slotted && (tupleStart & (pageSize - 1)) == 0) {
+                tupleStart += pageHeaderSize(compact);
+                tuples = 0;
+            }
+            long pageEnd = (tupleStart & -pageSize) + pageSize;
+            int slotBytes = slotted ? (tuples + 1) * PageLayout.SLOT_SIZE : 0;
+            if (tupleStart + size + slotBytes > pageEnd
+                    || (compact && tuples > 0 && (int) (xmin - pageEpoch) != xmin - pageEpoch)) {
+                tupleStart = slotted ? pageEnd + pageHeaderSize(compact) : pageEnd;
+                tuples = 0;
+            }
+            if (tupleStart + size > limit) { return -1; }
+            if (tuples == 0) { pageEpoch = xmin; }
+            position = tupleStart + size;
+            pageTuples = tuples + 1;
+            return tupleStart;
+        }
+
+        private static long alignToTuple(long offset) {
+            return (offset + PageLayout.TUPLE_ALIGNMENT - 1) & -PageLayout.TUPLE_ALIGNMENT;
+        }
+
+        long allocatePage() {
+            long pageStart = alignToPage(position, pageSize);
+            if (pageStart + pageSize > limit) { return -1; }
+            position = pageStart + pageSize;
+            pageTuples = 0;
+            return pageStart;
+        }
+
+        /**
+         * Hands back the tuple just allocated at {@code tupleStart}.
+         */
+        void release(long tupleStart) {
+            position = tupleStart;
+            pageTuples--;
+        }
     }
 }
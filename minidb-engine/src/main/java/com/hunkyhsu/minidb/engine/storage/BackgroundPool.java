@@ -0,0 +1,62 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of daemon threads that any number of {@link BackgroundWorker}s
+ * run on, so an engine with many tables keeps a bounded number of
+ * background threads instead of several per table.
+ * <p>
+ * Close it only after every worker on it has shut down; workers stop their
+ * own tasks, the pool only owns the threads.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 15:40
+ */
+public final class BackgroundPool implements AutoCloseable {
+    private final ScheduledThreadPoolExecutor executor;
+
+    public BackgroundPool(String threadName, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadName + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Cancelled schedules of closed workers would otherwise stay queued until their next run
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    ScheduledExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Stops the threads, waiting for the tasks in progress as
+     * {@link BackgroundWorker#shutdown()} does.
+     *
+     * @return whether every thread finished within
+     *         {@link BackgroundWorker#SHUTDOWN_TIMEOUT_MILLIS}
+     */
+    public boolean shutdown() {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(BackgroundWorker.SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
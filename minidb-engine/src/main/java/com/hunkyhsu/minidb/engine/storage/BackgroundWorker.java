@@ -0,0 +1,136 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the tasks of one background service: flushing, checkpointing,
+ * prefaulting, read-ahead, heat sampling or vacuum. A worker either owns a
+ * daemon thread or runs on the threads of a {@link BackgroundPool} shared
+ * with other workers; either way its own tasks never overlap, and shutting
+ * it down only stops them.
+ * <p>
+ * Shutting down waits for the task in progress instead of throwing
+ * {@link InterruptedException}; an interrupt that arrives meanwhile ends the
+ * wait and is restored on the calling thread, so services can be closed from
+ * try-with-resources and container shutdown alike.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:40
+ */
+public final class BackgroundWorker implements AutoCloseable {
+    public static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Set<Future<?>> futures = ConcurrentHashMap.newKeySet();
+    // Held while one of the tasks runs, so they stay serial on a shared pool
+    private final ReentrantLock runLock = new ReentrantLock();
+    private volatile boolean stopped;
+
+    public BackgroundWorker(String threadName) {
+        this(threadName, null);
+    }
+
+    /**
+     * @param pool threads shared with other workers; null for a thread of
+     *             its own named {@code threadName}
+     */
+    public BackgroundWorker(String threadName, BackgroundPool pool) {
+        this.ownsExecutor = pool == null;
+        this.executor = pool != null ? pool.executor() : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs {@code task} every {@code intervalMillis}, measured from the end
+     * of one run to the start of the next.
+     */
+    public void scheduleWithFixedDelay(Runnable task, long initialDelayMillis, long intervalMillis) {
+        checkRunning();
+        track(executor.scheduleWithFixedDelay(serial(task), initialDelayMillis, intervalMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Queues {@code task} once.
+     *
+     * @throws RejectedExecutionException after shutdown
+     */
+    public void execute(Runnable task) {
+        checkRunning();
+        track(executor.submit(serial(task)));
+    }
+
+    private void checkRunning() {
+        if (stopped) { throw new RejectedExecutionException("Background worker is shut down"); }
+    }
+
+    private void track(Future<?> future) {
+        futures.removeIf(Future::isDone);
+        futures.add(future);
+    }
+
+    private Runnable serial(Runnable task) {
+        return () -> {
+            runLock.lock();
+            try {
+                // A task queued just before shutdown may still be picked up
+                if (!stopped) { task.run(); }
+            } finally {
+                runLock.unlock();
+            }
+        };
+    }
+
+    /**
+     * Cancels the schedule and waits for the task in progress to finish.
+     *
+     * @return whether it finished within {@link #SHUTDOWN_TIMEOUT_MILLIS}
+     */
+    public boolean shutdown() {
+        return stop(false);
+    }
+
+    /**
+     * Like {@link #shutdown()}, but also drops queued tasks and interrupts the
+     * one in progress.
+     */
+    public boolean shutdownNow() {
+        return stop(true);
+    }
+
+    private boolean stop(boolean interrupt) {
+        stopped = true;
+        for (Future<?> future : futures) {
+            future.cancel(interrupt);
+        }
+        futures.clear();
+        if (ownsExecutor) {
+            if (interrupt) { executor.shutdownNow(); } else { executor.shutdown(); }
+        }
+        try {
+            if (ownsExecutor) { return executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS); }
+            if (!runLock.tryLock(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) { return false; }
+            runLock.unlock();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
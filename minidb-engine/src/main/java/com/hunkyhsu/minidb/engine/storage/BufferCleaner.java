@@ -0,0 +1,59 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Unmaps a {@link MappedByteBuffer} on demand, which JDK 17 only allows
+ * through {@code sun.misc.Unsafe.invokeCleaner}. The method is looked up
+ * reflectively so the build does not depend on the internal API; on a JVM
+ * that does not expose it {@link #isAvailable()} is false and mappings are
+ * left to the GC.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 15:20
+ */
+final class BufferCleaner {
+    private static final MethodHandle INVOKE_CLEANER = lookupInvokeCleaner();
+
+    private BufferCleaner() {}
+
+    static boolean isAvailable() {
+        return INVOKE_CLEANER != null;
+    }
+
+    /**
+     * Unmaps the buffer at once. No thread may touch it, or any view of it,
+     * afterwards: an access to an unmapped buffer crashes the JVM.
+     */
+    static void clean(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            throw new UnsupportedOperationException("This JVM can not unmap buffers on demand");
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Can not unmap buffer", t);
+        }
+    }
+
+    private static MethodHandle lookupInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
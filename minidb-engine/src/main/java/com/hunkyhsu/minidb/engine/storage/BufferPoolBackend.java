@@ -0,0 +1,382 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caches pages in a fixed number of off-heap frames filled with positional
+ * reads, so the memory a file uses is bounded by the pool rather than by
+ * the kernel's page cache policy for a mapping.
+ * <p>
+ * Hits are lock-free: a reader bumps the frame's pin count and then checks
+ * the frame still holds its page. Misses take one lock only to pick a victim
+ * with a clock sweep over unpinned frames; writing it back and reading the
+ * new page in happen outside it, so misses on different pages overlap their
+ * I/O. A frame being evicted carries a large negative pin count so that
+ * concurrent pins fail and retry instead of using it.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 16:55
+ */
+public class BufferPoolBackend implements StorageBackend {
+    private static final int EVICTING = Integer.MIN_VALUE / 2;
+    private static final int EVICTION_SWEEPS = 3;
+
+    private final Path path;
+    private final RandomAccessFile raf;
+    private final FileChannel fileChannel;
+    private final long growthSize;
+    private final int frameCount;
+    private final int pageSize;
+    private final int pageShift;
+    private final ByteBuffer[] frames;
+    private final AtomicIntegerArray pinCounts;
+    private final AtomicLongArray framePages;
+    private final AtomicIntegerArray referenced;
+    private final AtomicIntegerArray dirty;
+    private final ConcurrentHashMap<Long, Integer> pageTable;
+    private final Object evictionLock = new Object();
+    private final Object flushLock = new Object();
+    private volatile long capacity;
+    private int clockHand;
+    private int flushCursor;
+
+    /**
+     * @param frameCount number of page frames kept in memory
+     * @param growthSize the file grows by this many bytes at a time; a
+     *                   multiple of the page size
+     */
+    public BufferPoolBackend(Path path, int frameCount, int growthSize) throws IOException {
+        this(path, frameCount, growthSize, PageLayout.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param pageSize size of the file's pages and of every frame
+     */
+    public BufferPoolBackend(Path path, int frameCount, int growthSize, int pageSize) throws IOException {
+        PageLayout.checkPageSize(pageSize);
+        if (frameCount <= 0 || (long) frameCount * pageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid frame count: " + frameCount);
+        }
+        if (growthSize <= 0 || growthSize % pageSize != 0) {
+            throw new IllegalArgumentException("Growth size must be a positive multiple of "
+                    + pageSize + ": " + growthSize);
+        }
+        this.pageSize = pageSize;
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.path = path;
+        this.growthSize = growthSize;
+        this.frameCount = frameCount;
+        try {
+            raf = SegmentedFileBackend.openFile(path);
+            fileChannel = raf.getChannel();
+            capacity = roundUp(Math.max(raf.length(), 1));
+            if (raf.length() < capacity) { raf.setLength(capacity); }
+        } catch (IOException e) {
+            throw new IOException("Can not open file: " + path, e);
+        }
+        ByteBuffer arena = ByteBuffer.allocateDirect(frameCount * pageSize);
+        this.frames = new ByteBuffer[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            frames[i] = arena.slice(i * pageSize, pageSize);
+        }
+        this.pinCounts = new AtomicIntegerArray(frameCount);
+        this.framePages = new AtomicLongArray(frameCount);
+        for (int i = 0; i < frameCount; i++) {
+            framePages.set(i, -1);
+        }
+        this.referenced = new AtomicIntegerArray(frameCount);
+        this.dirty = new AtomicIntegerArray(frameCount);
+        this.pageTable = new ConcurrentHashMap<>(frameCount * 2);
+    }
+
+    private long roundUp(long length) {
+        return (length + growthSize - 1) / growthSize * growthSize;
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void ensureCapacity(long endOffset) {
+        if (endOffset <= capacity) { return; }
+        synchronized (this) {
+            if (endOffset <= capacity) { return; }
+            long grown = roundUp(endOffset);
+            try {
+                raf.setLength(grown);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can not grow file: " + path, e);
+            }
+            capacity = grown;
+        }
+    }
+
+    @Override
+    public long getLong(long offset) {
+        int frame = pin(offset >>> pageShift);
+        try {
+            return frames[frame].getLong((int) (offset & (pageSize - 1)));
+        } finally {
+            pinCounts.decrementAndGet(frame);
+        }
+    }
+
+    @Override
+    public int getInt(long offset) {
+        int frame = pin(offset >>> pageShift);
+        try {
+            return frames[frame].getInt((int) (offset & (pageSize - 1)));
+        } finally {
+            pinCounts.decrementAndGet(frame);
+        }
+    }
+
+    @Override
+    public void get(long offset, byte[] dst, int dstOffset, int length) {
+        int frame = pin(offset >>> pageShift);
+        try {
+            frames[frame].get((int) (offset & (pageSize - 1)), dst, dstOffset, length);
+        } finally {
+            pinCounts.decrementAndGet(frame);
+        }
+    }
+
+    @Override
+    public void read(long offset, BufferAction action) {
+        int frame = pin(offset >>> pageShift);
+        try {
+            action.apply(frames[frame], (int) (offset & (pageSize - 1)));
+        } finally {
+            pinCounts.decrementAndGet(frame);
+        }
+    }
+
+    @Override
+    public void write(long offset, BufferAction action) {
+        int frame = pin(offset >>> pageShift);
+        try {
+            action.apply(frames[frame], (int) (offset & (pageSize - 1)));
+            // Marked while still pinned, so an evictor always sees it
+            dirty.set(frame, 1);
+        } finally {
+            pinCounts.decrementAndGet(frame);
+        }
+    }
+
+    private int pin(long page) {
+        while (true) {
+            Integer frame = pageTable.get(page);
+            if (frame != null) {
+                if (tryPin(frame, page)) {
+                    referenced.set(frame, 1);
+                    return frame;
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            int victim;
+            synchronized (evictionLock) {
+                if (pageTable.containsKey(page)) { continue; }
+                victim = claimVictim();
+                // Entered while the frame is still EVICTING, so other misses on the page wait for this one
+                pageTable.put(page, victim);
+            }
+            return fill(victim, page);
+        }
+    }
+
+    /**
+     * Writes back what a claimed frame holds and reads {@code page} into it,
+     * returning it pinned once. The old page stays in the page table until
+     * it is on disk, so a miss on it waits instead of reading a stale copy.
+     * If the write-back fails the old page stays cached and usable.
+     */
+    private int fill(int victim, long page) {
+        long oldPage = framePages.get(victim);
+        try {
+            if (oldPage >= 0) {
+                try {
+                    writeBack(victim, oldPage);
+                } catch (IOException e) {
+                    throw new IOException("Can not write back page " + oldPage + " of " + path, e);
+                }
+                pageTable.remove(oldPage, victim);
+                framePages.set(victim, -1);
+            }
+            load(victim, page);
+        } catch (IOException e) {
+            pageTable.remove(page, victim);
+            pinCounts.addAndGet(victim, -EVICTING);
+            throw new UncheckedIOException("Can not load page " + page + " of " + path, e);
+        }
+        framePages.set(victim, page);
+        referenced.set(victim, 1);
+        // Relative update: pins that raced in while the frame was claimed undo themselves
+        pinCounts.addAndGet(victim, 1 - EVICTING);
+        return victim;
+    }
+
+    private boolean tryPin(int frame, long page) {
+        if (pinCounts.incrementAndGet(frame) > 0 && framePages.get(frame) == page) {
+            return true;
+        }
+        pinCounts.decrementAndGet(frame);
+        return false;
+    }
+
+    /**
+     * Claims an unpinned, unreferenced frame, clearing reference bits as the
+     * hand passes. Returns with the frame's pin count set to
+     * {@code EVICTING}; what it holds is still cached.
+     */
+    private int claimVictim() {
+        for (int step = 0; step < EVICTION_SWEEPS * frameCount; step++) {
+            int frame = clockHand;
+            clockHand = (clockHand + 1) % frameCount;
+            if (pinCounts.get(frame) != 0) { continue; }
+            if (referenced.getAndSet(frame, 0) == 1) { continue; }
+            if (pinCounts.compareAndSet(frame, 0, EVICTING)) { return frame; }
+        }
+        throw new IllegalStateException("Buffer pool exhausted: all " + frameCount + " frames are pinned");
+    }
+
+    private void load(int frame, long page) throws IOException {
+        ByteBuffer target = frames[frame].duplicate().clear();
+        long position = page << pageShift;
+        while (target.hasRemaining()) {
+            int read = fileChannel.read(target, position + target.position());
+            if (read < 0) { break; }
+        }
+        while (target.hasRemaining()) {
+            target.put((byte) 0);
+        }
+    }
+
+    /**
+     * The dirty flag is cleared before the copy is taken, so a write landing
+     * during the copy marks the frame again.
+     */
+    private void writeBack(int frame, long page) throws IOException {
+        if (dirty.getAndSet(frame, 0) == 0) { return; }
+        ByteBuffer source = frames[frame].duplicate().clear();
+        long position = page << pageShift;
+        try {
+            while (source.hasRemaining()) {
+                fileChannel.write(source, position + source.position());
+            }
+        } catch (IOException e) {
+            dirty.set(frame, 1);
+            throw e;
+        }
+    }
+
+    @Override
+    public void force(long offset, long length) {
+        long end = Math.min(offset + length, getCapacity());
+        try {
+            for (long page = offset >>> pageShift; page << pageShift < end; page++) {
+                Integer frame = pageTable.get(page);
+                if (frame != null && tryPin(frame, page)) {
+                    try {
+                        writeBack(frame, page);
+                    } finally {
+                        pinCounts.decrementAndGet(frame);
+                    }
+                }
+            }
+            fileChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not force " + path, e);
+        }
+    }
+
+    /**
+     * Writes back dirty frames in frame order, resuming after the last frame
+     * the previous call visited, then forces the file once.
+     */
+    @Override
+    public long flushDirty(long maxBytes) {
+        synchronized (flushLock) {
+            long flushed = 0;
+            int visited = 0;
+            try {
+                while (visited < frameCount && flushed < maxBytes) {
+                    int frame = (flushCursor + visited++) % frameCount;
+                    long page = framePages.get(frame);
+                    if (dirty.get(frame) == 0 || page < 0 || !tryPin(frame, page)) { continue; }
+                    try {
+                        writeBack(frame, page);
+                        flushed += pageSize;
+                    } finally {
+                        pinCounts.decrementAndGet(frame);
+                    }
+                }
+                if (flushed > 0) { fileChannel.force(false); }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can not flush " + path, e);
+            }
+            flushCursor = (flushCursor + visited) % frameCount;
+            return flushed;
+        }
+    }
+
+    @Override
+    public long countDirtyPages() {
+        long count = 0;
+        for (int i = 0; i < frameCount; i++) {
+            count += dirty.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the range into frames. At most half the pool is used so a
+     * read-ahead window never evicts everything a scan is working on.
+     */
+    @Override
+    public void prefetch(long offset, long length) {
+        long end = Math.min(offset + length, getCapacity());
+        long lastPage = Math.min((end - 1) >>> pageShift, (offset >>> pageShift) + frameCount / 2 - 1);
+        for (long page = offset >>> pageShift; page <= lastPage; page++) {
+            pinCounts.decrementAndGet(pin(page));
+        }
+    }
+
+    @Override
+    public boolean isResident(long offset, long length) {
+        long end = Math.min(offset + length, capacity);
+        for (long page = offset >>> pageShift; page << pageShift < end; page++) {
+            if (!pageTable.containsKey(page)) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Frames are allocated up front, so there is nothing to fault in.
+     */
+    @Override
+    public void prefault(long offset, long length) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushDirty(Long.MAX_VALUE);
+        raf.close();
+    }
+}
@@ -0,0 +1,152 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A data file mapped one segment at a time through a
+ * {@link MappedSegmentCache}, so only the segments in use count against the
+ * address space and cold ones are unmapped under pressure. The file is
+ * addressed and grown exactly like a {@link MappedSegmentBackend}'s, and the
+ * two read each other's files.
+ * <p>
+ * Every access pins its segment for the length of one call, which costs a
+ * hash lookup and two atomic updates over the plain mapped backend; page
+ * actions must not keep the buffer they are lent.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:25
+ */
+public class CachedSegmentBackend extends SegmentedFileBackend {
+    private final MappedSegmentCache cache;
+    private final int fileId;
+    private volatile long capacity;
+
+    public CachedSegmentBackend(Path path, MappedSegmentCache cache) throws IOException {
+        this(path, cache, PageLayout.DEFAULT_PAGE_SIZE);
+    }
+
+    public CachedSegmentBackend(Path path, MappedSegmentCache cache, int pageSize) throws IOException {
+        super(path, cache.getSegmentSize(), pageSize);
+        this.cache = cache;
+        try {
+            grow(initialSegmentCount());
+        } catch (IOException e) {
+            throw new IOException("Can not open file: " + path, e);
+        }
+        this.fileId = cache.register(this);
+    }
+
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Only lengthens the file; segments are mapped when first touched.
+     */
+    @Override
+    protected void grow(int segmentCount) throws IOException {
+        growFile(segmentCount);
+        capacity = (long) segmentCount * getSegmentSize();
+    }
+
+    SegmentMapping map(int segment) throws IOException {
+        return SegmentMapping.map(fileChannel, (long) segment * getSegmentSize(), getSegmentSize());
+    }
+
+    /**
+     * Forces the dirty pages of {@code segment} through {@code buffer}, its
+     * mapping, before the cache unmaps it. No writer can hold the segment.
+     */
+    void writeBack(int segment, MappedByteBuffer buffer) {
+        forceDirtyPages(segment, buffer);
+    }
+
+    @Override
+    protected boolean withSegment(int segment, int index, int length, SegmentAction action) {
+        int slot = cache.pin(fileId, segment);
+        try {
+            return action.apply(cache.buffer(slot), index, length);
+        } finally {
+            cache.unpin(slot);
+        }
+    }
+
+    @Override
+    public long getLong(long offset) {
+        int slot = cache.pin(fileId, segmentIndex(offset));
+        try {
+            return cache.buffer(slot).getLong(segmentOffset(offset));
+        } finally {
+            cache.unpin(slot);
+        }
+    }
+
+    @Override
+    public int getInt(long offset) {
+        int slot = cache.pin(fileId, segmentIndex(offset));
+        try {
+            return cache.buffer(slot).getInt(segmentOffset(offset));
+        } finally {
+            cache.unpin(slot);
+        }
+    }
+
+    @Override
+    public void get(long offset, byte[] dst, int dstOffset, int length) {
+        int slot = cache.pin(fileId, segmentIndex(offset));
+        try {
+            cache.buffer(slot).get(segmentOffset(offset), dst, dstOffset, length);
+        } finally {
+            cache.unpin(slot);
+        }
+    }
+
+    @Override
+    public void read(long offset, BufferAction action) {
+        int slot = cache.pin(fileId, segmentIndex(offset));
+        try {
+            action.apply(cache.buffer(slot), segmentOffset(offset));
+        } finally {
+            cache.unpin(slot);
+        }
+    }
+
+    /**
+     * Marks the page dirty before unpinning, so an eviction that follows
+     * always sees the bit and forces the write.
+     */
+    @Override
+    public void write(long offset, BufferAction action) {
+        int slot = cache.pin(fileId, segmentIndex(offset));
+        try {
+            action.apply(cache.buffer(slot), segmentOffset(offset));
+            markDirty(offset);
+        } finally {
+            cache.unpin(slot);
+        }
+    }
+
+    /**
+     * Unmapped segments count as cold: probing them would map them and push
+     * the working set out.
+     */
+    @Override
+    public boolean isResident(long offset, long length) {
+        long end = Math.min(offset + length, capacity);
+        for (long cursor = offset; cursor < end; cursor += getSegmentSize() - segmentOffset(cursor)) {
+            if (!cache.isMapped(fileId, segmentIndex(cursor))) { return false; }
+        }
+        return super.isResident(offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushDirty(Long.MAX_VALUE);
+        cache.release(fileId);
+        raf.close();
+    }
+}
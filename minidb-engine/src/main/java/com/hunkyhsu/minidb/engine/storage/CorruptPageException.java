@@ -0,0 +1,24 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+/**
+ * Thrown when a page's contents no longer match the checksum stored when it
+ * was sealed, whether from a torn write or from bit rot.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 21:10
+ */
+public class CorruptPageException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final int pageId;
+
+    public CorruptPageException(int pageId) {
+        super("Page " + pageId + " does not match its checksum");
+        this.pageId = pageId;
+    }
+
+    public int getPageId() {
+        return pageId;
+    }
+}
@@ -0,0 +1,59 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+/**
+ * Writes back the dirty pages of an {@link MMapFileChannel} a little at a
+ * time, so the OS never accumulates a large burst and shutdown only has to
+ * force what was written since the last tick.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 15:40
+ */
+public class DirtyPageFlusher implements AutoCloseable {
+    private final MMapFileChannel channel;
+    private final long intervalMillis;
+    private final long bytesPerTick;
+    private final BackgroundWorker worker;
+
+    /**
+     * @param maxBytesPerSecond write-back budget; each tick forces at most
+     *                          its share of it (but always at least one page)
+     */
+    public DirtyPageFlusher(MMapFileChannel channel, long intervalMillis, long maxBytesPerSecond) {
+        this(channel, intervalMillis, maxBytesPerSecond, null);
+    }
+
+    /**
+     * @param pool threads to run on, shared with other services; null for a
+     *             thread of its own
+     */
+    public DirtyPageFlusher(MMapFileChannel channel, long intervalMillis, long maxBytesPerSecond, BackgroundPool pool) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive: " + intervalMillis);
+        }
+        if (maxBytesPerSecond <= 0) {
+            throw new IllegalArgumentException("Flush rate must be positive: " + maxBytesPerSecond);
+        }
+        this.channel = channel;
+        this.intervalMillis = intervalMillis;
+        this.bytesPerTick = Math.max(channel.getPageSize(), maxBytesPerSecond / 1000 * intervalMillis);
+        this.worker = new BackgroundWorker("minidb-dirty-page-flusher", pool);
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis);
+    }
+
+    public long flush() {
+        try {
+            return channel.flushDirty(bytesPerTick);
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Dirty page flush failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public void close() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,201 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Remembers which ranges of an {@link MMapFileChannel} stay in memory and
+ * loads them again after a restart, hottest first, so reads do not spend
+ * the first minutes faulting the working set back in.
+ * <p>
+ * Heat is sampled rather than counted, so reads pay nothing for it: every
+ * interval each range asks the backend whether it is resident, and its heat
+ * byte shifts right with the answer in the top bit. A byte therefore holds
+ * the last eight samples, and ranges resident most recently and most often
+ * sort highest. The bytes are saved to a small file beside the data file
+ * after each sample, and once more on close.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 23:50
+ */
+public class HotPageTracker implements AutoCloseable {
+    public static final int DEFAULT_RANGE_PAGES = 32;
+    private static final int MAGIC = 0x4D444248;
+    // Magic, range size and range count
+    private static final int FILE_HEADER_SIZE = 3 * Integer.BYTES;
+
+    private final MMapFileChannel channel;
+    private final Path heatFile;
+    private final int rangeSize;
+    private final long intervalMillis;
+    private final BackgroundWorker worker;
+    private volatile boolean closed;
+    private byte[] heat;
+
+    public HotPageTracker(MMapFileChannel channel, Path heatFile, long intervalMillis) throws IOException {
+        this(channel, heatFile, intervalMillis, DEFAULT_RANGE_PAGES);
+    }
+
+    /**
+     * Loads the heat saved by a previous run, if {@code heatFile} exists and
+     * was written with the same range size.
+     *
+     * @param rangePages pages sampled and loaded as one range
+     */
+    public HotPageTracker(MMapFileChannel channel, Path heatFile, long intervalMillis, int rangePages)
+            throws IOException {
+        this(channel, heatFile, intervalMillis, rangePages, null);
+    }
+
+    /**
+     * @param pool threads to run on, shared with other services; null for a
+     *             thread of its own
+     */
+    public HotPageTracker(MMapFileChannel channel, Path heatFile, long intervalMillis, int rangePages,
+                          BackgroundPool pool) throws IOException {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Heat sample interval must be positive: " + intervalMillis);
+        }
+        if (rangePages <= 0) {
+            throw new IllegalArgumentException("Heat range must be positive: " + rangePages);
+        }
+        this.channel = channel;
+        this.heatFile = heatFile;
+        this.rangeSize = rangePages * channel.getPageSize();
+        this.intervalMillis = intervalMillis;
+        this.heat = load(heatFile, rangeSize);
+        this.worker = new BackgroundWorker("minidb-hot-page-tracker", pool);
+    }
+
+    /**
+     * The heat file conventionally kept beside {@code dataFile}.
+     */
+    public static Path heatFile(Path dataFile) {
+        String name = dataFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dataFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".heat");
+    }
+
+    /**
+     * Prewarms in the background, then starts sampling. Traffic can be
+     * served meanwhile; it only finds fewer pages already loaded.
+     */
+    public void start() {
+        worker.execute(this::prewarm);
+        worker.scheduleWithFixedDelay(this::sampleAndSave, intervalMillis, intervalMillis);
+    }
+
+    /**
+     * Loads every range that was resident in any of the last eight samples,
+     * hottest first, stopping early if the tracker is closed.
+     *
+     * @return the number of bytes loaded
+     */
+    public long prewarm() {
+        long loaded = 0;
+        for (long offset : prewarmOrder()) {
+            if (closed) { break; }
+            try {
+                channel.prefetch(offset, rangeSize);
+                loaded += rangeSize;
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Prewarm failed: " + e.getMessage());
+                break;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Offsets of the ranges with any heat, hottest first and in file order
+     * among equals.
+     */
+    long[] prewarmOrder() {
+        long capacity = channel.getCapacity();
+        List<Integer> ranges = new ArrayList<>();
+        for (int i = 0; i < heat.length && (long) i * rangeSize < capacity; i++) {
+            if (heat[i] != 0) { ranges.add(i); }
+        }
+        ranges.sort(Comparator.comparingInt((Integer i) -> Byte.toUnsignedInt(heat[i])).reversed());
+        return ranges.stream().mapToLong(i -> (long) i * rangeSize).toArray();
+    }
+
+    /**
+     * Shifts one residency sample into the heat of every range.
+     */
+    public void sample() {
+        long capacity = channel.getCapacity();
+        int rangeCount = (int) ((capacity + rangeSize - 1) / rangeSize);
+        if (heat.length < rangeCount) { heat = Arrays.copyOf(heat, rangeCount); }
+        for (int i = 0; i < rangeCount; i++) {
+            boolean resident = channel.isResident((long) i * rangeSize, rangeSize);
+            heat[i] = (byte) ((Byte.toUnsignedInt(heat[i]) >>> 1) | (resident ? 0x80 : 0));
+        }
+    }
+
+    /**
+     * Replaces the heat file in one rename, so a crash leaves either the old
+     * heat or the new.
+     */
+    public void save() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_HEADER_SIZE + heat.length);
+        buffer.putInt(MAGIC).putInt(rangeSize).putInt(heat.length).put(heat);
+        Path temp = heatFile.resolveSibling(heatFile.getFileName() + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, heatFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void sampleAndSave() {
+        try {
+            sample();
+            save();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Heat sample failed: " + e.getMessage());
+        }
+    }
+
+    int heat(long offset) {
+        int range = (int) (offset / rangeSize);
+        return range < heat.length ? Byte.toUnsignedInt(heat[range]) : 0;
+    }
+
+    private static byte[] load(Path heatFile, int rangeSize) throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(heatFile));
+        } catch (NoSuchFileException e) {
+            return new byte[0];
+        }
+        if (buffer.remaining() < FILE_HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != rangeSize) {
+            // Unreadable or sampled at another granularity: start cold rather than prewarm the wrong ranges
+            return new byte[0];
+        }
+        int rangeCount = buffer.getInt();
+        if (rangeCount < 0 || rangeCount != buffer.remaining()) { return new byte[0]; }
+        byte[] heat = new byte[rangeCount];
+        buffer.get(heat);
+        return heat;
+    }
+
+    /**
+     * Takes a last sample once the worker has stopped, so it never races a
+     * scheduled one over the heat array or the temporary file.
+     */
+    public void close() {
+        closed = true;
+        if (worker.shutdown()) {
+            sampleAndSave();
+        } else {
+            System.err.println("Warning: Heat tracker did not stop in time; keeping the last saved heat");
+        }
+    }
+}
@@ -1,87 +1,301 @@
 package com.hunkyhsu.minidb.engine.storage;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.lang.reflect.Method;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
 import java.nio.file.Paths;
 
 /**
+ * Tuple-level read/write API over a {@link StorageBackend}. The default
+ * backend maps the file as growable segments; a {@link BufferPoolBackend}
+ * can be plugged in instead to bound the memory a table may use.
+ *
  * @author hunkyhsu
  * @version 1.0
  * @date 2026/4/3 20:43
  */
 public class MMapFileChannel implements AutoCloseable {
-    private final MappedByteBuffer mappedBuffer;
-
-    public MMapFileChannel(String filePath, int maxFileSize) throws IOException {
-        Path path = Paths.get(filePath);
-        // Ensure the ParentPath exists
-        Path parentPath = path.getParent();
-        if (parentPath != null) {
-            File parentFile = parentPath.toFile();
-            if (!Files.exists(parentPath) && !parentFile.mkdirs()) {
-                throw new IOException("Can not create directory: " + parentPath);
-            }
-        }
-        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
-            if (raf.length() < maxFileSize) {raf.setLength(maxFileSize);}
-            FileChannel fileChannel = raf.getChannel();
-            mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, maxFileSize);
-        } catch (IOException e) {
-            throw new IOException("Can not open file: " + path);
-        }
+    private final StorageBackend backend;
+    private final int pageSize;
+    private final int pageShift;
+    private boolean compactTuples;
+
+    public MMapFileChannel(String filePath, int segmentSize) throws IOException {
+        this(MappedBackends.open(Paths.get(filePath), segmentSize));
+    }
+
+    public MMapFileChannel(String filePath, int segmentSize, int pageSize) throws IOException {
+        this(MappedBackends.open(Paths.get(filePath), segmentSize, pageSize));
+    }
+
+    public MMapFileChannel(StorageBackend backend) {
+        this.backend = backend;
+        this.pageSize = backend.getPageSize();
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+    }
+
+    /**
+     * Size of this file's pages, fixed by its backend.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Absolute file offset of the first byte of {@code pageId}.
+     */
+    public long pageStart(int pageId) {
+        return (long) pageId << pageShift;
+    }
+
+    public int pageId(long absOffset) {
+        return (int) (absOffset >>> pageShift);
+    }
+
+    public long getCapacity() {
+        return backend.getCapacity();
+    }
+
+    /**
+     * Grows the backing file until {@code endOffset} bytes are addressable.
+     */
+    public void ensureCapacity(long endOffset) {
+        backend.ensureCapacity(endOffset);
+    }
+
+    long absoluteOffset(long pointer) {
+        return pageStart(TuplePointer.getPageId(pointer)) + TuplePointer.getOffset(pointer);
+    }
+
+    long toPointer(long absOffset) {
+        return TuplePointer.pack(pageId(absOffset), (int) (absOffset & (pageSize - 1)));
+    }
+
+    /**
+     * Lends the page holding {@code absOffset} to {@code action} for reading.
+     */
+    void read(long absOffset, StorageBackend.BufferAction action) {
+        backend.read(absOffset, action);
+    }
+
+    /**
+     * Lends the page holding {@code absOffset} to {@code action} and marks it dirty.
+     */
+    void write(long absOffset, StorageBackend.BufferAction action) {
+        backend.write(absOffset, action);
+    }
+
+    long getLong(long absOffset) {
+        return backend.getLong(absOffset);
+    }
+
+    int getInt(long absOffset) {
+        return backend.getInt(absOffset);
+    }
+
+    void get(long absOffset, byte[] dst, int dstOffset, int length) {
+        backend.get(absOffset, dst, dstOffset, length);
+    }
+
+    void putLong(long absOffset, long value) {
+        backend.write(absOffset, (buffer, index) -> buffer.putLong(index, value));
+    }
+
+    void putInt(long absOffset, int value) {
+        backend.write(absOffset, (buffer, index) -> buffer.putInt(index, value));
+    }
+
+    /**
+     * Forces {@code [offset, offset + length)} to disk.
+     */
+    public void force(long offset, long length) {
+        backend.force(offset, length);
+    }
+
+    /**
+     * Writes back dirty pages until roughly {@code maxBytes} have been
+     * flushed, resuming where the previous call stopped.
+     *
+     * @return the number of bytes flushed
+     */
+    public long flushDirty(long maxBytes) {
+        return backend.flushDirty(maxBytes);
+    }
+
+    long countDirtyPages() {
+        return backend.countDirtyPages();
+    }
+
+    /**
+     * Pulls {@code [offset, offset + length)} into memory ahead of a reader.
+     */
+    public void prefetch(long offset, long length) {
+        backend.prefetch(offset, length);
+    }
+
+    /**
+     * Whether {@code [offset, offset + length)} is likely in memory; see
+     * {@link StorageBackend#isResident(long, long)}.
+     */
+    public boolean isResident(long offset, long length) {
+        return backend.isResident(offset, length);
+    }
+
+    /**
+     * Faults {@code [offset, offset + length)} in for writing ahead of the
+     * writers that will fill it.
+     */
+    public void prefault(long offset, long length) {
+        backend.prefault(offset, length);
+    }
+
+    /**
+     * Switches the tuple accessors to the compact header of format version
+     * 4. Set by the store that opens the file, before the channel is shared.
+     */
+    void setCompactTuples(boolean compactTuples) {
+        this.compactTuples = compactTuples;
+    }
+
+    boolean hasCompactTuples() {
+        return compactTuples;
+    }
+
+    /**
+     * Bytes between a tuple pointer and its payload.
+     */
+    public int tupleHeaderSize() {
+        return compactTuples ? PageLayout.COMPACT_HEADER_SIZE : PageLayout.HEADER_SIZE;
+    }
+
+    /**
+     * Absolute file offset of the payload of the tuple at {@code pointer}.
+     */
+    public long payloadOffset(long pointer) {
+        return absoluteOffset(pointer) + tupleHeaderSize();
     }
 
     public long readXmin(long pointer) {
-        int pageId = TuplePointer.getPageId(pointer);
-        int offset = TuplePointer.getOffset(pointer);
-        int absOffset = pageId * PageLayout.PAGE_SIZE + offset + PageLayout.XMIN_OFFSET;
-        return mappedBuffer.getLong(absOffset);
+        long absOffset = absoluteOffset(pointer);
+        if (compactTuples) {
+            int relativeXmin = backend.getInt(absOffset + PageLayout.COMPACT_XMIN_OFFSET);
+            VarHandle.acquireFence();
+            return backend.getLong((absOffset & -pageSize) + PageLayout.PAGE_EPOCH_OFFSET) + relativeXmin;
+        }
+        long xmin = backend.getLong(absOffset + PageLayout.XMIN_OFFSET);
+        VarHandle.acquireFence();
+        return xmin;
     }
 
     public int readPayloadLength(long pointer) {
-        int pageId = TuplePointer.getPageId(pointer);
-        int offset = TuplePointer.getOffset(pointer);
-        int absOffset = pageId * PageLayout.PAGE_SIZE + offset + PageLayout.LEN_OFFSET;
-        return mappedBuffer.getInt(absOffset);
+        if (compactTuples) {
+            // Flags and length share one int; the length is its low half
+            return backend.getInt(absoluteOffset(pointer) + PageLayout.COMPACT_FLAGS_OFFSET) & 0xFFFF;
+        }
+        return backend.getInt(absoluteOffset(pointer) + PageLayout.LEN_OFFSET);
+    }
+
+    /**
+     * Hint bits of a compact tuple; always 0 for the other formats, which
+     * have none.
+     */
+    public int readTupleFlags(long pointer) {
+        if (!compactTuples) { return 0; }
+        return backend.getInt(absoluteOffset(pointer) + PageLayout.COMPACT_FLAGS_OFFSET) >>> 16;
+    }
+
+    /**
+     * Sets hint bits of a compact tuple. They lie outside the page checksum
+     * and are not logged, so they may be lost, but never wrong.
+     */
+    void addTupleFlags(long pointer, int flags) {
+        long absOffset = absoluteOffset(pointer);
+        backend.write(absOffset, (buffer, index) -> buffer.putShort(index + PageLayout.COMPACT_FLAGS_OFFSET,
+                (short) (buffer.getShort(index + PageLayout.COMPACT_FLAGS_OFFSET) | flags)));
     }
 
     public byte[] readPayload(long pointer) {
         int lenPayload = readPayloadLength(pointer);
-        int pageId = TuplePointer.getPageId(pointer);
-        int offset = TuplePointer.getOffset(pointer);
-        int absOffset = pageId * PageLayout.PAGE_SIZE + offset + PageLayout.HEADER_SIZE;
         byte[] payload = new byte[lenPayload];
-        mappedBuffer.get(absOffset, payload, 0, lenPayload);
+        backend.get(payloadOffset(pointer), payload, 0, lenPayload);
         return payload;
     }
 
     public void writeTuple(long pointer, long xmin, byte[] payload) {
-        int pageId = TuplePointer.getPageId(pointer);
-        int offset = TuplePointer.getOffset(pointer);
-        int baseOffset = pageId * PageLayout.PAGE_SIZE + offset;
-        mappedBuffer.putLong(baseOffset + PageLayout.XMIN_OFFSET, xmin);
-        mappedBuffer.putInt(baseOffset + PageLayout.LEN_OFFSET, payload.length);
-        mappedBuffer.put(baseOffset + PageLayout.HEADER_SIZE, payload);
+        writeTupleAt(absoluteOffset(pointer), xmin, payload, 0, payload.length);
     }
 
-    public void close() throws IOException {
-        mappedBuffer.force();
-        try {
-            Method getCleanerMethod = mappedBuffer.getClass().getMethod("cleaner");
-            getCleanerMethod.setAccessible(true);
-            Object cleaner = getCleanerMethod.invoke(mappedBuffer);
-            if (cleaner != null) {
-                Method cleanMethod = cleaner.getClass().getMethod("clean");
-                cleanMethod.invoke(cleaner);
-            }
-        } catch (Exception e) {
-            System.err.println("Warning: Failed to manually unmap buffer: " + e.getMessage());
+    public void writeTuple(long pointer, long xmin, ByteBuffer payload) {
+        writeTupleAt(absoluteOffset(pointer), xmin, payload, payload.position(), payload.remaining());
+    }
+
+    void writeTupleAt(long absOffset, long xmin, byte[] src, int srcOffset, int length) {
+        backend.write(absOffset, (buffer, baseOffset) -> {
+            buffer.put(putLength(buffer, baseOffset, length), src, srcOffset, length);
+            publishXmin(buffer, baseOffset, absOffset, xmin);
+        });
+    }
+
+    void writeTupleAt(long absOffset, long xmin, ByteBuffer src, int srcIndex, int length) {
+        backend.write(absOffset, (buffer, baseOffset) -> {
+            buffer.put(putLength(buffer, baseOffset, length), src, srcIndex, length);
+            publishXmin(buffer, baseOffset, absOffset, xmin);
+        });
+    }
+
+    void writeTupleAt(long absOffset, long xmin, int length, TupleEncoder encoder) {
+        backend.write(absOffset, (buffer, baseOffset) -> {
+            encoder.encode(buffer, putLength(buffer, baseOffset, length));
+            publishXmin(buffer, baseOffset, absOffset, xmin);
+        });
+    }
+
+    /**
+     * @return the buffer index the payload starts at
+     */
+    private int putLength(ByteBuffer buffer, int baseOffset, int length) {
+        if (!compactTuples) {
+            buffer.putInt(baseOffset + PageLayout.LEN_OFFSET, length);
+            return baseOffset + PageLayout.HEADER_SIZE;
         }
+        if (length > PageLayout.MAX_COMPACT_LENGTH) {
+            throw new IllegalArgumentException("Payload too long for a compact tuple: " + length);
+        }
+        // A new tuple starts with no flags
+        buffer.putInt(baseOffset + PageLayout.COMPACT_FLAGS_OFFSET, length);
+        return baseOffset + PageLayout.COMPACT_HEADER_SIZE;
+    }
+
+    /**
+     * The xmin is written last, behind a release fence: a reader that sees a
+     * non-zero xmin (and issues the matching acquire fence in
+     * {@link #readXmin(long)}) is guaranteed to see the length and payload.
+     * A compact tuple stores its xmin relative to the page epoch, which the
+     * first tuple of the page sets to its own xmin.
+     */
+    private void publishXmin(ByteBuffer buffer, int baseOffset, long absOffset, long xmin) {
+        if (!compactTuples) {
+            VarHandle.releaseFence();
+            buffer.putLong(baseOffset + PageLayout.XMIN_OFFSET, xmin);
+            return;
+        }
+        int pageBase = baseOffset - (int) (absOffset & (pageSize - 1));
+        long epoch;
+        if (buffer.getInt(pageBase + PageLayout.PAGE_TUPLE_COUNT_OFFSET) == 0) {
+            epoch = xmin;
+            buffer.putLong(pageBase + PageLayout.PAGE_EPOCH_OFFSET, epoch);
+        } else {
+            epoch = buffer.getLong(pageBase + PageLayout.PAGE_EPOCH_OFFSET);
+        }
+        long relativeXmin = xmin - epoch;
+        if (relativeXmin != (int) relativeXmin) {
+            throw new IllegalArgumentException("Xmin " + xmin + " is too far from page epoch " + epoch);
+        }
+        VarHandle.releaseFence();
+        buffer.putInt(baseOffset + PageLayout.COMPACT_XMIN_OFFSET, (int) relativeXmin);
+    }
+
+    public void close() throws IOException {
+        backend.close();
     }
 }
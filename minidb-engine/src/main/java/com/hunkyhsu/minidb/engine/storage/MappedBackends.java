@@ -0,0 +1,30 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Opens the memory-mapped backend best suited to the running JDK. This is
+ * the JDK 17 version; the multi-release jar carries a JDK 22 version under
+ * {@code META-INF/versions/22} that returns a {@code MemorySegment}-based
+ * backend instead.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 21:40
+ */
+public final class MappedBackends {
+    private MappedBackends() {}
+
+    public static MappedSegmentBackend open(Path path, int segmentSize) throws IOException {
+        return open(path, segmentSize, PageLayout.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * An existing file keeps the page size in its superblock;
+     * {@code pageSize} only applies to a new one.
+     */
+    public static MappedSegmentBackend open(Path path, int segmentSize, int pageSize) throws IOException {
+        return new MappedSegmentBackend(path, segmentSize, Superblock.probePageSize(path, pageSize));
+    }
+}
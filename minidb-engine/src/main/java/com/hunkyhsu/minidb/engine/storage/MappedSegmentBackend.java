@@ -0,0 +1,127 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A data file mapped as a chain of fixed-size segments. Segments are appended
+ * online by {@link #ensureCapacity(long)}, so callers address the file with
+ * 64-bit logical offsets and never need to preallocate the whole file.
+ * Every segment stays mapped until the backend is closed, so accesses index
+ * straight into the segment array.
+ * <p>
+ * Every write marks its page in a per-segment dirty bitmap, so
+ * {@link #flushDirty(long)} and {@link #close()} only force pages written
+ * since they were last flushed instead of the whole mapping.
+ * <p>
+ * This is the JDK 17 implementation. On JDK 22 and later
+ * {@link MappedBackends} hands out a subclass that maps the same segments
+ * through the Foreign Memory API instead.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 16:30
+ */
+public class MappedSegmentBackend extends SegmentedFileBackend {
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    public MappedSegmentBackend(Path path, int segmentSize) throws IOException {
+        this(path, segmentSize, PageLayout.DEFAULT_PAGE_SIZE);
+    }
+
+    public MappedSegmentBackend(Path path, int segmentSize, int pageSize) throws IOException {
+        super(path, segmentSize, pageSize);
+        try {
+            grow(initialSegmentCount());
+        } catch (IOException e) {
+            throw new IOException("Can not open file: " + path, e);
+        }
+    }
+
+    @Override
+    public long getCapacity() {
+        return ((long) segments.length) * getSegmentSize();
+    }
+
+    /**
+     * Readers keep using the segment array they loaded; the new array is
+     * published with a volatile write once the segments are mapped.
+     */
+    @Override
+    protected void grow(int segmentCount) throws IOException {
+        growFile(segmentCount);
+        MappedByteBuffer[] current = segments;
+        long segmentSize = getSegmentSize();
+        MappedByteBuffer[] grown = Arrays.copyOf(current, segmentCount);
+        for (int i = current.length; i < segmentCount; i++) {
+            grown[i] = mapSegment(fileChannel, i * segmentSize, segmentSize);
+        }
+        segments = grown;
+    }
+
+    /**
+     * Maps one segment of the file. Called while the segment array is being
+     * grown, including from this class's constructor.
+     */
+    protected MappedByteBuffer mapSegment(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        return segments[segmentIndex(offset)];
+    }
+
+    @Override
+    protected boolean withSegment(int segment, int index, int length, SegmentAction action) {
+        return action.apply(segments[segment], index, length);
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return segment(offset).getLong(segmentOffset(offset));
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return segment(offset).getInt(segmentOffset(offset));
+    }
+
+    @Override
+    public void get(long offset, byte[] dst, int dstOffset, int length) {
+        segment(offset).get(segmentOffset(offset), dst, dstOffset, length);
+    }
+
+    @Override
+    public void read(long offset, BufferAction action) {
+        action.apply(segment(offset), segmentOffset(offset));
+    }
+
+    @Override
+    public void write(long offset, BufferAction action) {
+        action.apply(segment(offset), segmentOffset(offset));
+        markDirty(offset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushDirty(Long.MAX_VALUE);
+        unmapSegments(segments);
+        raf.close();
+    }
+
+    /**
+     * Releases every mapping, at once where {@link BufferCleaner} can and
+     * otherwise by leaving it to the GC; the JDK 22 subclass closes its arena
+     * instead. The buffers must not be touched afterwards.
+     */
+    protected void unmapSegments(MappedByteBuffer[] mapped) {
+        segments = new MappedByteBuffer[0];
+        if (!BufferCleaner.isAvailable()) { return; }
+        for (MappedByteBuffer segment : mapped) {
+            BufferCleaner.clean(segment);
+        }
+    }
+}
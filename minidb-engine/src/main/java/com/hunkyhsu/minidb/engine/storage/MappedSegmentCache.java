@@ -0,0 +1,241 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed number of mapping slots shared by any number of
+ * {@link CachedSegmentBackend}s, so the address space and mappings a whole
+ * engine uses are bounded by one budget instead of growing with each file.
+ * <p>
+ * Slots follow the {@link BufferPoolBackend} protocol with segments in place
+ * of pages: an access pins the slot holding its segment for the duration of
+ * one call, a miss maps the segment into a slot chosen by a clock sweep over
+ * unpinned slots, and the victim's dirty pages are forced, in coalesced
+ * runs, before it is unmapped. A slot is only unmapped while its pin count
+ * holds {@code EVICTING}, so no reader can be inside it; that count is
+ * claimed under a lock, but the write-back and mapping happen outside it.
+ * <p>
+ * An evicted segment is unmapped at once, so the budget bounds the address
+ * space. A JVM that can not unmap on demand could only leave evicted
+ * mappings to the GC, so the cache refuses to start on one.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:20
+ */
+public class MappedSegmentCache {
+    private static final int EVICTING = Integer.MIN_VALUE / 2;
+    private static final int EVICTION_SWEEPS = 3;
+    private static final long EXHAUSTED_WAIT_MILLIS = 1000;
+
+    private final int segmentSize;
+    private final int slotCount;
+    private final SegmentMapping[] slots;
+    private final AtomicIntegerArray pinCounts;
+    // File id in the high half, segment index in the low half; -1 when empty
+    private final AtomicLongArray slotKeys;
+    private final AtomicIntegerArray referenced;
+    private final ConcurrentHashMap<Long, Integer> slotTable;
+    private final ConcurrentHashMap<Integer, CachedSegmentBackend> owners = new ConcurrentHashMap<>();
+    private final AtomicInteger nextFileId = new AtomicInteger();
+    private final Object evictionLock = new Object();
+    private int clockHand;
+
+    /**
+     * @param maxMappedBytes budget for all files together; at least one
+     *                       segment
+     * @param segmentSize    size of every mapped window, a power of two
+     */
+    public MappedSegmentCache(long maxMappedBytes, int segmentSize) {
+        if (segmentSize < PageLayout.MIN_PAGE_SIZE || Integer.bitCount(segmentSize) != 1) {
+            throw new IllegalArgumentException("Segment size must be a power of two >= "
+                    + PageLayout.MIN_PAGE_SIZE + ": " + segmentSize);
+        }
+        if (maxMappedBytes < segmentSize || maxMappedBytes / segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid mapped-bytes budget: " + maxMappedBytes);
+        }
+        if (!SegmentMapping.canUnmap()) {
+            throw new UnsupportedOperationException("This JVM can not unmap segments on demand, so a "
+                    + "mapped-bytes budget can not be enforced; use the mmap or buffer-pool backend");
+        }
+        this.segmentSize = segmentSize;
+        this.slotCount = (int) (maxMappedBytes / segmentSize);
+        this.slots = new SegmentMapping[slotCount];
+        this.pinCounts = new AtomicIntegerArray(slotCount);
+        this.slotKeys = new AtomicLongArray(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slotKeys.set(i, -1);
+        }
+        this.referenced = new AtomicIntegerArray(slotCount);
+        this.slotTable = new ConcurrentHashMap<>(slotCount * 2);
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public long getMaxMappedBytes() {
+        return (long) slotCount * segmentSize;
+    }
+
+    public long getMappedBytes() {
+        long mapped = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotKeys.get(slot) >= 0) { mapped += segmentSize; }
+        }
+        return mapped;
+    }
+
+    int register(CachedSegmentBackend owner) {
+        int fileId = nextFileId.getAndIncrement();
+        owners.put(fileId, owner);
+        return fileId;
+    }
+
+    /**
+     * Unmaps every segment of {@code fileId} after forcing its dirty pages.
+     * The file must no longer be accessed.
+     */
+    void release(int fileId) {
+        synchronized (evictionLock) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                // Evictions finish outside the lock; wait until this slot's is done
+                while (pinCounts.get(slot) < 0) {
+                    Thread.onSpinWait();
+                }
+                long key = slotKeys.get(slot);
+                if (key < 0 || (int) (key >>> 32) != fileId) { continue; }
+                if (!pinCounts.compareAndSet(slot, 0, EVICTING)) {
+                    throw new IllegalStateException("Segment still pinned while closing: " + (int) key);
+                }
+                unmap(slot, key);
+                pinCounts.addAndGet(slot, -EVICTING);
+            }
+            owners.remove(fileId);
+        }
+    }
+
+    boolean isMapped(int fileId, int segment) {
+        return slotTable.containsKey(key(fileId, segment));
+    }
+
+    MappedByteBuffer buffer(int slot) {
+        return slots[slot].buffer();
+    }
+
+    /**
+     * Pins the slot holding {@code segment} of {@code fileId}, mapping it
+     * first if needed. Every pin must be paired with {@link #unpin(int)}.
+     * <p>
+     * Only choosing the victim happens under the eviction lock. The key is
+     * entered with the victim still {@code EVICTING}, so concurrent pins of
+     * the same segment wait for this one instead of mapping it twice, and the
+     * write-back, unmap and map that follow hold up no other miss.
+     */
+    int pin(int fileId, int segment) {
+        long key = key(fileId, segment);
+        while (true) {
+            Integer slot = slotTable.get(key);
+            if (slot != null) {
+                if (tryPin(slot, key)) {
+                    referenced.set(slot, 1);
+                    return slot;
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            int victim;
+            synchronized (evictionLock) {
+                if (slotTable.containsKey(key)) { continue; }
+                victim = claimVictim();
+                slotTable.put(key, victim);
+            }
+            return load(victim, key);
+        }
+    }
+
+    /**
+     * Empties a claimed slot and maps {@code key}'s segment into it, returning
+     * it pinned once. If the old segment cannot be written back it stays
+     * mapped and usable.
+     */
+    private int load(int victim, long key) {
+        long oldKey = slotKeys.get(victim);
+        try {
+            if (oldKey >= 0) { unmap(victim, oldKey); }
+            slots[victim] = owners.get((int) (key >>> 32)).map((int) key);
+        } catch (IOException | RuntimeException e) {
+            slotTable.remove(key, victim);
+            pinCounts.addAndGet(victim, -EVICTING);
+            if (e instanceof IOException) {
+                throw new UncheckedIOException("Can not map segment " + (int) key, (IOException) e);
+            }
+            throw (RuntimeException) e;
+        }
+        // Published after the buffer, so a reader that sees the key also sees the mapping
+        slotKeys.set(victim, key);
+        referenced.set(victim, 1);
+        pinCounts.addAndGet(victim, 1 - EVICTING);
+        return victim;
+    }
+
+    void unpin(int slot) {
+        pinCounts.decrementAndGet(slot);
+    }
+
+    private boolean tryPin(int slot, long key) {
+        if (pinCounts.incrementAndGet(slot) > 0 && slotKeys.get(slot) == key) {
+            return true;
+        }
+        pinCounts.decrementAndGet(slot);
+        return false;
+    }
+
+    /**
+     * Claims an unpinned, unreferenced slot, clearing reference bits as the
+     * hand passes. Returns with the slot's pin count set to
+     * {@code EVICTING}; what it holds is still mapped.
+     * <p>
+     * Pins last one call and loads finish outside the lock, so when every
+     * slot is busy the sweep is retried for up to
+     * {@link #EXHAUSTED_WAIT_MILLIS} before the cache counts as exhausted.
+     */
+    private int claimVictim() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EXHAUSTED_WAIT_MILLIS);
+        do {
+            for (int step = 0; step < EVICTION_SWEEPS * slotCount; step++) {
+                int slot = clockHand;
+                clockHand = (clockHand + 1) % slotCount;
+                if (pinCounts.get(slot) != 0) { continue; }
+                if (referenced.getAndSet(slot, 0) == 1) { continue; }
+                if (pinCounts.compareAndSet(slot, 0, EVICTING)) { return slot; }
+            }
+            Thread.yield();
+        } while (System.nanoTime() - deadline < 0);
+        throw new IllegalStateException("Segment cache exhausted: all " + slotCount + " mapped segments are pinned");
+    }
+
+    /**
+     * Writes back and unmaps the segment in a slot held at {@code EVICTING}.
+     * The key is only dropped once its pages are on disk, so a pin of it
+     * waits rather than mapping the segment again meanwhile.
+     */
+    private void unmap(int slot, long key) {
+        owners.get((int) (key >>> 32)).writeBack((int) key, slots[slot].buffer());
+        slotTable.remove(key, slot);
+        slotKeys.set(slot, -1);
+        slots[slot].unmap();
+        slots[slot] = null;
+    }
+
+    private static long key(int fileId, int segment) {
+        return ((long) fileId << 32) | segment;
+    }
+}
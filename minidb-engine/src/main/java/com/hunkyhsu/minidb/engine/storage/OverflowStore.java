@@ -0,0 +1,110 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+/**
+ * Out-of-line storage for values too large to keep in their row. A value is
+ * cut into chunks that each fill most of a page, stored as tuples of a store
+ * of their own and chained through a next pointer at the head of each chunk,
+ * so the table's heap stays dense and scans that skip the value never read
+ * a chunk.
+ * <p>
+ * Chunks are written last to first, so every chunk already knows its
+ * successor and nothing is updated in place. They carry the xmin of the row
+ * that references them and are only reached through that row, so they need
+ * no visibility check of their own. Once that row is dead, {@link #free}
+ * stamps them dead as well, and a vacuum that only vacates, never moves,
+ * since chunk pointers must stay put, reclaims their pages.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 22:30
+ */
+public class OverflowStore {
+    private final MMapFileChannel channel;
+    private final AppendOnlyTableStore store;
+    private final int chunkDataSize;
+
+    public OverflowStore(MMapFileChannel channel, AppendOnlyTableStore store) {
+        this.channel = channel;
+        this.store = store;
+        this.chunkDataSize = PageLayout.maxPayloadSize(channel.getPageSize()) - Long.BYTES;
+    }
+
+    /**
+     * Value bytes per chunk, which grows with the page size of the file.
+     */
+    public int getChunkDataSize() {
+        return chunkDataSize;
+    }
+
+    /**
+     * @return the pointer of the first chunk
+     */
+    public long write(long xmin, byte[] value, int offset, int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Overflow value must not be empty: " + length);
+        }
+        long next = TuplePointer.NONE;
+        for (int chunkStart = offset + (length - 1) / chunkDataSize * chunkDataSize; chunkStart >= offset;
+                chunkStart -= chunkDataSize) {
+            int chunkLength = Math.min(chunkDataSize, offset + length - chunkStart);
+            long successor = next;
+            int start = chunkStart;
+            next = store.insertTuple(xmin, Long.BYTES + chunkLength, (buffer, index) -> {
+                buffer.putLong(index, successor);
+                buffer.put(index + Long.BYTES, value, start, chunkLength);
+            });
+        }
+        return next;
+    }
+
+    /**
+     * Reassembles the {@code length}-byte value starting at {@code firstChunk}.
+     */
+    public byte[] read(long firstChunk, int length) {
+        byte[] value = new byte[length];
+        int filled = 0;
+        long chunk = firstChunk;
+        while (filled < length) {
+            if (chunk == TuplePointer.NONE) {
+                throw new IllegalStateException("Overflow chain ends after " + filled + " of " + length + " bytes");
+            }
+            long chunkPayload = channel.payloadOffset(chunk);
+            int chunkLength = channel.readPayloadLength(chunk) - Long.BYTES;
+            int copied = Math.min(chunkLength, length - filled);
+            channel.get(chunkPayload + Long.BYTES, value, filled, copied);
+            filled += copied;
+            chunk = channel.getLong(chunkPayload);
+        }
+        return value;
+    }
+
+    /**
+     * Stamps the chunks of the chain at {@code firstChunk} as deleted by
+     * {@code xid}, the committed deleter of the row created by
+     * {@code rowXmin} that referenced it, so a vacuum of this store can
+     * vacate their pages. A chunk that is no longer on its page, was written
+     * after the row, or is already stamped ends the walk: the rest of the
+     * chain was freed before, through another version of the row.
+     *
+     * @return the number of chunks stamped
+     */
+    public int free(long firstChunk, long rowXmin, long xid) {
+        int freed = 0;
+        long chunk = firstChunk;
+        while (chunk != TuplePointer.NONE && SlottedPage.holds(channel, chunk)
+                && channel.readXmin(chunk) <= rowXmin && store.readXmax(chunk) == 0) {
+            store.stampDeleted(xid, chunk);
+            freed++;
+            chunk = channel.getLong(channel.payloadOffset(chunk));
+        }
+        return freed;
+    }
+
+    public AppendOnlyTableStore getStore() {
+        return store;
+    }
+
+    public MMapFileChannel getChannel() {
+        return channel;
+    }
+}
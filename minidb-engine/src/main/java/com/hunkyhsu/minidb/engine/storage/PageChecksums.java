@@ -0,0 +1,165 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32C;
+
+/**
+ * CRC32C checksums of sealed pages, plus an in-memory bit per page recording
+ * that it has been verified since startup, so only the first read of a page
+ * pays for the check.
+ * <p>
+ * The checksum covers what never changes once a page is sealed: the header
+ * up to the flags, the slot directory and every tuple's xmin, length and
+ * payload. Version headers and flags are left out, since deletes and vacuum
+ * still write them afterwards; so are the flag bits of compact tuples, which
+ * vacuum sets as hints. Compact pages also cover their epoch.
+ * PAX pages are covered whole past the header.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 21:10
+ */
+final class PageChecksums {
+    private static final int PAGES_PER_CHUNK = 64 * 1024;
+    private static final long MALFORMED = -1;
+
+    private final MMapFileChannel channel;
+    private final boolean pax;
+    private final int pageSize;
+    private final ThreadLocal<ByteBuffer> scratch;
+    private volatile AtomicReferenceArray<AtomicLongArray> verified;
+
+    PageChecksums(MMapFileChannel channel, boolean pax) {
+        this.channel = channel;
+        this.pax = pax;
+        this.pageSize = channel.getPageSize();
+        this.scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(pageSize));
+        this.verified = new AtomicReferenceArray<>(16);
+    }
+
+    /**
+     * Stores the checksum of {@code pageId} in its header. Empty pages and
+     * pages already checksummed are left alone. A page too damaged to
+     * checksum is flagged malformed instead, so reads and scrubs report it
+     * as corrupt from then on.
+     */
+    void seal(int pageId) {
+        int pageFlags = SlottedPage.flags(channel, pageId);
+        if (SlottedPage.tupleCount(channel, pageId) == 0
+                || (pageFlags & (PageLayout.PAGE_FLAG_CHECKSUMMED | PageLayout.PAGE_FLAG_MALFORMED)) != 0) {
+            return;
+        }
+        long checksum = compute(pageId);
+        if (checksum == MALFORMED) {
+            SlottedPage.addFlags(channel, pageId, PageLayout.PAGE_FLAG_MALFORMED);
+            return;
+        }
+        channel.write(channel.pageStart(pageId), (page, base) -> {
+            page.putInt(base + PageLayout.PAGE_CHECKSUM_OFFSET, (int) checksum);
+            VarHandle.releaseFence();
+            int flags = page.getInt(base + PageLayout.PAGE_FLAGS_OFFSET);
+            page.putInt(base + PageLayout.PAGE_FLAGS_OFFSET, flags | PageLayout.PAGE_FLAG_CHECKSUMMED);
+        });
+    }
+
+    /**
+     * False if {@code pageId} carries a checksum its contents no longer
+     * match. A page verified before answers from its bit; a page without a
+     * checksum passes and is checked again once it gets one.
+     */
+    boolean verify(int pageId) {
+        return isVerified(pageId) || check(pageId);
+    }
+
+    /**
+     * Recomputes the checksum of {@code pageId} regardless of its bit. A
+     * page flagged malformed always fails.
+     */
+    boolean check(int pageId) {
+        int flags = SlottedPage.flags(channel, pageId);
+        VarHandle.acquireFence();
+        if ((flags & PageLayout.PAGE_FLAG_MALFORMED) != 0) { return false; }
+        if ((flags & PageLayout.PAGE_FLAG_CHECKSUMMED) == 0) { return true; }
+        int stored = channel.getInt(channel.pageStart(pageId) + PageLayout.PAGE_CHECKSUM_OFFSET);
+        boolean valid = compute(pageId) == (stored & 0xFFFFFFFFL);
+        setVerified(pageId, valid);
+        return valid;
+    }
+
+    private long compute(int pageId) {
+        ByteBuffer page = scratch.get();
+        byte[] bytes = page.array();
+        channel.read(channel.pageStart(pageId), (buffer, base) -> buffer.get(base, bytes, 0, pageSize));
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, PageLayout.PAGE_FLAGS_OFFSET);
+        if (pax) {
+            crc.update(bytes, PageLayout.PAGE_HEADER_SIZE, pageSize - PageLayout.PAGE_HEADER_SIZE);
+            return crc.getValue();
+        }
+        boolean compact = channel.hasCompactTuples();
+        int pageHeaderSize = compact ? PageLayout.COMPACT_PAGE_HEADER_SIZE : PageLayout.PAGE_HEADER_SIZE;
+        int tupleHeaderSize = compact ? PageLayout.COMPACT_HEADER_SIZE : PageLayout.HEADER_SIZE;
+        int count = page.getInt(PageLayout.PAGE_TUPLE_COUNT_OFFSET);
+        int slotStart = pageSize - count * PageLayout.SLOT_SIZE;
+        if (count < 0 || slotStart < pageHeaderSize) { return MALFORMED; }
+        crc.update(bytes, PageLayout.PAGE_HEADER_SIZE, pageHeaderSize - PageLayout.PAGE_HEADER_SIZE);
+        crc.update(bytes, slotStart, count * PageLayout.SLOT_SIZE);
+        for (int slot = 0; slot < count; slot++) {
+            int offset = page.getInt(pageSize - (slot + 1) * PageLayout.SLOT_SIZE);
+            if (offset < pageHeaderSize || offset > slotStart - tupleHeaderSize) { return MALFORMED; }
+            int length = compact ? Short.toUnsignedInt(page.getShort(offset + PageLayout.COMPACT_LEN_OFFSET))
+                    : page.getInt(offset + PageLayout.LEN_OFFSET);
+            if (length < 0 || length > slotStart - offset - tupleHeaderSize) { return MALFORMED; }
+            if (compact) {
+                crc.update(bytes, offset + PageLayout.COMPACT_XMIN_OFFSET, Integer.BYTES);
+                crc.update(bytes, offset + PageLayout.COMPACT_LEN_OFFSET, Short.BYTES + length);
+            } else {
+                crc.update(bytes, offset, PageLayout.HEADER_SIZE + length);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private boolean isVerified(int pageId) {
+        AtomicReferenceArray<AtomicLongArray> current = verified;
+        int chunkIndex = pageId / PAGES_PER_CHUNK;
+        AtomicLongArray chunk = chunkIndex < current.length() ? current.get(chunkIndex) : null;
+        return chunk != null && (chunk.get(pageId % PAGES_PER_CHUNK / Long.SIZE) & bit(pageId)) != 0;
+    }
+
+    private void setVerified(int pageId, boolean value) {
+        AtomicLongArray chunk = chunk(pageId);
+        int word = pageId % PAGES_PER_CHUNK / Long.SIZE;
+        if (value) {
+            chunk.getAndUpdate(word, bits -> bits | bit(pageId));
+        } else {
+            chunk.getAndUpdate(word, bits -> bits & ~bit(pageId));
+        }
+    }
+
+    private static long bit(int pageId) {
+        return 1L << (pageId % Long.SIZE);
+    }
+
+    private synchronized AtomicLongArray chunk(int pageId) {
+        int chunkIndex = pageId / PAGES_PER_CHUNK;
+        AtomicReferenceArray<AtomicLongArray> current = verified;
+        if (chunkIndex >= current.length()) {
+            AtomicReferenceArray<AtomicLongArray> grown =
+                    new AtomicReferenceArray<>(Math.max(current.length() * 2, chunkIndex + 1));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            verified = current = grown;
+        }
+        AtomicLongArray chunk = current.get(chunkIndex);
+        if (chunk == null) {
+            chunk = new AtomicLongArray(PAGES_PER_CHUNK / Long.SIZE);
+            current.set(chunkIndex, chunk);
+        }
+        return chunk;
+    }
+}
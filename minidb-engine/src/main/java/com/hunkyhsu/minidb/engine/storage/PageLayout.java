@@ -8,9 +8,67 @@ package com.hunkyhsu.minidb.engine.storage;
 public final class PageLayout {
     private PageLayout() {}
 
-    public static final int PAGE_SIZE = 8 * 1024; //8KB
+    // Every file records its own page size in the superblock; this is what new files get unless asked otherwise
+    public static final int DEFAULT_PAGE_SIZE = 8 * 1024; //8KB
+    public static final int MIN_PAGE_SIZE = 4 * 1024;
+    public static final int MAX_PAGE_SIZE = 1024 * 1024;
     public static final int XMIN_OFFSET = 0;
     public static final int LEN_OFFSET = Long.BYTES; // 8
     public static final int HEADER_SIZE = Long.BYTES + Integer.BYTES; // 12
 
+    // Slotted page header (format version 2); tuples grow up after it, slots grow down from the page end
+    public static final int PAGE_TUPLE_COUNT_OFFSET = 0;
+    public static final int PAGE_FREE_START_OFFSET = Integer.BYTES; // 4
+    public static final int PAGE_MIN_XMIN_OFFSET = 2 * Integer.BYTES; // 8
+    public static final int PAGE_MAX_XMIN_OFFSET = PAGE_MIN_XMIN_OFFSET + Long.BYTES; // 16
+    public static final int PAGE_FLAGS_OFFSET = PAGE_MAX_XMIN_OFFSET + Long.BYTES; // 24
+    public static final int PAGE_CHECKSUM_OFFSET = PAGE_FLAGS_OFFSET + Integer.BYTES; // 28
+    public static final int PAGE_HEADER_SIZE = 32;
+    // Set by vacuum once no snapshot can see any tuple on the page
+    public static final int PAGE_FLAG_VACATED = 1;
+    // Set once the page's CRC32C has been stored at PAGE_CHECKSUM_OFFSET
+    public static final int PAGE_FLAG_CHECKSUMMED = 2;
+    // Set instead of a checksum when a sealed page's slots or lengths are out of bounds
+    public static final int PAGE_FLAG_MALFORMED = 4;
+    public static final int SLOT_SIZE = Integer.BYTES;
+
+    // Version header (format version 3), just before each tuple's xmin; offsets are relative to the tuple pointer
+    public static final int XMAX_OFFSET = -2 * Long.BYTES; // -16
+    public static final int NEXT_VERSION_OFFSET = -Long.BYTES; // -8
+    public static final int VERSION_HEADER_SIZE = 2 * Long.BYTES; // 16
+
+    // Compact tuple header (format version 4): xmin relative to the page epoch, flag bits, 16-bit length.
+    // Tuples start on 8-byte boundaries, so the version header, xmin and payload are all aligned
+    public static final int COMPACT_XMIN_OFFSET = 0;
+    public static final int COMPACT_FLAGS_OFFSET = Integer.BYTES; // 4
+    public static final int COMPACT_LEN_OFFSET = COMPACT_FLAGS_OFFSET + Short.BYTES; // 6
+    public static final int COMPACT_HEADER_SIZE = Long.BYTES; // 8
+    public static final int MAX_COMPACT_LENGTH = 0xFFFF;
+    // Hint set by vacuum once the tuple's creator has committed, so readers skip the commit log
+    public static final int TUPLE_FLAG_XMIN_COMMITTED = 1;
+    public static final int TUPLE_ALIGNMENT = Long.BYTES;
+    // Compact pages extend the page header with the xmin of their first tuple
+    public static final int PAGE_EPOCH_OFFSET = PAGE_HEADER_SIZE; // 32
+    public static final int COMPACT_PAGE_HEADER_SIZE = PAGE_EPOCH_OFFSET + Long.BYTES; // 40
+
+    /**
+     * @throws IllegalArgumentException unless {@code pageSize} is a power of
+     *                                  two between the minimum and maximum
+     */
+    public static int checkPageSize(int pageSize) {
+        if (pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be a power of two in ["
+                    + MIN_PAGE_SIZE + ", " + MAX_PAGE_SIZE + "]: " + pageSize);
+        }
+        return pageSize;
+    }
+
+    /**
+     * Largest payload every slotted format can hold in a page of
+     * {@code pageSize} bytes. Compact tuples cap it at their 16-bit length.
+     */
+    public static int maxPayloadSize(int pageSize) {
+        return Math.min(MAX_COMPACT_LENGTH,
+                pageSize - COMPACT_PAGE_HEADER_SIZE - SLOT_SIZE - VERSION_HEADER_SIZE - COMPACT_HEADER_SIZE);
+    }
 }
@@ -0,0 +1,228 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.StorageLayout;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Stores a table of fixed-width rows in PAX pages: after the usual page
+ * header comes an array of xmins, then one minipage per column holding that
+ * column's value for every row of the page. A scan filtering on one column
+ * touches only the xmin array and that column's minipage.
+ * <p>
+ * Rows are addressed as {@code TuplePointer.pack(pageId, row)}. Each writer
+ * thread fills a page of its own; the header's tuple count publishes rows the
+ * same way it does for slotted pages. Page allocation, checkpoints and tail
+ * recovery are those of {@link AppendOnlyTableStore}.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 18:55
+ */
+public class PaxTableStore {
+    private final MMapFileChannel channel;
+    private final AppendOnlyTableStore pages;
+    private final TableMetadata table;
+    private final int rowSize;
+    private final int rowsPerPage;
+    private final int[] columnSizes;
+    private final int[] rowOffsets;
+    private final int[] minipageOffsets;
+    private final ThreadLocal<PageCursor> cursors = ThreadLocal.withInitial(PageCursor::new);
+
+    public PaxTableStore(MMapFileChannel channel, TableMetadata table) {
+        this(channel, table, AppendOnlyTableStore.DEFAULT_RESERVATION_PAGES);
+    }
+
+    public PaxTableStore(MMapFileChannel channel, TableMetadata table, int reservationPages) {
+        if (table.getLayout() != StorageLayout.PAX) {
+            throw new IllegalArgumentException("Table is not laid out as PAX: " + table.getTableName());
+        }
+        List<Column> columns = table.getColumns();
+        this.rowSize = table.getTupleSize();
+        if (columns.isEmpty() || rowSize <= 0) {
+            throw new IllegalArgumentException("PAX table needs at least one column: " + table.getTableName());
+        }
+        this.channel = channel;
+        this.table = table;
+        this.rowsPerPage = (channel.getPageSize() - PageLayout.PAGE_HEADER_SIZE) / (Long.BYTES + rowSize);
+        this.columnSizes = new int[columns.size()];
+        this.rowOffsets = new int[columns.size()];
+        this.minipageOffsets = new int[columns.size()];
+        int minipageOffset = xminOffset(rowsPerPage);
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            if (!column.type().isFixed() || column.nullable()) {
+                throw new IllegalArgumentException("PAX needs fixed-width, non-null columns: " + column.columnName());
+            }
+            columnSizes[i] = column.type().getFixedSize();
+            rowOffsets[i] = column.offset();
+            minipageOffsets[i] = minipageOffset;
+            minipageOffset += rowsPerPage * columnSizes[i];
+        }
+        this.pages = new AppendOnlyTableStore(channel, reservationPages, null, null, table.getOid(), Superblock.LAYOUT_PAX);
+    }
+
+    public TableMetadata getTable() {
+        return table;
+    }
+
+    public int getPageSize() {
+        return channel.getPageSize();
+    }
+
+    public int getRowsPerPage() {
+        return rowsPerPage;
+    }
+
+    public int columnIndex(String columnName) {
+        List<Column> columns = table.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).columnName().equals(columnName)) { return i; }
+        }
+        throw new NoSuchElementException("Column not found: " + columnName);
+    }
+
+    public long insertRow(long xmin, byte[] row) {
+        return insertRow(xmin, ByteBuffer.wrap(row));
+    }
+
+    /**
+     * Scatters the row between {@code row}'s position and limit, laid out as
+     * {@link TableMetadata} describes, into the column minipages. The buffer
+     * position is left unchanged.
+     */
+    public long insertRow(long xmin, ByteBuffer row) {
+        if (row.remaining() != rowSize) {
+            throw new IllegalArgumentException("Row size mismatch: " + row.remaining() + " != " + rowSize);
+        }
+        PageCursor cursor = cursors.get();
+        if (cursor.pageStart < 0 || cursor.rows == rowsPerPage || pages.isSealed(cursor.pageStart)) {
+            cursor.pageStart = pages.allocatePage();
+            cursor.rows = 0;
+        }
+        int rowIndex = cursor.rows++;
+        int rowStart = row.position();
+        channel.write(cursor.pageStart, (page, base) -> {
+            for (int i = 0; i < columnSizes.length; i++) {
+                page.put(base + minipageOffsets[i] + rowIndex * columnSizes[i], row, rowStart + rowOffsets[i], columnSizes[i]);
+            }
+            page.putLong(base + xminOffset(rowIndex), xmin);
+            if (rowIndex == 0 || xmin < page.getLong(base + PageLayout.PAGE_MIN_XMIN_OFFSET)) {
+                page.putLong(base + PageLayout.PAGE_MIN_XMIN_OFFSET, xmin);
+            }
+            if (rowIndex == 0 || xmin > page.getLong(base + PageLayout.PAGE_MAX_XMIN_OFFSET)) {
+                page.putLong(base + PageLayout.PAGE_MAX_XMIN_OFFSET, xmin);
+            }
+            VarHandle.releaseFence();
+            page.putInt(base + PageLayout.PAGE_TUPLE_COUNT_OFFSET, rowIndex + 1);
+        });
+        return TuplePointer.pack(channel.pageId(cursor.pageStart), rowIndex);
+    }
+
+    /**
+     * Rows published on {@code pageId}; every row below the count is readable.
+     */
+    public int getRowCount(int pageId) {
+        return SlottedPage.tupleCount(channel, pageId);
+    }
+
+    public long readXmin(long pointer) {
+        return channel.getLong(pageStart(pointer) + xminOffset(TuplePointer.getOffset(pointer)));
+    }
+
+    public int readInt(long pointer, int columnIndex) {
+        return channel.getInt(pageStart(pointer) + minipageOffsets[columnIndex]
+                + (long) TuplePointer.getOffset(pointer) * columnSizes[columnIndex]);
+    }
+
+    /**
+     * Gathers a row back into the layout {@link TableMetadata} describes.
+     */
+    public byte[] readRow(long pointer) {
+        byte[] row = new byte[rowSize];
+        int rowIndex = TuplePointer.getOffset(pointer);
+        channel.read(pageStart(pointer), (page, base) -> {
+            for (int i = 0; i < columnSizes.length; i++) {
+                page.get(base + minipageOffsets[i] + rowIndex * columnSizes[i], row, rowOffsets[i], columnSizes[i]);
+            }
+        });
+        return row;
+    }
+
+    /**
+     * Stores in {@code rows} the index of every row on {@code pageId} that
+     * {@code txContext} sees and whose INT column {@code columnIndex} passes
+     * {@code predicate}; a negative {@code columnIndex} keeps every visible
+     * row. Only the xmin array and that one minipage are read, in a single
+     * pass over the page. Pages whose xmin range is invisible are skipped
+     * from the header; the others are checked against their checksum on
+     * first read.
+     *
+     * @param rows at least {@link #getRowsPerPage()} long
+     * @return the number of indexes stored
+     */
+    public int collectRows(int pageId, TransactionContext txContext, int columnIndex, IntPredicate predicate, int[] rows) {
+        int rowCount = getRowCount(pageId);
+        if (rowCount == 0 || !txContext.mayContainVisible(SlottedPage.minXmin(channel, pageId),
+                SlottedPage.maxXmin(channel, pageId))) {
+            return 0;
+        }
+        pages.verifyPage(pageId);
+        int[] matched = new int[1];
+        channel.read(channel.pageStart(pageId), (page, base) -> {
+            int minipage = columnIndex < 0 ? -1 : base + minipageOffsets[columnIndex];
+            for (int row = 0; row < rowCount; row++) {
+                if (minipage >= 0 && !predicate.test(page.getInt(minipage + row * Integer.BYTES))) { continue; }
+                if (txContext.isVisible(page.getLong(base + xminOffset(row)))) {
+                    rows[matched[0]++] = row;
+                }
+            }
+        });
+        return matched[0];
+    }
+
+    public void checkpoint(LongSupplier lastXid) {
+        pages.checkpoint(lastXid);
+    }
+
+    /**
+     * @see AppendOnlyTableStore#scrub()
+     */
+    public List<Integer> scrub() {
+        return pages.scrub();
+    }
+
+    public long getRecoveredXid() {
+        return pages.getRecoveredXid();
+    }
+
+    public long getValidStartOffset() {
+        return pages.getValidStartOffset();
+    }
+
+    public long getValidEndOffset() {
+        return pages.getValidEndOffset();
+    }
+
+    private static int xminOffset(int rowIndex) {
+        return PageLayout.PAGE_HEADER_SIZE + rowIndex * Long.BYTES;
+    }
+
+    private long pageStart(long pointer) {
+        return channel.pageStart(TuplePointer.getPageId(pointer));
+    }
+
+    private static final class PageCursor {
+        private long pageStart = -1;
+        private int rows;
+    }
+}
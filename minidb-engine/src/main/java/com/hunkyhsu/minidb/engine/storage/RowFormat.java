@@ -0,0 +1,311 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.Type;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes rows in the format {@link TableMetadata} describes and reads single
+ * columns of stored tuples in place. A fixed-width column costs one read at
+ * its constant offset, plus one for the null bitmap if the column is
+ * nullable; a string costs one more for its offset table entry.
+ * <p>
+ * Given an {@link OverflowStore}, strings longer than
+ * {@link #OVERFLOW_THRESHOLD} bytes are moved out of line: the row keeps a
+ * reference to the chunk chain, the full length and the first
+ * {@link #INLINE_PREFIX_SIZE} bytes, and only {@link #getString} follows the
+ * chain.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 22:00
+ */
+public class RowFormat {
+    public static final int OVERFLOW_THRESHOLD = 2048;
+    public static final int INLINE_PREFIX_SIZE = 64;
+    // Set in an offset table entry's length when the bytes behind it are an overflow reference
+    private static final int OVERFLOW_FLAG = 0x4000_0000;
+    // First chunk pointer and full length, ahead of the inline prefix
+    private static final int OVERFLOW_REFERENCE_SIZE = Long.BYTES + Integer.BYTES;
+
+    private final TableMetadata table;
+    private final Column[] columns;
+    private final OverflowStore overflow;
+
+    public RowFormat(TableMetadata table) {
+        this(table, null);
+    }
+
+    /**
+     * @param overflow where {@link Builder#build(long)} moves long strings,
+     *                 or null to keep every value inline
+     */
+    public RowFormat(TableMetadata table, OverflowStore overflow) {
+        this.table = table;
+        this.columns = table.getColumns().toArray(new Column[0]);
+        this.overflow = overflow;
+    }
+
+    public TableMetadata getTable() {
+        return table;
+    }
+
+    public int columnIndex(String columnName) {
+        return table.columnIndex(columnName);
+    }
+
+    public Builder newRow() {
+        return new Builder();
+    }
+
+    public boolean isNull(MMapFileChannel channel, long pointer, int column) {
+        if (!columns[column].nullable()) { return false; }
+        long bitmapByte = channel.payloadOffset(pointer) + column / Byte.SIZE;
+        int[] bits = new int[1];
+        channel.read(bitmapByte, (buffer, index) -> bits[0] = buffer.get(index));
+        return (bits[0] & (1 << (column % Byte.SIZE))) != 0;
+    }
+
+    public int getInt(MMapFileChannel channel, long pointer, int column) {
+        check(column, Type.INT);
+        return channel.getInt(channel.payloadOffset(pointer) + columns[column].offset());
+    }
+
+    /**
+     * Reads a {@link Type#BIGINT} or a {@link Type#TIMESTAMP}.
+     */
+    public long getLong(MMapFileChannel channel, long pointer, int column) {
+        if (columns[column].type() != Type.TIMESTAMP) { check(column, Type.BIGINT); }
+        return channel.getLong(channel.payloadOffset(pointer) + columns[column].offset());
+    }
+
+    public double getDouble(MMapFileChannel channel, long pointer, int column) {
+        check(column, Type.DOUBLE);
+        return Double.longBitsToDouble(channel.getLong(channel.payloadOffset(pointer) + columns[column].offset()));
+    }
+
+    public boolean getBoolean(MMapFileChannel channel, long pointer, int column) {
+        check(column, Type.BOOLEAN);
+        boolean[] value = new boolean[1];
+        channel.read(channel.payloadOffset(pointer) + columns[column].offset(), (buffer, index) -> value[0] = buffer.get(index) != 0);
+        return value[0];
+    }
+
+    /**
+     * Reads the whole string, following its overflow chain if it has one.
+     *
+     * @return the string, or null for a null value
+     */
+    public String getString(MMapFileChannel channel, long pointer, int column) {
+        check(column, Type.VARCHAR);
+        long payload = channel.payloadOffset(pointer);
+        long entry = payload + columns[column].offset();
+        int length = channel.getInt(entry + Integer.BYTES);
+        if (length < 0) { return null; }
+        long bytesOffset = payload + channel.getInt(entry);
+        if ((length & OVERFLOW_FLAG) != 0) {
+            if (overflow == null) { throw new IllegalStateException("No overflow store to read " + columns[column].columnName()); }
+            byte[] bytes = overflow.read(channel.getLong(bytesOffset), channel.getInt(bytesOffset + Long.BYTES));
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        channel.get(bytesOffset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads only the bytes kept in the row: the whole string if it is
+     * inline, its first {@link #INLINE_PREFIX_SIZE} bytes or fewer (cut on a
+     * character boundary) if it overflowed. Never touches the overflow store.
+     *
+     * @return the prefix, or null for a null value
+     */
+    public String getStringPrefix(MMapFileChannel channel, long pointer, int column) {
+        check(column, Type.VARCHAR);
+        long payload = channel.payloadOffset(pointer);
+        long entry = payload + columns[column].offset();
+        int length = channel.getInt(entry + Integer.BYTES);
+        if (length < 0) { return null; }
+        long bytesOffset = payload + channel.getInt(entry);
+        if ((length & OVERFLOW_FLAG) != 0) {
+            bytesOffset += OVERFLOW_REFERENCE_SIZE;
+            length = (length & ~OVERFLOW_FLAG) - OVERFLOW_REFERENCE_SIZE;
+        }
+        byte[] bytes = new byte[length];
+        channel.get(bytesOffset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Full length of the string in UTF-8 bytes, or -1 for a null value.
+     */
+    public int getStringLength(MMapFileChannel channel, long pointer, int column) {
+        check(column, Type.VARCHAR);
+        long payload = channel.payloadOffset(pointer);
+        long entry = payload + columns[column].offset();
+        int length = channel.getInt(entry + Integer.BYTES);
+        if (length < 0 || (length & OVERFLOW_FLAG) == 0) { return length; }
+        return channel.getInt(payload + channel.getInt(entry) + Long.BYTES);
+    }
+
+    /**
+     * First chunks of the row's overflowed strings, in column order; empty
+     * if every value is inline. Reads only the row.
+     */
+    public long[] overflowChains(MMapFileChannel channel, long pointer) {
+        long payload = channel.payloadOffset(pointer);
+        long[] chains = new long[columns.length];
+        int found = 0;
+        for (Column column : columns) {
+            if (column.type() != Type.VARCHAR) { continue; }
+            long entry = payload + column.offset();
+            int length = channel.getInt(entry + Integer.BYTES);
+            if (length >= 0 && (length & OVERFLOW_FLAG) != 0) {
+                chains[found++] = channel.getLong(payload + channel.getInt(entry));
+            }
+        }
+        return Arrays.copyOf(chains, found);
+    }
+
+    /**
+     * Where long strings are moved, or null if they are kept inline.
+     */
+    public OverflowStore getOverflowStore() {
+        return overflow;
+    }
+
+    private void check(int column, Type type) {
+        if (columns[column].type() != type) {
+            throw new IllegalArgumentException("Column " + columns[column].columnName() + " is "
+                    + columns[column].type() + ", not " + type);
+        }
+    }
+
+    /**
+     * Collects one row's values; unset nullable columns are null and unset
+     * non-null columns are zero, false or the empty string.
+     */
+    public final class Builder {
+        private final Object[] values = new Object[columns.length];
+
+        private Builder() {}
+
+        public Builder setInt(int column, int value) {
+            return set(column, Type.INT, value);
+        }
+
+        public Builder setLong(int column, long value) {
+            return set(column, Type.BIGINT, value);
+        }
+
+        public Builder setDouble(int column, double value) {
+            return set(column, Type.DOUBLE, value);
+        }
+
+        public Builder setBoolean(int column, boolean value) {
+            return set(column, Type.BOOLEAN, value);
+        }
+
+        public Builder setTimestamp(int column, long epochMicros) {
+            return set(column, Type.TIMESTAMP, epochMicros);
+        }
+
+        public Builder setString(int column, String value) {
+            return set(column, Type.VARCHAR, value);
+        }
+
+        public Builder setNull(int column) {
+            if (!columns[column].nullable()) {
+                throw new IllegalArgumentException("Column is not nullable: " + columns[column].columnName());
+            }
+            values[column] = null;
+            return this;
+        }
+
+        private Builder set(int column, Type type, Object value) {
+            check(column, type);
+            if (value == null && !columns[column].nullable()) {
+                throw new IllegalArgumentException("Column is not nullable: " + columns[column].columnName());
+            }
+            values[column] = value;
+            return this;
+        }
+
+        /**
+         * Encodes the row with every value inline.
+         */
+        public byte[] build() {
+            return encode(0, false);
+        }
+
+        /**
+         * Encodes the row, first writing strings longer than
+         * {@link #OVERFLOW_THRESHOLD} bytes to the overflow store as
+         * {@code xmin}, which must be the xmin the row is inserted with.
+         */
+        public byte[] build(long xmin) {
+            if (overflow == null) { throw new IllegalStateException("No overflow store for table " + table.getTableName()); }
+            return encode(xmin, true);
+        }
+
+        private byte[] encode(long xmin, boolean moveOverflow) {
+            byte[][] strings = new byte[columns.length][];
+            boolean[] references = new boolean[columns.length];
+            int size = table.getTupleSize();
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].type() == Type.VARCHAR && (values[i] != null || !columns[i].nullable())) {
+                    strings[i] = values[i] == null ? new byte[0] : ((String) values[i]).getBytes(StandardCharsets.UTF_8);
+                    if (moveOverflow && strings[i].length > OVERFLOW_THRESHOLD) {
+                        strings[i] = overflowReference(xmin, strings[i]);
+                        references[i] = true;
+                    }
+                    size += strings[i].length;
+                }
+            }
+            ByteBuffer row = ByteBuffer.allocate(size);
+            int variableOffset = table.getTupleSize();
+            for (int i = 0; i < columns.length; i++) {
+                Column column = columns[i];
+                Object value = values[i];
+                if (value == null && column.nullable()) {
+                    row.put(i / Byte.SIZE, (byte) (row.get(i / Byte.SIZE) | (1 << (i % Byte.SIZE))));
+                    // A null string has no bytes; -1 tells it apart from the empty string
+                    if (column.type() == Type.VARCHAR) { row.putInt(column.offset() + Integer.BYTES, -1); }
+                    continue;
+                }
+                switch (column.type()) {
+                    case INT -> row.putInt(column.offset(), value == null ? 0 : (Integer) value);
+                    case BIGINT, TIMESTAMP -> row.putLong(column.offset(), value == null ? 0L : (Long) value);
+                    case DOUBLE -> row.putDouble(column.offset(), value == null ? 0.0 : (Double) value);
+                    case BOOLEAN -> row.put(column.offset(), (byte) (value != null && (Boolean) value ? 1 : 0));
+                    case VARCHAR -> {
+                        row.putInt(column.offset(), variableOffset);
+                        row.putInt(column.offset() + Integer.BYTES, references[i] ? strings[i].length | OVERFLOW_FLAG : strings[i].length);
+                        row.put(variableOffset, strings[i]);
+                        variableOffset += strings[i].length;
+                    }
+                }
+            }
+            return row.array();
+        }
+
+        /**
+         * Writes {@code value} to the overflow store and returns what the row
+         * keeps instead: the chain, the full length and a prefix that ends on
+         * a character boundary.
+         */
+        private byte[] overflowReference(long xmin, byte[] value) {
+            long firstChunk = overflow.write(xmin, value, 0, value.length);
+            int prefix = INLINE_PREFIX_SIZE;
+            // Back off over UTF-8 continuation bytes
+            while (prefix > 0 && (value[prefix] & 0xC0) == 0x80) { prefix--; }
+            ByteBuffer reference = ByteBuffer.allocate(OVERFLOW_REFERENCE_SIZE + prefix);
+            reference.putLong(firstChunk).putInt(value.length).put(value, 0, prefix);
+            return reference.array();
+        }
+    }
+}
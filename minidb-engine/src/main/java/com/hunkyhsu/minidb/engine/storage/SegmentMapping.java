@@ -0,0 +1,48 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * One mapped window of a file that {@link MappedSegmentCache} can release on
+ * its own. This is the JDK 17 version: {@link #unmap()} releases the window
+ * at once through {@link BufferCleaner}. The JDK 22 version under
+ * {@code META-INF/versions/22} maps each window into its own arena and
+ * closes the arena instead.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:47
+ */
+final class SegmentMapping {
+    private MappedByteBuffer buffer;
+
+    private SegmentMapping(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static SegmentMapping map(FileChannel channel, long position, long size) throws IOException {
+        return new SegmentMapping(channel.map(FileChannel.MapMode.READ_WRITE, position, size));
+    }
+
+    /**
+     * Whether {@link #unmap()} releases a window at once on this JVM.
+     */
+    static boolean canUnmap() {
+        return BufferCleaner.isAvailable();
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * The buffer must not be touched afterwards.
+     */
+    void unmap() {
+        MappedByteBuffer mapped = buffer;
+        buffer = null;
+        BufferCleaner.clean(mapped);
+    }
+}
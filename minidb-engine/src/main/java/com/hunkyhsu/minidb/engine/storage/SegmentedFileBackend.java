@@ -0,0 +1,399 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * What every backend that maps a file as fixed-size segments shares:
+ * addressing, growing the file, the per-segment dirty bitmaps and the walks
+ * that force, load or probe a range one segment at a time. Subclasses only
+ * decide how a segment's mapping is reached, through
+ * {@link #withSegment(int, int, int, SegmentAction)}.
+ * <p>
+ * The segment size is a power of two and a multiple of the page size, so a
+ * page never straddles two segments and the files of every subclass are laid
+ * out alike.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:50
+ */
+abstract class SegmentedFileBackend implements StorageBackend {
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    // Granularity of the kernel's faults, not of the file's pages
+    private static final int OS_PAGE_SIZE = 4096;
+
+    /**
+     * Work on part of one mapped segment: {@code [index, index + length)} of
+     * {@code segment}, which must not be retained after the call returns.
+     */
+    @FunctionalInterface
+    protected interface SegmentAction {
+        /**
+         * @return false to stop a range walk early
+         */
+        boolean apply(MappedByteBuffer segment, int index, int length);
+    }
+
+    @FunctionalInterface
+    private interface RangeForcer {
+        void force(long offset, long end);
+    }
+
+    protected final Path path;
+    protected final RandomAccessFile raf;
+    protected final FileChannel fileChannel;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final int pageShift;
+    private final int wordsPerSegment;
+    private final Object flushLock = new Object();
+    private volatile AtomicLongArray[] dirtyPages = new AtomicLongArray[0];
+    private long flushCursor;
+
+    protected SegmentedFileBackend(Path path, int segmentSize, int pageSize) throws IOException {
+        PageLayout.checkPageSize(pageSize);
+        if (segmentSize < pageSize || Integer.bitCount(segmentSize) != 1) {
+            throw new IllegalArgumentException("Segment size must be a power of two >= "
+                    + pageSize + ": " + segmentSize);
+        }
+        this.path = path;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+        this.segmentMask = segmentSize - 1;
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.wordsPerSegment = ((segmentSize >>> pageShift) + Long.SIZE - 1) / Long.SIZE;
+        try {
+            raf = openFile(path);
+        } catch (IOException e) {
+            throw new IOException("Can not open file: " + path, e);
+        }
+        fileChannel = raf.getChannel();
+    }
+
+    static RandomAccessFile openFile(Path path) throws IOException {
+        // Ensure the ParentPath exists
+        Path parentPath = path.getParent();
+        if (parentPath != null) {
+            File parentFile = parentPath.toFile();
+            if (!Files.exists(parentPath) && !parentFile.mkdirs()) {
+                throw new IOException("Can not create directory: " + parentPath);
+            }
+        }
+        return new RandomAccessFile(path.toFile(), "rw");
+    }
+
+    public int getSegmentSize() {
+        return segmentMask + 1;
+    }
+
+    @Override
+    public int getPageSize() {
+        return 1 << pageShift;
+    }
+
+    /**
+     * Segments the file already spans, and at least one.
+     */
+    protected final int initialSegmentCount() throws IOException {
+        return (int) Math.max(1, (raf.length() + segmentMask) >>> segmentShift);
+    }
+
+    @Override
+    public void ensureCapacity(long endOffset) {
+        if (endOffset <= getCapacity()) { return; }
+        synchronized (this) {
+            long required = (endOffset + segmentMask) >>> segmentShift;
+            if (required << segmentShift <= getCapacity()) { return; }
+            if (required > Integer.MAX_VALUE) {
+                throw new IllegalStateException("File too large: " + endOffset);
+            }
+            try {
+                grow((int) required);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can not grow file: " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Grows the file to {@code segmentCount} segments and publishes the new
+     * capacity. Called under the backend's monitor, or from a constructor.
+     */
+    protected abstract void grow(int segmentCount) throws IOException;
+
+    /**
+     * Lengthens the file and adds the bitmaps of the new segments. These are
+     * published before the subclass publishes the capacity, so a writer that
+     * can reach a segment also finds its bitmap.
+     */
+    protected final void growFile(int segmentCount) throws IOException {
+        long requiredLength = (long) segmentCount << segmentShift;
+        if (raf.length() < requiredLength) { raf.setLength(requiredLength); }
+        AtomicLongArray[] current = dirtyPages;
+        AtomicLongArray[] grown = Arrays.copyOf(current, segmentCount);
+        for (int i = current.length; i < segmentCount; i++) {
+            grown[i] = new AtomicLongArray(wordsPerSegment);
+        }
+        dirtyPages = grown;
+    }
+
+    /**
+     * Runs {@code action} on {@code [index, index + length)} of the mapping of
+     * {@code segment}, which stays valid until the action returns.
+     */
+    protected abstract boolean withSegment(int segment, int index, int length, SegmentAction action);
+
+    protected final int segmentIndex(long offset) {
+        return (int) (offset >>> segmentShift);
+    }
+
+    protected final int segmentOffset(long offset) {
+        return (int) (offset & segmentMask);
+    }
+
+    /**
+     * Called after the bytes are written: a flusher that clears the bit
+     * before the write lands will see it set again on its next pass.
+     */
+    protected final void markDirty(long offset) {
+        AtomicLongArray bitmap = dirtyPages[segmentIndex(offset)];
+        int page = segmentOffset(offset) >>> pageShift;
+        int word = page >>> 6;
+        long mask = 1L << page;
+        if ((bitmap.get(word) & mask) == 0) {
+            bitmap.getAndAccumulate(word, mask, (current, bit) -> current | bit);
+        }
+    }
+
+    private void clearDirty(long offset, long end) {
+        for (long page = offset >>> pageShift << pageShift; page < end; page += getPageSize()) {
+            AtomicLongArray bitmap = dirtyPages[segmentIndex(page)];
+            int index = segmentOffset(page) >>> pageShift;
+            long mask = 1L << index;
+            if ((bitmap.get(index >>> 6) & mask) != 0) {
+                bitmap.getAndAccumulate(index >>> 6, ~mask, (current, bits) -> current & bits);
+            }
+        }
+    }
+
+    private void markDirty(long offset, long end) {
+        for (long page = offset >>> pageShift << pageShift; page < end; page += getPageSize()) {
+            markDirty(page);
+        }
+    }
+
+    /**
+     * Forces {@code [offset, offset + length)} to disk, segment by segment.
+     * If that fails the range is left dirty, so a later flush retries it.
+     */
+    @Override
+    public void force(long offset, long length) {
+        long end = Math.min(offset + length, getCapacity());
+        clearDirty(offset, end);
+        try {
+            forceRange(offset, end);
+        } catch (RuntimeException e) {
+            markDirty(offset, end);
+            throw e;
+        }
+    }
+
+    /**
+     * Forces dirty pages, coalescing adjacent ones into one ranged force,
+     * until roughly {@code maxBytes} have been written back. Each call resumes
+     * where the previous one stopped so a small budget still visits the
+     * whole file.
+     */
+    @Override
+    public long flushDirty(long maxBytes) {
+        synchronized (flushLock) {
+            AtomicLongArray[] bitmaps = dirtyPages;
+            long totalWords = (long) bitmaps.length * wordsPerSegment;
+            DirtyRuns runs = new DirtyRuns(this::forceRange);
+            long flushed = 0;
+            long scanned = 0;
+            try {
+                while (scanned < totalWords && flushed < maxBytes) {
+                    long word = (flushCursor + scanned++) % totalWords;
+                    int segment = (int) (word / wordsPerSegment);
+                    flushed += runs.drain(bitmaps[segment], segment, (int) (word % wordsPerSegment));
+                }
+                runs.finish();
+            } catch (RuntimeException e) {
+                runs.restore();
+                throw e;
+            }
+            flushCursor = totalWords == 0 ? 0 : (flushCursor + scanned) % totalWords;
+            return flushed;
+        }
+    }
+
+    /**
+     * Forces every dirty page of {@code segment} through {@code mapping},
+     * coalesced like {@link #flushDirty(long)}, without going back through
+     * {@link #withSegment(int, int, int, SegmentAction)}; for a mapping that
+     * is about to be dropped.
+     */
+    protected final void forceDirtyPages(int segment, MappedByteBuffer mapping) {
+        AtomicLongArray bitmap = dirtyPages[segment];
+        DirtyRuns runs = new DirtyRuns((offset, end) -> mapping.force(segmentOffset(offset), (int) (end - offset)));
+        try {
+            for (int word = 0; word < wordsPerSegment; word++) {
+                runs.drain(bitmap, segment, word);
+            }
+            runs.finish();
+        } catch (RuntimeException e) {
+            runs.restore();
+            throw e;
+        }
+    }
+
+    @Override
+    public long countDirtyPages() {
+        long count = 0;
+        for (AtomicLongArray bitmap : dirtyPages) {
+            for (int i = 0; i < bitmap.length(); i++) {
+                count += Long.bitCount(bitmap.get(i));
+            }
+        }
+        return count;
+    }
+
+    private void forceRange(long offset, long end) {
+        forEachSegment(offset, end - offset, (segment, index, length) -> {
+            segment.force(index, length);
+            return true;
+        });
+    }
+
+    /**
+     * Faults the range into the page cache without copying it out.
+     */
+    @Override
+    public void prefetch(long offset, long length) {
+        forEachSegment(offset, length, (segment, index, chunk) -> {
+            segment.slice(index, chunk).load();
+            return true;
+        });
+    }
+
+    /**
+     * Asks the kernel through {@link MappedByteBuffer#isLoaded()}, one
+     * segment at a time.
+     */
+    @Override
+    public boolean isResident(long offset, long length) {
+        return forEachSegment(offset, length, (segment, index, chunk) -> segment.slice(index, chunk).isLoaded());
+    }
+
+    /**
+     * Touches every OS page in the range with a compare-and-set of zero to
+     * zero. It needs write access, so the kernel maps the page writable and
+     * reserves its blocks, but it never changes a byte: a concurrent writer's
+     * bytes either make it fail or land after it.
+     */
+    @Override
+    public void prefault(long offset, long length) {
+        forEachSegment(offset, length, (segment, index, chunk) -> {
+            for (int page = (index + OS_PAGE_SIZE - 1) & -OS_PAGE_SIZE; page < index + chunk; page += OS_PAGE_SIZE) {
+                INT.compareAndSet(segment, page, 0, 0);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Splits the part of {@code [offset, offset + length)} inside the file at
+     * segment boundaries and runs {@code action} on each piece in order.
+     *
+     * @return false if an action stopped the walk
+     */
+    protected final boolean forEachSegment(long offset, long length, SegmentAction action) {
+        long end = Math.min(offset + length, getCapacity());
+        long cursor = offset;
+        while (cursor < end) {
+            int index = segmentOffset(cursor);
+            int chunk = (int) Math.min(end - cursor, getSegmentSize() - index);
+            if (!withSegment(segmentIndex(cursor), index, chunk, action)) { return false; }
+            cursor += chunk;
+        }
+        return true;
+    }
+
+    /**
+     * Drains dirty bits in ascending page order and forces each run of
+     * adjacent pages once. Bits are cleared before their pages are forced,
+     * so a write that lands meanwhile sets them again; a force that fails
+     * sets back the bits of every page it had taken and not yet forced.
+     */
+    private final class DirtyRuns {
+        private final RangeForcer forcer;
+        private long runStart = -1;
+        private long runEnd = -1;
+
+        DirtyRuns(RangeForcer forcer) {
+            this.forcer = forcer;
+        }
+
+        /**
+         * Clears one bitmap word and adds its pages to the runs.
+         *
+         * @return the bytes of the pages it held
+         */
+        long drain(AtomicLongArray bitmap, int segment, int word) {
+            long bits = bitmap.getAndSet(word, 0L);
+            long wordBase = ((long) segment << segmentShift) + ((long) word * Long.SIZE << pageShift);
+            long drained = 0;
+            try {
+                while (bits != 0) {
+                    long pageOffset = wordBase + ((long) Long.numberOfTrailingZeros(bits) << pageShift);
+                    if (pageOffset != runEnd) {
+                        finish();
+                        runStart = pageOffset;
+                    }
+                    runEnd = pageOffset + getPageSize();
+                    bits &= bits - 1;
+                    drained += getPageSize();
+                }
+            } catch (RuntimeException e) {
+                bitmap.getAndAccumulate(word, bits, (current, lost) -> current | lost);
+                throw e;
+            }
+            return drained;
+        }
+
+        void finish() {
+            if (runStart < 0) { return; }
+            long start = runStart;
+            long end = runEnd;
+            runStart = -1;
+            runEnd = -1;
+            try {
+                forcer.force(start, end);
+            } catch (RuntimeException e) {
+                markDirty(start, end);
+                throw e;
+            }
+        }
+
+        /**
+         * Sets back the bits of the run not forced yet, after a failure.
+         */
+        void restore() {
+            if (runStart >= 0) { markDirty(runStart, runEnd); }
+            runStart = -1;
+            runEnd = -1;
+        }
+    }
+}
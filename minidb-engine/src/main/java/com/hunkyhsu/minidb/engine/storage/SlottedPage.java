@@ -0,0 +1,100 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Accessors for the slotted page format. The tuple count is the page's
+ * publication point: a tuple's bytes, its slot and the rest of the header are
+ * written first, then the count is bumped behind a release fence. A reader
+ * that loads the count through {@link #tupleCount} may use every slot below it.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 17:45
+ */
+public final class SlottedPage {
+    private SlottedPage() {}
+
+    public static int tupleCount(MMapFileChannel channel, int pageId) {
+        int count = channel.getInt(channel.pageStart(pageId) + PageLayout.PAGE_TUPLE_COUNT_OFFSET);
+        VarHandle.acquireFence();
+        return count;
+    }
+
+    public static long tuplePointer(MMapFileChannel channel, int pageId, int slot) {
+        return TuplePointer.pack(pageId, channel.getInt(slotOffset(channel, pageId, slot)));
+    }
+
+    /**
+     * True if a tuple is registered at {@code pointer}'s offset of its page,
+     * which a pointer into a page vacated since it was taken may no longer
+     * be.
+     */
+    public static boolean holds(MMapFileChannel channel, long pointer) {
+        int pageId = TuplePointer.getPageId(pointer);
+        int offset = TuplePointer.getOffset(pointer);
+        for (int slot = tupleCount(channel, pageId) - 1; slot >= 0; slot--) {
+            if (channel.getInt(slotOffset(channel, pageId, slot)) == offset) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Page offset just past the last tuple.
+     */
+    public static int freeStart(MMapFileChannel channel, int pageId) {
+        return channel.getInt(channel.pageStart(pageId) + PageLayout.PAGE_FREE_START_OFFSET);
+    }
+
+    public static long minXmin(MMapFileChannel channel, int pageId) {
+        return channel.getLong(channel.pageStart(pageId) + PageLayout.PAGE_MIN_XMIN_OFFSET);
+    }
+
+    public static long maxXmin(MMapFileChannel channel, int pageId) {
+        return channel.getLong(channel.pageStart(pageId) + PageLayout.PAGE_MAX_XMIN_OFFSET);
+    }
+
+    public static int flags(MMapFileChannel channel, int pageId) {
+        return channel.getInt(channel.pageStart(pageId) + PageLayout.PAGE_FLAGS_OFFSET);
+    }
+
+    /**
+     * Sets {@code flags} on the page header, keeping those already set.
+     */
+    static void addFlags(MMapFileChannel channel, int pageId, int flags) {
+        channel.write(channel.pageStart(pageId) + PageLayout.PAGE_FLAGS_OFFSET,
+                (page, index) -> page.putInt(index, page.getInt(index) | flags));
+    }
+
+    /**
+     * Adds the tuple already written at {@code tupleOffset} to its page's slot
+     * directory and header. Pages have a single writer, so no CAS is needed.
+     * A tuple at or below the page's free start is already registered, which
+     * keeps redo of a page that reached disk idempotent. The first tuple of a
+     * page clears its flags, which only a vacated page being reused has set.
+     */
+    static void register(MMapFileChannel channel, long tupleOffset, long xmin, int tupleSize) {
+        int pageSize = channel.getPageSize();
+        long pageStart = tupleOffset & -pageSize;
+        int inPage = (int) (tupleOffset - pageStart);
+        channel.write(pageStart, (page, base) -> {
+            if (inPage < page.getInt(base + PageLayout.PAGE_FREE_START_OFFSET)) { return; }
+            int count = page.getInt(base + PageLayout.PAGE_TUPLE_COUNT_OFFSET);
+            page.putInt(base + pageSize - (count + 1) * PageLayout.SLOT_SIZE, inPage);
+            page.putInt(base + PageLayout.PAGE_FREE_START_OFFSET, inPage + tupleSize);
+            if (count == 0 || xmin < page.getLong(base + PageLayout.PAGE_MIN_XMIN_OFFSET)) {
+                page.putLong(base + PageLayout.PAGE_MIN_XMIN_OFFSET, xmin);
+            }
+            if (count == 0 || xmin > page.getLong(base + PageLayout.PAGE_MAX_XMIN_OFFSET)) {
+                page.putLong(base + PageLayout.PAGE_MAX_XMIN_OFFSET, xmin);
+            }
+            if (count == 0) { page.putInt(base + PageLayout.PAGE_FLAGS_OFFSET, 0); }
+            VarHandle.releaseFence();
+            page.putInt(base + PageLayout.PAGE_TUPLE_COUNT_OFFSET, count + 1);
+        });
+    }
+
+    private static long slotOffset(MMapFileChannel channel, int pageId, int slot) {
+        return channel.pageStart(pageId + 1) - (long) (slot + 1) * PageLayout.SLOT_SIZE;
+    }
+}
@@ -0,0 +1,90 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Byte-addressed page storage underneath {@link MMapFileChannel}. Offsets are
+ * absolute file offsets; a single call never spans two pages, which is what
+ * lets a backend cache whole pages in independent frames.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 16:30
+ */
+public interface StorageBackend extends AutoCloseable {
+
+    /**
+     * Gives direct access to the page holding an offset: {@code index} is the
+     * position of that offset in {@code buffer}, and only the rest of its page
+     * may be touched. The buffer must not be retained after the call returns.
+     */
+    @FunctionalInterface
+    interface BufferAction {
+        void apply(ByteBuffer buffer, int index);
+    }
+
+    /**
+     * Size of the pages the file is divided into; no call spans two of them.
+     */
+    int getPageSize();
+
+    long getCapacity();
+
+    /**
+     * Grows the backing file until {@code endOffset} bytes are addressable.
+     */
+    void ensureCapacity(long endOffset);
+
+    long getLong(long offset);
+
+    int getInt(long offset);
+
+    void get(long offset, byte[] dst, int dstOffset, int length);
+
+    /**
+     * Runs {@code action} against the page holding {@code offset} for reading.
+     */
+    void read(long offset, BufferAction action);
+
+    /**
+     * Runs {@code action} against the page holding {@code offset} and marks
+     * the page dirty once it returns.
+     */
+    void write(long offset, BufferAction action);
+
+    /**
+     * Writes back and forces {@code [offset, offset + length)}.
+     */
+    void force(long offset, long length);
+
+    /**
+     * Writes back dirty pages until roughly {@code maxBytes} have been flushed.
+     *
+     * @return the number of bytes flushed
+     */
+    long flushDirty(long maxBytes);
+
+    long countDirtyPages();
+
+    /**
+     * Hints that {@code [offset, offset + length)} will be read soon.
+     */
+    void prefetch(long offset, long length);
+
+    /**
+     * Whether every page of {@code [offset, offset + length)} is likely in
+     * memory right now. A hint only: the answer may be stale on return.
+     */
+    boolean isResident(long offset, long length);
+
+    /**
+     * Takes the first-write faults of {@code [offset, offset + length)} on
+     * the calling thread, leaving the bytes unchanged, so writers that later
+     * land in the range do not fault.
+     */
+    void prefault(long offset, long length);
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,170 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The first page of every data file. It holds:
+ * <ul>
+ *   <li>the format version, page size and layout, fixed for the file's life;</li>
+ *   <li>the durable tail and the last checkpointed xid, so a restart only
+ *       re-validates what was appended since;</li>
+ *   <li>the offset below which every page carries its checksum;</li>
+ *   <li>the write-ahead log position recovery redoes this file from.</li>
+ * </ul>
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 10:12
+ */
+public final class Superblock {
+    public static final int MAGIC = 0x4D444231; // "MDB1"
+    public static final int FORMAT_VERSION = 4;
+    /** Versioned tuples behind the wide header: a full 8-byte xmin and a 4-byte length. */
+    public static final int VERSIONED_FORMAT_VERSION = 3;
+    /** Slotted pages whose tuples carry no version header, so they can only be appended to. */
+    public static final int SLOTTED_FORMAT_VERSION = 2;
+    /** Headerless pages with tuples packed back to back, ended by a zero xmin. */
+    public static final int LEGACY_FORMAT_VERSION = 1;
+    /** Whole tuples in slotted pages. Files written before the field existed read as this. */
+    public static final int LAYOUT_ROW = 0;
+    /** One table's fixed-width rows split into per-column minipages. */
+    public static final int LAYOUT_PAX = 1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int PAGE_SIZE_OFFSET = 8;
+    static final int LAYOUT_OFFSET = 12;
+    static final int TAIL_OFFSET = 16;
+    static final int XID_OFFSET = 24;
+    static final int CHECKSUM_OFFSET = 32;
+    static final int REDO_LSN_OFFSET = 40;
+    static final int USED_SIZE = 48;
+
+    private final MMapFileChannel channel;
+
+    public Superblock(MMapFileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * The page size recorded in the superblock of {@code file}, read before
+     * the file is mapped since the page size decides how it is mapped. A
+     * file that does not exist or was never formatted takes
+     * {@code pageSize}, so a configured size only ever applies to new files.
+     */
+    public static int probePageSize(Path file, int pageSize) throws IOException {
+        if (!Files.exists(file)) { return pageSize; }
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(LAYOUT_OFFSET);
+            while (header.hasRemaining()) {
+                if (fileChannel.read(header, header.position()) < 0) { return pageSize; }
+            }
+            return header.getInt(MAGIC_OFFSET) == MAGIC ? header.getInt(PAGE_SIZE_OFFSET) : pageSize;
+        }
+    }
+
+    public boolean isFormatted() {
+        return channel.getInt(MAGIC_OFFSET) == MAGIC;
+    }
+
+    /**
+     * Initializes an empty file. A file that carries data but no magic was
+     * written by the headerless layout and can not be adopted in place.
+     */
+    public void format() {
+        format(LAYOUT_ROW);
+    }
+
+    public void format(int layout) {
+        for (int i = 0; i < USED_SIZE; i += Long.BYTES) {
+            if (channel.getLong(i) != 0) {
+                throw new IllegalStateException("Unrecognized data file: missing superblock magic");
+            }
+        }
+        channel.putInt(VERSION_OFFSET, FORMAT_VERSION);
+        channel.putInt(PAGE_SIZE_OFFSET, channel.getPageSize());
+        channel.putInt(LAYOUT_OFFSET, layout);
+        channel.putLong(TAIL_OFFSET, getSize());
+        channel.putLong(XID_OFFSET, 0L);
+        channel.putLong(CHECKSUM_OFFSET, getSize());
+        channel.putLong(REDO_LSN_OFFSET, 0L);
+        channel.putInt(MAGIC_OFFSET, MAGIC);
+        channel.force(0, USED_SIZE);
+    }
+
+    public void validate() {
+        if (!isFormatted()) {
+            throw new IllegalStateException("Unrecognized data file: missing superblock magic");
+        }
+        int version = getFormatVersion();
+        if (version < LEGACY_FORMAT_VERSION || version > FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported format version: " + version);
+        }
+        int pageSize = getPageSize();
+        if (pageSize != channel.getPageSize()) {
+            throw new IllegalStateException("Page size mismatch: file has " + pageSize
+                    + ", channel opened with " + channel.getPageSize());
+        }
+    }
+
+    public int getFormatVersion() {
+        return channel.getInt(VERSION_OFFSET);
+    }
+
+    public int getLayout() {
+        return channel.getInt(LAYOUT_OFFSET);
+    }
+
+    public int getPageSize() {
+        return channel.getInt(PAGE_SIZE_OFFSET);
+    }
+
+    /**
+     * The superblock takes the whole first page, so data starts here.
+     */
+    public long getSize() {
+        return channel.getPageSize();
+    }
+
+    public long getTailWatermark() {
+        return channel.getLong(TAIL_OFFSET);
+    }
+
+    public long getCheckpointXid() {
+        return channel.getLong(XID_OFFSET);
+    }
+
+    /**
+     * Every page below this offset has been checksummed. Files written before
+     * the field existed read as having no checksums yet.
+     */
+    public long getChecksumWatermark() {
+        return Math.max(getSize(), channel.getLong(CHECKSUM_OFFSET));
+    }
+
+    /**
+     * Every write-ahead log record before this LSN is reflected in the
+     * forced pages of the file. Files written before the field existed read
+     * as 0, so recovery replays the whole log for them.
+     */
+    public long getRedoLsn() {
+        return channel.getLong(REDO_LSN_OFFSET);
+    }
+
+    public void writeCheckpoint(long tailWatermark, long checkpointXid, long checksumWatermark) {
+        writeCheckpoint(tailWatermark, checkpointXid, checksumWatermark, getRedoLsn());
+    }
+
+    public void writeCheckpoint(long tailWatermark, long checkpointXid, long checksumWatermark, long redoLsn) {
+        channel.putLong(TAIL_OFFSET, tailWatermark);
+        channel.putLong(XID_OFFSET, checkpointXid);
+        channel.putLong(CHECKSUM_OFFSET, checksumWatermark);
+        channel.putLong(REDO_LSN_OFFSET, redoLsn);
+        channel.force(0, USED_SIZE);
+    }
+}
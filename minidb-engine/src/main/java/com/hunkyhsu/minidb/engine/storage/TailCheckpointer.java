@@ -0,0 +1,54 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically checkpoints the tail of an {@link AppendOnlyTableStore} so a
+ * restart only re-validates the bytes written since the last interval.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 10:40
+ */
+public class TailCheckpointer implements AutoCloseable {
+    private final AppendOnlyTableStore store;
+    private final LongSupplier xidSupplier;
+    private final long intervalMillis;
+    private final BackgroundWorker worker;
+
+    public TailCheckpointer(AppendOnlyTableStore store, LongSupplier xidSupplier, long intervalMillis) {
+        this(store, xidSupplier, intervalMillis, null);
+    }
+
+    /**
+     * @param pool threads to run on, shared with other services; null for a
+     *             thread of its own
+     */
+    public TailCheckpointer(AppendOnlyTableStore store, LongSupplier xidSupplier, long intervalMillis,
+                            BackgroundPool pool) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + intervalMillis);
+        }
+        this.store = store;
+        this.xidSupplier = xidSupplier;
+        this.intervalMillis = intervalMillis;
+        this.worker = new BackgroundWorker("minidb-tail-checkpointer", pool);
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::checkpoint, intervalMillis, intervalMillis);
+    }
+
+    public void checkpoint() {
+        try {
+            store.checkpoint(xidSupplier);
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Tail checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        worker.shutdown();
+        checkpoint();
+    }
+}
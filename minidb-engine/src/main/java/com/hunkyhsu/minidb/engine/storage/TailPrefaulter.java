@@ -0,0 +1,92 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+
+/**
+ * Keeps a window of pages past the reserved tail of an
+ * {@link AppendOnlyTableStore} mapped and faulted in for writing, so growing
+ * the file and the first write to each page of a sparse file happen on this
+ * thread instead of an inserting one.
+ * <p>
+ * Optionally the window is also forced once it is faulted in, which makes
+ * the file system allocate its blocks now rather than at the first
+ * write-back of the writers' data.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 23:20
+ */
+public class TailPrefaulter implements AutoCloseable {
+    private final MMapFileChannel channel;
+    private final AppendOnlyTableStore store;
+    private final int windowPages;
+    private final long intervalMillis;
+    private final boolean preallocate;
+    private final BackgroundWorker worker;
+    // Only touched by the worker's tasks, which never overlap, or by callers of prefault() before start()
+    private long frontier;
+
+    public TailPrefaulter(MMapFileChannel channel, AppendOnlyTableStore store, int windowPages, long intervalMillis) {
+        this(channel, store, windowPages, intervalMillis, false);
+    }
+
+    /**
+     * @param windowPages how far past the reserved tail pages are kept ready
+     * @param preallocate whether to force each newly faulted range so its
+     *                    blocks are allocated on disk
+     */
+    public TailPrefaulter(MMapFileChannel channel, AppendOnlyTableStore store, int windowPages, long intervalMillis,
+                          boolean preallocate) {
+        this(channel, store, windowPages, intervalMillis, preallocate, null);
+    }
+
+    /**
+     * @param pool threads to run on, shared with other services; null for a
+     *             thread of its own
+     */
+    public TailPrefaulter(MMapFileChannel channel, AppendOnlyTableStore store, int windowPages, long intervalMillis,
+                          boolean preallocate, BackgroundPool pool) {
+        if (windowPages <= 0) {
+            throw new IllegalArgumentException("Prefault window must be positive: " + windowPages);
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Prefault interval must be positive: " + intervalMillis);
+        }
+        this.channel = channel;
+        this.store = store;
+        this.windowPages = windowPages;
+        this.intervalMillis = intervalMillis;
+        this.preallocate = preallocate;
+        this.worker = new BackgroundWorker("minidb-tail-prefaulter", pool);
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::prefault, 0, intervalMillis);
+    }
+
+    /**
+     * Extends the faulted window to {@code windowPages} past the current
+     * reserved tail. Pages the writers already reached are skipped.
+     *
+     * @return the number of bytes faulted in
+     */
+    public long prefault() {
+        try {
+            long tail = store.getReservedEndOffset();
+            long target = tail + (long) windowPages * channel.getPageSize();
+            long from = Math.max(frontier, tail);
+            if (from >= target) { return 0; }
+            channel.ensureCapacity(target);
+            channel.prefault(from, target - from);
+            if (preallocate) { channel.force(from, target - from); }
+            frontier = target;
+            return target - from;
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Tail prefault failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public void close() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a payload straight into the region reserved for it, so callers do
+ * not have to stage the row in a temporary buffer first.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 13:05
+ */
+@FunctionalInterface
+public interface TupleEncoder {
+    /**
+     * Encodes the payload with absolute puts into
+     * {@code [index, index + payloadLength)} of {@code target}. The target's
+     * position and limit must not be relied on or changed.
+     */
+    void encode(ByteBuffer target, int index);
+}
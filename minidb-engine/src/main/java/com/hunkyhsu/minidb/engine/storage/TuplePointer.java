@@ -9,6 +9,8 @@ public final class TuplePointer {
     private TuplePointer() {}
 
     private static final int PAGE_ID_SHIFT = 32;
+    /** No tuple: page 0 is the superblock, so no tuple ever lives at pointer 0. */
+    public static final long NONE = 0L;
 
     public static long pack(int pageId, int offset) {
         return (((long) pageId) << PAGE_ID_SHIFT) | (offset & 0xFFFFFFFFL);
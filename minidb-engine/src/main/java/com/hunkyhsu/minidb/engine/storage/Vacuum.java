@@ -0,0 +1,284 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import com.hunkyhsu.minidb.engine.transaction.WriteConflictException;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reclaims pages of an {@link AppendOnlyTableStore} that hold mostly dead
+ * tuples: versions whose creator aborted, or whose deleter committed below
+ * the oldest open snapshot.
+ * <p>
+ * A page whose tuples are all dead is vacated: its header is reset, so scans
+ * skip it, and once every snapshot that was open at that moment has ended it
+ * is handed back to the store, which refills it instead of growing the file.
+ * A page whose dead share reaches the threshold has its live tuples moved
+ * out by a vacuum transaction, through ordinary updates, so it can be
+ * vacated later; one transaction moves one page and commits at once, so it
+ * holds its tuples no longer than a short writer would. Snapshots older than
+ * that transaction keep reading the old copies and newer ones read the new
+ * ones, so readers never block and never see a row twice. As with any
+ * update, a moved row gets a new pointer and the old one leads to it through
+ * the version chain until its page is vacated. The transaction is a
+ * {@linkplain TransactionManager#beginMoverTransaction() mover}, so a writer
+ * whose snapshot predates it and updates an old copy stamps the new one
+ * instead of conflicting with it.
+ * <p>
+ * Given the table's {@link RowFormat}, a page is vacated only after the
+ * overflow chains of its deleted rows are freed. A chain a row's successor
+ * still references, as every moved row's does, stays with the successor.
+ * <p>
+ * Live tuples of compact pages whose creator committed are hinted as such
+ * in their flag bits, so scans skip the commit log for them.
+ * <p>
+ * Only pages sealed by a checkpoint are visited, since nothing is appended to
+ * them anymore.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 20:10
+ */
+public class Vacuum implements AutoCloseable {
+    private final AppendOnlyTableStore store;
+    private final MMapFileChannel channel;
+    private final TransactionManager txManager;
+    private final double deadRatio;
+    private final long intervalMillis;
+    private final BackgroundWorker worker;
+    private final AtomicLong pagesVacated = new AtomicLong();
+    private final AtomicLong tuplesMoved = new AtomicLong();
+    private final AtomicLong chunksFreed = new AtomicLong();
+    private final AtomicLong tuplesHinted = new AtomicLong();
+    private final RowFormat rowFormat;
+    // Vacated pages not yet handed back, oldest first, with the last xid assigned when they were vacated
+    private final ArrayDeque<VacatedPage> vacated = new ArrayDeque<>();
+    private final Set<Integer> vacatedIds = new HashSet<>();
+
+    public Vacuum(MMapFileChannel channel, AppendOnlyTableStore store, TransactionManager txManager,
+                  double deadRatio, long intervalMillis) {
+        this(channel, store, txManager, deadRatio, intervalMillis, null);
+    }
+
+    /**
+     * @param deadRatio share of a page's tuple bytes that must be dead before
+     *                  its live tuples are moved out, in {@code (0, 1]}; at 1
+     *                  tuples are never moved, as an overflow store needs
+     * @param rowFormat format of the store's rows, whose overflow chains are
+     *                  freed with them; null if they have none
+     */
+    public Vacuum(MMapFileChannel channel, AppendOnlyTableStore store, TransactionManager txManager,
+                  double deadRatio, long intervalMillis, RowFormat rowFormat) {
+        this(channel, store, txManager, deadRatio, intervalMillis, rowFormat, null);
+    }
+
+    /**
+     * @param pool threads to run on, shared with other services; null for a
+     *             thread of its own
+     */
+    public Vacuum(MMapFileChannel channel, AppendOnlyTableStore store, TransactionManager txManager,
+                  double deadRatio, long intervalMillis, RowFormat rowFormat, BackgroundPool pool) {
+        if (store.getFormatVersion() < Superblock.VERSIONED_FORMAT_VERSION) {
+            throw new IllegalArgumentException("Format version " + store.getFormatVersion() + " can not be vacuumed");
+        }
+        if (deadRatio <= 0 || deadRatio > 1) {
+            throw new IllegalArgumentException("Dead ratio must be in (0, 1]: " + deadRatio);
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Vacuum interval must be positive: " + intervalMillis);
+        }
+        this.channel = channel;
+        this.store = store;
+        this.txManager = txManager;
+        this.deadRatio = deadRatio;
+        this.intervalMillis = intervalMillis;
+        this.rowFormat = rowFormat;
+        this.worker = new BackgroundWorker("minidb-vacuum", pool);
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::runPass, intervalMillis, intervalMillis);
+    }
+
+    private void runPass() {
+        try {
+            vacuum();
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Vacuum pass failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hands back the pages vacated before the horizon, then makes one pass
+     * over the sealed pages.
+     *
+     * @return the number of pages vacated or compacted
+     */
+    public synchronized int vacuum() {
+        long horizon = txManager.getVacuumHorizon();
+        txManager.forgetMovers(horizon);
+        while (!vacated.isEmpty() && vacated.peek().xid() < horizon) {
+            int pageId = vacated.poll().pageId();
+            vacatedIds.remove(pageId);
+            store.freePage(pageId);
+        }
+        long end = Math.min(store.getSealedOffset(), store.getValidEndOffset());
+        int pages = 0;
+        for (long pageStart = store.getValidStartOffset(); pageStart < end; pageStart += store.getPageSize()) {
+            if (vacuumPage(channel.pageId(pageStart), horizon)) { pages++; }
+        }
+        return pages;
+    }
+
+    private boolean vacuumPage(int pageId, long horizon) {
+        if (!store.isSettled(pageId)) { return false; }
+        int count = SlottedPage.tupleCount(channel, pageId);
+        if (count == 0) {
+            // Vacated before a restart, or handed out and never written: free again
+            if ((SlottedPage.flags(channel, pageId) & PageLayout.PAGE_FLAG_VACATED) != 0) { track(pageId); }
+            return false;
+        }
+        long deadBytes = 0;
+        long usedBytes = 0;
+        for (int slot = 0; slot < count; slot++) {
+            long pointer = SlottedPage.tuplePointer(channel, pageId, slot);
+            int span = store.tupleSpan(pointer);
+            usedBytes += span;
+            long xmin = channel.readXmin(pointer);
+            if (txManager.isDead(xmin, store.readXmax(pointer), horizon)) {
+                deadBytes += span;
+            } else {
+                hintCommitted(pointer, xmin);
+            }
+        }
+        if (deadBytes == usedBytes) {
+            if (rowFormat != null && rowFormat.getOverflowStore() != null) { freeOverflowChains(pageId, count); }
+            store.vacatePage(pageId);
+            track(pageId);
+            pagesVacated.incrementAndGet();
+            return true;
+        }
+        if (deadBytes < deadRatio * usedBytes) { return false; }
+        return moveLiveTuples(pageId, count, horizon) > 0;
+    }
+
+    /**
+     * Frees the chains of the deleted rows of a page about to be vacated.
+     * An aborted row's chunks were written by its own transaction and are
+     * dead already; the chunks of a moved copy that aborted belong to the
+     * original, so neither is touched.
+     */
+    private void freeOverflowChains(int pageId, int count) {
+        OverflowStore overflow = rowFormat.getOverflowStore();
+        for (int slot = 0; slot < count; slot++) {
+            long pointer = SlottedPage.tuplePointer(channel, pageId, slot);
+            long xmin = channel.readXmin(pointer);
+            if (txManager.isAborted(xmin)) { continue; }
+            long[] chains = rowFormat.overflowChains(channel, pointer);
+            if (chains.length == 0) { continue; }
+            long xmax = store.readXmax(pointer);
+            long[] kept = successorChains(pointer, xmax);
+            if (kept == null) { continue; }
+            for (long chain : chains) {
+                if (!contains(kept, chain)) { chunksFreed.addAndGet(overflow.free(chain, xmin, xmax)); }
+            }
+        }
+    }
+
+    /**
+     * Chains the version that replaced the row at {@code pointer} references,
+     * or null if it can no longer be read. The successor was written by the
+     * row's deleter, so one whose xmin differs is gone, and with it the
+     * knowledge of whether a later version still shares the row's chains;
+     * they are then kept, at the cost of leaking them.
+     */
+    private long[] successorChains(long pointer, long xmax) {
+        long successor = store.readNextVersion(pointer);
+        if (successor == TuplePointer.NONE || !SlottedPage.holds(channel, successor)
+                || channel.readXmin(successor) != xmax) {
+            return successor == TuplePointer.NONE ? new long[0] : null;
+        }
+        return rowFormat.overflowChains(channel, successor);
+    }
+
+    private static boolean contains(long[] chains, long chain) {
+        for (long candidate : chains) {
+            if (candidate == chain) { return true; }
+        }
+        return false;
+    }
+
+    private void hintCommitted(long pointer, long xmin) {
+        if (!channel.hasCompactTuples()
+                || (channel.readTupleFlags(pointer) & PageLayout.TUPLE_FLAG_XMIN_COMMITTED) != 0
+                || !txManager.isCommitted(xmin)) {
+            return;
+        }
+        channel.addTupleFlags(pointer, PageLayout.TUPLE_FLAG_XMIN_COMMITTED);
+        tuplesHinted.incrementAndGet();
+    }
+
+    private void track(int pageId) {
+        if (vacatedIds.add(pageId)) { vacated.add(new VacatedPage(pageId, txManager.getLastAssignedXid())); }
+    }
+
+    /**
+     * Moves the settled live tuples of one page under a transaction of its
+     * own, committed once the page is done.
+     */
+    private int moveLiveTuples(int pageId, int count, long horizon) {
+        long moverXid = txManager.beginMoverTransaction();
+        TransactionContext mover = txManager.beginReadSnapshot(moverXid);
+        int moved = 0;
+        try {
+            for (int slot = 0; slot < count; slot++) {
+                long pointer = SlottedPage.tuplePointer(channel, pageId, slot);
+                long xmin = channel.readXmin(pointer);
+                long xmax = store.readXmax(pointer);
+                // Only settled tuples move: committed and not replaced, or moved, by anyone else
+                if (txManager.isDead(xmin, xmax, horizon) || !mover.isVisible(xmin)
+                        || (xmax != 0 && !txManager.isAborted(xmax))) {
+                    continue;
+                }
+                try {
+                    store.updateTuple(mover, pointer, channel.readPayload(pointer));
+                    moved++;
+                } catch (WriteConflictException e) {
+                    // A writer got there first; its new version lives elsewhere already
+                }
+            }
+        } catch (RuntimeException e) {
+            txManager.abortTransaction(moverXid);
+            throw e;
+        }
+        txManager.commitTransaction(moverXid);
+        tuplesMoved.addAndGet(moved);
+        return moved;
+    }
+
+    public long getPagesVacated() {
+        return pagesVacated.get();
+    }
+
+    public long getTuplesMoved() {
+        return tuplesMoved.get();
+    }
+
+    public long getChunksFreed() {
+        return chunksFreed.get();
+    }
+
+    public long getTuplesHinted() {
+        return tuplesHinted.get();
+    }
+
+    public void close() {
+        worker.shutdown();
+    }
+
+    private record VacatedPage(int pageId, long xid) {}
+}
@@ -0,0 +1,182 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.Type;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * In-memory min/max summary of every {@link Type#INT} column, per page.
+ * A page's single writer widens its summary before the tuple is published
+ * through the page's tuple count, so a reader that sees a tuple also sees a
+ * summary covering it. Pages without a summary are reported as possibly
+ * matching.
+ * <p>
+ * Pages written before the store was opened are not read up front: each is
+ * summarized the first time {@link #mayMatch} asks about it, so opening a
+ * large table costs nothing and only scanned pages are ever summarized.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 18:20
+ */
+public class ZoneMap {
+    private static final int PAGES_PER_CHUNK = 1024;
+
+    private final String[] columnNames;
+    private final int[] columnOffsets;
+    private final int summarySize;
+    private volatile AtomicReferenceArray<int[]> chunks;
+    // Pages [lazyStartPage, lazyEndPage) are summarized on first use; one bit each once done
+    private int lazyStartPage;
+    private int lazyEndPage;
+    private IntConsumer lazySummarizer;
+    private volatile AtomicLongArray lazyDone = new AtomicLongArray(0);
+
+    public ZoneMap(TableMetadata table) {
+        List<Column> intColumns = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            if (column.type() == Type.INT) { intColumns.add(column); }
+        }
+        this.columnNames = new String[intColumns.size()];
+        this.columnOffsets = new int[intColumns.size()];
+        for (int i = 0; i < intColumns.size(); i++) {
+            columnNames[i] = intColumns.get(i).columnName();
+            columnOffsets[i] = intColumns.get(i).offset();
+        }
+        // One min and one max per column
+        this.summarySize = 2 * columnOffsets.length;
+        this.chunks = new AtomicReferenceArray<>(16);
+    }
+
+    /**
+     * Index of an INT column in this zone map, for {@link #mayMatch}.
+     */
+    public int columnIndex(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(columnName)) { return i; }
+        }
+        throw new NoSuchElementException("No zone map for column: " + columnName);
+    }
+
+    /**
+     * Defers the summaries of the already written pages
+     * {@code [fromPage, toPage)}: {@code summarizer} is run on each, through
+     * {@link #include}, the first time it is consulted. Called once, before
+     * the zone map is shared.
+     */
+    void summarizeLazily(int fromPage, int toPage, IntConsumer summarizer) {
+        this.lazyStartPage = fromPage;
+        this.lazyEndPage = toPage;
+        this.lazySummarizer = summarizer;
+        this.lazyDone = new AtomicLongArray((Math.max(0, toPage - fromPage) + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * False only if no row on {@code pageId} can hold a value of column
+     * {@code columnIndex} within {@code [low, high]}.
+     */
+    public boolean mayMatch(int pageId, int columnIndex, int low, int high) {
+        if (pageId >= lazyStartPage && pageId < lazyEndPage) { summarizeOnce(pageId - lazyStartPage); }
+        int[] chunk = chunkIfPresent(pageId);
+        if (chunk == null) { return true; }
+        int base = (pageId % PAGES_PER_CHUNK) * summarySize + 2 * columnIndex;
+        int min = chunk[base];
+        int max = chunk[base + 1];
+        // An untouched summary has min > max and matches nothing
+        return min <= max && min <= high && max >= low;
+    }
+
+    /**
+     * Widens the summary of {@code pageId} with the payload at
+     * {@code buffer[index, index + length)}. A payload too short to hold a
+     * column widens that column to the full range.
+     */
+    void include(int pageId, ByteBuffer buffer, int index, int length) {
+        int[] chunk = chunk(pageId);
+        int base = (pageId % PAGES_PER_CHUNK) * summarySize;
+        for (int i = 0; i < columnOffsets.length; i++) {
+            int min = Integer.MIN_VALUE;
+            int max = Integer.MAX_VALUE;
+            if (columnOffsets[i] + Integer.BYTES <= length) {
+                min = max = buffer.getInt(index + columnOffsets[i]);
+            }
+            int slot = base + 2 * i;
+            if (min < chunk[slot]) { chunk[slot] = min; }
+            if (max > chunk[slot + 1]) { chunk[slot + 1] = max; }
+        }
+    }
+
+    /**
+     * Forgets the summary of a page about to be refilled from empty, before
+     * its first new tuple is included. A deferred page counts as summarized,
+     * since its old tuples are gone.
+     */
+    synchronized void resetPage(int pageId) {
+        if (pageId >= lazyStartPage && pageId < lazyEndPage) {
+            int lazyIndex = pageId - lazyStartPage;
+            lazyDone.getAndAccumulate(lazyIndex >>> 6, 1L << lazyIndex, (current, bit) -> current | bit);
+        }
+        int[] chunk = chunk(pageId);
+        int base = (pageId % PAGES_PER_CHUNK) * summarySize;
+        for (int i = base; i < base + summarySize; i += 2) {
+            chunk[i] = Integer.MAX_VALUE;
+            chunk[i + 1] = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Summarizes a deferred page unless that is done already. The bit is set
+     * only after the summary is complete, so a reader that sees it reads the
+     * whole summary.
+     */
+    private void summarizeOnce(int lazyIndex) {
+        AtomicLongArray done = lazyDone;
+        long mask = 1L << lazyIndex;
+        if ((done.get(lazyIndex >>> 6) & mask) != 0) { return; }
+        synchronized (this) {
+            if ((done.get(lazyIndex >>> 6) & mask) != 0) { return; }
+            lazySummarizer.accept(lazyStartPage + lazyIndex);
+            done.getAndAccumulate(lazyIndex >>> 6, mask, (current, bit) -> current | bit);
+        }
+    }
+
+    private int[] chunkIfPresent(int pageId) {
+        AtomicReferenceArray<int[]> current = chunks;
+        int chunkIndex = pageId / PAGES_PER_CHUNK;
+        return chunkIndex < current.length() ? current.get(chunkIndex) : null;
+    }
+
+    private int[] chunk(int pageId) {
+        int[] chunk = chunkIfPresent(pageId);
+        if (chunk != null) { return chunk; }
+        synchronized (this) {
+            int chunkIndex = pageId / PAGES_PER_CHUNK;
+            AtomicReferenceArray<int[]> current = chunks;
+            if (chunkIndex >= current.length()) {
+                AtomicReferenceArray<int[]> grown = new AtomicReferenceArray<>(Math.max(current.length() * 2, chunkIndex + 1));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                chunks = current = grown;
+            }
+            chunk = current.get(chunkIndex);
+            if (chunk == null) {
+                chunk = new int[PAGES_PER_CHUNK * summarySize];
+                for (int i = 0; i < chunk.length; i += 2) {
+                    chunk[i] = Integer.MAX_VALUE;
+                    chunk[i + 1] = Integer.MIN_VALUE;
+                }
+                current.set(chunkIndex, chunk);
+            }
+            return chunk;
+        }
+    }
+}
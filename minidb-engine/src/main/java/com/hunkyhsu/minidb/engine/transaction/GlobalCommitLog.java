@@ -1,8 +1,26 @@
 package com.hunkyhsu.minidb.engine.transaction;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
+ * Two status bits per xid, kept in fixed-size segments that are allocated
+ * as xids reach them. Xids survive restarts, so the log has no upper bound;
+ * an xid whose segment does not exist yet reads as {@link #IN_PROGRESS}.
+ * <p>
+ * {@link #save(Path)} writes the segments changed since the previous save
+ * in place, so a checkpoint can let the write-ahead log drop the commit and
+ * abort records it already covers. A status only ever moves from
+ * {@code IN_PROGRESS} to a final one, so a save torn by a crash still holds
+ * a state no older than the previous save, which recovery completes from
+ * the log.
+ *
  * @author hunkyhsu
  * @version 1.0
  * @date 2026/4/4 16:58
@@ -14,30 +32,181 @@ public class GlobalCommitLog {
 
     public static final int BITS_PER_ENTRY = 2;
     public static final int ENTRY_PER_LONG = Long.SIZE / BITS_PER_ENTRY;
+    // 64K xids, 16 KB of statuses, per segment
+    static final int SEGMENT_SHIFT = 16;
+    static final int XIDS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+    private static final int LONGS_PER_SEGMENT = XIDS_PER_SEGMENT / ENTRY_PER_LONG;
+    // One extra word per segment, non-zero once it changed since the last save
+    private static final int DIRTY_INDEX = LONGS_PER_SEGMENT;
+    private static final int SEGMENT_BYTES = LONGS_PER_SEGMENT * Long.BYTES;
+    private static final int MAGIC = 0x4D44424C;
+    // Magic and xids per segment
+    private static final int FILE_HEADER_SIZE = 2 * Integer.BYTES;
 
-    private final AtomicLongArray statesArray;
+    private volatile AtomicLongArray[] segments;
 
-    public GlobalCommitLog(int maxTransactions) {
-        int statesArraySize = (maxTransactions / ENTRY_PER_LONG) + 1;
-        statesArray = new AtomicLongArray(statesArraySize);
+    public GlobalCommitLog() {
+        this(XIDS_PER_SEGMENT);
+    }
+
+    /**
+     * @param initialTransactions xids the log has room for up front; it
+     *                            grows past them on demand
+     */
+    public GlobalCommitLog(int initialTransactions) {
+        int segmentCount = (int) (((long) Math.max(initialTransactions, 1) + XIDS_PER_SEGMENT - 1) >>> SEGMENT_SHIFT);
+        AtomicLongArray[] initial = new AtomicLongArray[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            initial[i] = new AtomicLongArray(LONGS_PER_SEGMENT + 1);
+        }
+        segments = initial;
     }
 
     public int getStatus(long xmin) {
-        int stateIndex = (int) (xmin / ENTRY_PER_LONG);
+        AtomicLongArray segment = findSegment(xmin);
+        if (segment == null) { return IN_PROGRESS; }
+        int stateIndex = (int) ((xmin & (XIDS_PER_SEGMENT - 1)) / ENTRY_PER_LONG);
         int stateOffset = (int) ((xmin % ENTRY_PER_LONG) * BITS_PER_ENTRY);
-        long states = statesArray.get(stateIndex);
+        long states = segment.get(stateIndex);
         return (int)((states >>> stateOffset) & 0b11);
     }
 
     public void setStatus(long xmin, int status) {
-        int stateIndex = (int) (xmin / ENTRY_PER_LONG);
+        AtomicLongArray segment = findSegment(xmin);
+        if (segment == null) {
+            if (status == IN_PROGRESS) { return; }
+            segment = createSegment(xmin);
+        }
+        int stateIndex = (int) ((xmin & (XIDS_PER_SEGMENT - 1)) / ENTRY_PER_LONG);
         int stateOffset = (int) ((xmin % ENTRY_PER_LONG) * BITS_PER_ENTRY);
         long currentStates;
         long newStates;
         do {
-            currentStates = statesArray.get(stateIndex);
+            currentStates = segment.get(stateIndex);
             long clearMask = ~(0b11L << stateOffset);
             newStates = (clearMask & currentStates) | (((long) status) << stateOffset);
-        } while (!statesArray.compareAndSet(stateIndex, currentStates, newStates));
+        } while (!segment.compareAndSet(stateIndex, currentStates, newStates));
+        // Marked after the update, so a save that clears the mark first is sure to read it
+        if (segment.get(DIRTY_INDEX) == 0) { segment.set(DIRTY_INDEX, 1); }
+    }
+
+    /**
+     * Number of xids the allocated segments cover.
+     */
+    public long getCapacity() {
+        return (long) segments.length << SEGMENT_SHIFT;
+    }
+
+    /**
+     * Writes every segment changed since the previous save to {@code file}
+     * and forces it. Concurrent status changes are allowed; those the save
+     * misses are written by the next one. Saves must not run concurrently.
+     */
+    public void save(Path file) throws IOException {
+        try {
+            writeDirtySegments(file);
+        } catch (IOException | RuntimeException e) {
+            // Segments whose marks were cleared may not have reached the file
+            for (AtomicLongArray segment : segments) {
+                if (segment != null) { segment.set(DIRTY_INDEX, 1); }
+            }
+            throw e;
+        }
+    }
+
+    private void writeDirtySegments(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < FILE_HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(XIDS_PER_SEGMENT).flip();
+                writeFully(channel, header, 0);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_BYTES);
+            AtomicLongArray[] current = segments;
+            for (int i = 0; i < current.length; i++) {
+                AtomicLongArray segment = current[i];
+                if (segment == null || segment.getAndSet(DIRTY_INDEX, 0) == 0) { continue; }
+                buffer.clear();
+                for (int word = 0; word < LONGS_PER_SEGMENT; word++) {
+                    buffer.putLong(segment.get(word));
+                }
+                writeFully(channel, buffer.flip(), FILE_HEADER_SIZE + (long) i * SEGMENT_BYTES);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads a log written by {@link #save(Path)}, or starts an empty one if
+     * {@code file} does not exist.
+     */
+    public static GlobalCommitLog load(Path file) throws IOException {
+        GlobalCommitLog clog = new GlobalCommitLog();
+        if (!Files.exists(file)) { return clog; }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != XIDS_PER_SEGMENT) {
+                throw new IOException("Unrecognized commit log file: " + file);
+            }
+            long segmentCount = (channel.size() - FILE_HEADER_SIZE + SEGMENT_BYTES - 1) / SEGMENT_BYTES;
+            if (segmentCount > Integer.MAX_VALUE) { throw new IOException("Commit log file too large: " + file); }
+            AtomicLongArray[] loaded = new AtomicLongArray[(int) Math.max(segmentCount, clog.segments.length)];
+            ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_BYTES);
+            for (int i = 0; i < segmentCount; i++) {
+                buffer.clear();
+                long position = FILE_HEADER_SIZE + (long) i * SEGMENT_BYTES;
+                buffer.limit((int) Math.min(SEGMENT_BYTES, channel.size() - position));
+                readFully(channel, buffer, position);
+                AtomicLongArray segment = new AtomicLongArray(LONGS_PER_SEGMENT + 1);
+                for (int word = 0; word < buffer.limit() / Long.BYTES; word++) {
+                    segment.set(word, buffer.getLong(word * Long.BYTES));
+                }
+                loaded[i] = segment;
+            }
+            for (int i = (int) segmentCount; i < loaded.length; i++) {
+                loaded[i] = new AtomicLongArray(LONGS_PER_SEGMENT + 1);
+            }
+            clog.segments = loaded;
+        }
+        return clog;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of commit log file");
+            }
+        }
+    }
+
+    private AtomicLongArray findSegment(long xmin) {
+        if (xmin < 0) { throw new IllegalArgumentException("Invalid xid: " + xmin); }
+        long index = xmin >>> SEGMENT_SHIFT;
+        AtomicLongArray[] current = segments;
+        return index < current.length ? current[(int) index] : null;
+    }
+
+    /**
+     * Publishes a copy of the directory holding the segment of
+     * {@code xmin}, grown to at least double its length when it is too
+     * short. Segments are shared between copies and those nobody wrote to
+     * stay unallocated.
+     */
+    private synchronized AtomicLongArray createSegment(long xmin) {
+        long index = xmin >>> SEGMENT_SHIFT;
+        if (index >= Integer.MAX_VALUE) { throw new IllegalStateException("Xid space exhausted: " + xmin); }
+        AtomicLongArray[] current = segments;
+        if (index < current.length && current[(int) index] != null) { return current[(int) index]; }
+        int length = (int) Math.max(current.length, Math.min(Integer.MAX_VALUE, Math.max(index + 1, 2L * current.length)));
+        AtomicLongArray[] grown = Arrays.copyOf(current, length);
+        grown[(int) index] = new AtomicLongArray(LONGS_PER_SEGMENT + 1);
+        segments = grown;
+        return grown[(int) index];
     }
 }
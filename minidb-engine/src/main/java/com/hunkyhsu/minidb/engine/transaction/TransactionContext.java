@@ -1,6 +1,7 @@
 package com.hunkyhsu.minidb.engine.transaction;
 
 import java.util.Arrays;
+import java.util.Set;
 
 /**
  * @author hunkyhsu
@@ -13,9 +14,19 @@ public class TransactionContext {
     private final long xmaxWatermark;
     private final long[] activeTxns;
     private final GlobalCommitLog cLog;
+    private final Set<Long> movers;
 
     public TransactionContext(long currentTxnId, long xminWatermark, long xmaxWatermark,
                               long[] activeTxns, GlobalCommitLog cLog) {
+        this(currentTxnId, xminWatermark, xmaxWatermark, activeTxns, cLog, Set.of());
+    }
+
+    /**
+     * @param movers xids of vacuum transactions that relocate tuples, as
+     *               {@link TransactionManager#beginMoverTransaction()} hands out
+     */
+    public TransactionContext(long currentTxnId, long xminWatermark, long xmaxWatermark,
+                              long[] activeTxns, GlobalCommitLog cLog, Set<Long> movers) {
         this.currentTxnId = currentTxnId;
         this.xminWatermark = xminWatermark;
         this.xmaxWatermark = xmaxWatermark;
@@ -24,6 +35,7 @@ public class TransactionContext {
         }
         this.activeTxns = activeTxns;
         this.cLog = cLog;
+        this.movers = movers;
     }
 
     public boolean isVisible(long xmin) {
@@ -42,6 +54,60 @@ public class TransactionContext {
         }
     }
 
+    /**
+     * Like {@link #isVisible(long)} for an xmin already known to have
+     * committed, as a tuple's hint bits can tell, so the commit log is not
+     * consulted.
+     */
+    public boolean isVisibleCommitted(long xmin) {
+        if (xmin == currentTxnId || xmin < xminWatermark) { return true; }
+        return xmin < xmaxWatermark && Arrays.binarySearch(activeTxns, xmin) < 0;
+    }
+
+    /**
+     * A tuple version is visible when its creator is and its deleter, if
+     * any, is not.
+     */
+    public boolean isVisible(long xmin, long xmax) {
+        return isVisible(xmin) && (xmax == 0 || !isVisible(xmax));
+    }
+
+    /**
+     * True if this transaction may stamp a tuple whose current xmax is
+     * {@code xmax}: nobody stamped it, whoever did has aborted, or a vacuum
+     * mover only relocated it. Any other stamp means another writer got
+     * there first.
+     */
+    public boolean canOverwrite(long xmax) {
+        if (xmax == 0) { return true; }
+        return xmax != currentTxnId && (cLog.getStatus(xmax) == GlobalCommitLog.ABORTED || isRelocation(xmax));
+    }
+
+    /**
+     * True if {@code xmax} is a committed vacuum mover: the tuple's contents
+     * live on unchanged in the copy its next-version pointer leads to, and
+     * that copy is the one a writer has to stamp.
+     */
+    public boolean isRelocation(long xmax) {
+        return movers.contains(xmax) && cLog.getStatus(xmax) == GlobalCommitLog.COMMITTED;
+    }
+
+    public long getCurrentTxnId() {
+        return currentTxnId;
+    }
+
+    public long getXminWatermark() {
+        return xminWatermark;
+    }
+
+    /**
+     * False only when no xmin in {@code [minXmin, maxXmin]} can be visible,
+     * which lets a scan skip a whole page from its header.
+     */
+    public boolean mayContainVisible(long minXmin, long maxXmin) {
+        return minXmin < xmaxWatermark || (currentTxnId >= minXmin && currentTxnId <= maxXmin);
+    }
+
     private static boolean isSorted(long[] txnArray) {
         for (int i = 1; i < txnArray.length; i++) {
             if (txnArray[i] < txnArray[i - 1]) {
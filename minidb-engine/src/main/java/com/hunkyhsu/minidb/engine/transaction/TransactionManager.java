@@ -1,6 +1,12 @@
 package com.hunkyhsu.minidb.engine.transaction;
 
+import com.hunkyhsu.minidb.engine.wal.Durability;
+import com.hunkyhsu.minidb.engine.wal.WriteAheadLog;
+
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -13,28 +19,137 @@ public class TransactionManager {
     private final GlobalCommitLog clog;
     private final AtomicLong nextXmin;
     private final ConcurrentSkipListSet<Long> activeTxns;
+    private final WriteAheadLog wal;
+    private final Durability defaultDurability;
+    private final Set<TransactionContext> openSnapshots;
+    // Log position each running write transaction started at; only kept with a log
+    private final ConcurrentHashMap<Long, Long> beginLsns;
+    // Vacuum movers, each with the first xid assigned after it committed, or Long.MAX_VALUE while it runs
+    private final ConcurrentHashMap<Long, Long> movers;
+
+    public static final long FIRST_XID = 1000L;
 
     public TransactionManager(GlobalCommitLog clog) {
+        this(clog, FIRST_XID);
+    }
+
+    public TransactionManager(GlobalCommitLog clog, long firstXid) {
+        this(clog, firstXid, null, Durability.NONE);
+    }
+
+    /**
+     * @param wal when non-null, commits and aborts are logged and commits
+     *            complete according to their {@link Durability}
+     */
+    public TransactionManager(GlobalCommitLog clog, long firstXid, WriteAheadLog wal, Durability defaultDurability) {
         this.clog = clog;
-        this.nextXmin = new AtomicLong(1000L);
+        this.wal = wal;
+        this.defaultDurability = defaultDurability;
+        this.nextXmin = new AtomicLong(Math.max(FIRST_XID, firstXid));
         this.activeTxns = new ConcurrentSkipListSet<>();
+        this.openSnapshots = ConcurrentHashMap.newKeySet();
+        this.beginLsns = new ConcurrentHashMap<>();
+        this.movers = new ConcurrentHashMap<>();
     }
 
     public long beginWriteTransaction() {
         long xmin = nextXmin.getAndIncrement();
+        if (wal != null) { beginLsns.put(xmin, wal.getAppendedLsn()); }
         activeTxns.add(xmin);
         clog.setStatus(xmin, GlobalCommitLog.IN_PROGRESS);
         return xmin;
     }
 
+    /**
+     * Begins a write transaction that only relocates tuples. Once it commits,
+     * writers whose snapshots predate it stamp the copies it made instead of
+     * failing with a write conflict on the originals.
+     */
+    public long beginMoverTransaction() {
+        long xmin = beginWriteTransaction();
+        movers.put(xmin, Long.MAX_VALUE);
+        return xmin;
+    }
+
     public void commitTransaction(long xmin) {
+        commitTransaction(xmin, defaultDurability).join();
+    }
+
+    /**
+     * Logs the commit and returns a future that completes once the commit is
+     * as durable as requested. A {@link Durability#SYNC} commit only becomes
+     * visible after its record is on disk, so readers never observe a commit
+     * that a crash could undo; weaker levels are visible immediately.
+     */
+    public CompletableFuture<Void> commitTransaction(long xmin, Durability durability) {
+        if (wal == null) {
+            markCommitted(xmin);
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> logged = wal.logCommit(xmin, durability);
+        if (durability == Durability.SYNC) {
+            return logged.thenRun(() -> markCommitted(xmin));
+        }
+        markCommitted(xmin);
+        return logged;
+    }
+
+    private void markCommitted(long xmin) {
         clog.setStatus(xmin, GlobalCommitLog.COMMITTED);
         activeTxns.remove(xmin);
+        beginLsns.remove(xmin);
+        // Transactions from here on see the mover committed, so they never reach its originals
+        movers.computeIfPresent(xmin, (mover, seenFrom) -> nextXmin.get());
     }
 
     public void abortTransaction(long xmin) {
+        if (wal != null) { wal.logAbort(xmin); }
         clog.setStatus(xmin, GlobalCommitLog.ABORTED);
         activeTxns.remove(xmin);
+        beginLsns.remove(xmin);
+        movers.remove(xmin);
+    }
+
+    /**
+     * Forgets the movers every writer already sees as committed: those whose
+     * commit precedes the start of the oldest write transaction still
+     * running and of every open snapshot.
+     */
+    public void forgetMovers(long horizon) {
+        movers.values().removeIf(seenFrom -> seenFrom <= horizon);
+    }
+
+    /**
+     * The log position a restart has to redo from if the commit log and
+     * every table were checkpointed now: the current end of the log, or the
+     * start of the oldest write transaction still running. Every record
+     * before it belongs to a transaction whose pages are written and whose
+     * status is already in the commit log, so neither has to come from the
+     * log again. Read it before saving the commit log and forcing the tables.
+     */
+    public long getRedoLsn() {
+        if (wal == null) { throw new IllegalStateException("No write-ahead log to checkpoint"); }
+        long redoLsn = wal.getAppendedLsn();
+        for (long beginLsn : beginLsns.values()) {
+            redoLsn = Math.min(redoLsn, beginLsn);
+        }
+        return redoLsn;
+    }
+
+    public boolean isActive(long xid) {
+        return activeTxns.contains(xid);
+    }
+
+    public boolean isCommitted(long xid) {
+        return clog.getStatus(xid) == GlobalCommitLog.COMMITTED;
+    }
+
+    public boolean isAborted(long xid) {
+        return clog.getStatus(xid) == GlobalCommitLog.ABORTED;
+    }
+
+    public long getLastAssignedXid() {
+        return nextXmin.get() - 1;
     }
 
     public TransactionContext beginReadSnapshot(long currentTxnId) {
@@ -48,6 +163,53 @@ public class TransactionManager {
         long[] activeArray = activeTxns.subSet(xminWatermark, true,
                         xmaxWatermark, false)
                         .stream().mapToLong(Long::longValue).toArray();
-        return new TransactionContext(currentTxnId, xminWatermark, xmaxWatermark, activeArray, clog);
+        return new TransactionContext(currentTxnId, xminWatermark, xmaxWatermark, activeArray, clog, movers.keySet());
+    }
+
+    /**
+     * Like {@link #beginReadSnapshot(long)}, but the snapshot holds back the
+     * vacuum horizon until {@link #releaseSnapshot} is called, so nothing it
+     * can see is reclaimed under it.
+     */
+    public TransactionContext openSnapshot(long currentTxnId) {
+        synchronized (openSnapshots) {
+            TransactionContext snapshot = beginReadSnapshot(currentTxnId);
+            openSnapshots.add(snapshot);
+            return snapshot;
+        }
+    }
+
+    public void releaseSnapshot(TransactionContext snapshot) {
+        openSnapshots.remove(snapshot);
+    }
+
+    /**
+     * Every xid below the horizon has finished, and every open snapshot sees
+     * each of them with its final status. Computed under the same lock as
+     * {@link #openSnapshot}, so a snapshot opened afterwards starts at or
+     * above it.
+     */
+    public long getVacuumHorizon() {
+        synchronized (openSnapshots) {
+            long horizon = nextXmin.get();
+            try {
+                if (!activeTxns.isEmpty()) { horizon = Math.min(horizon, activeTxns.first()); }
+            } catch (NoSuchElementException e) {
+                // Drained concurrently
+            }
+            for (TransactionContext snapshot : openSnapshots) {
+                horizon = Math.min(horizon, snapshot.getXminWatermark());
+            }
+            return horizon;
+        }
+    }
+
+    /**
+     * True if no snapshot at or above {@code horizon} can see the version:
+     * its creator aborted, or its deleter committed below the horizon.
+     */
+    public boolean isDead(long xmin, long xmax, long horizon) {
+        if (isAborted(xmin)) { return true; }
+        return xmax != 0 && xmax < horizon && clog.getStatus(xmax) == GlobalCommitLog.COMMITTED;
     }
 }
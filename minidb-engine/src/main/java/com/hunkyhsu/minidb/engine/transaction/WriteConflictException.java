@@ -0,0 +1,25 @@
+package com.hunkyhsu.minidb.engine.transaction;
+
+/**
+ * Thrown when a transaction tries to update or delete a tuple version that a
+ * concurrent transaction has already stamped. The first updater wins; the
+ * loser is expected to abort and retry.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 19:40
+ */
+public class WriteConflictException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final long holderXid;
+
+    public WriteConflictException(long pointer, long holderXid) {
+        super("Tuple " + Long.toHexString(pointer) + " was already updated by transaction " + holderXid);
+        this.holderXid = holderXid;
+    }
+
+    public long getHolderXid() {
+        return holderXid;
+    }
+}
@@ -0,0 +1,17 @@
+package com.hunkyhsu.minidb.engine.wal;
+
+/**
+ * How long a commit waits before its future completes.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:02
+ */
+public enum Durability {
+    /** Completes once the commit record is fsynced; survives power loss. */
+    SYNC,
+    /** Completes once the commit record is written to the OS; survives a process crash. */
+    ASYNC,
+    /** Completes immediately; the record is written with the next flush. */
+    NONE
+}
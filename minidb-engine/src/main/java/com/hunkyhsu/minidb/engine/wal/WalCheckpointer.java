@@ -0,0 +1,95 @@
+package com.hunkyhsu.minidb.engine.wal;
+
+import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
+import com.hunkyhsu.minidb.engine.storage.BackgroundPool;
+import com.hunkyhsu.minidb.engine.storage.BackgroundWorker;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Periodically bounds the work of the next restart: saves the commit log,
+ * forces every table with the current redo LSN, then deletes the log
+ * segments that all of them have moved past. Recovery loads the saved commit
+ * log and replays only from the lowest redo LSN among the tables.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:45
+ */
+public class WalCheckpointer implements AutoCloseable {
+    private final WriteAheadLog wal;
+    private final TransactionManager txManager;
+    private final GlobalCommitLog clog;
+    private final Path clogFile;
+    private final Supplier<? extends Collection<AppendOnlyTableStore>> stores;
+    private final long intervalMillis;
+    private final BackgroundWorker worker;
+
+    /**
+     * @param stores every table logged to {@code wal}, asked afresh on each
+     *               checkpoint so tables created meanwhile are included
+     */
+    public WalCheckpointer(WriteAheadLog wal, TransactionManager txManager, GlobalCommitLog clog, Path clogFile,
+                           Supplier<? extends Collection<AppendOnlyTableStore>> stores, long intervalMillis) {
+        this(wal, txManager, clog, clogFile, stores, intervalMillis, null);
+    }
+
+    /**
+     * @param pool threads to run on, shared with other services; null for a
+     *             thread of its own
+     */
+    public WalCheckpointer(WriteAheadLog wal, TransactionManager txManager, GlobalCommitLog clog, Path clogFile,
+                           Supplier<? extends Collection<AppendOnlyTableStore>> stores, long intervalMillis,
+                           BackgroundPool pool) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + intervalMillis);
+        }
+        this.wal = wal;
+        this.txManager = txManager;
+        this.clog = clog;
+        this.clogFile = clogFile;
+        this.stores = stores;
+        this.intervalMillis = intervalMillis;
+        this.worker = new BackgroundWorker("minidb-wal-checkpointer", pool);
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::runCheckpoint, intervalMillis, intervalMillis);
+    }
+
+    /**
+     * The redo LSN is read first, so the saved commit log and the forced
+     * pages cover every record before it. A table stamps it only after the
+     * commit log is on disk, and the log is cut only after every table did.
+     *
+     * @return the LSN the log now starts being needed from
+     */
+    public synchronized long checkpoint() throws IOException {
+        long redoLsn = txManager.getRedoLsn();
+        clog.save(clogFile);
+        long needed = redoLsn;
+        for (AppendOnlyTableStore store : stores.get()) {
+            store.checkpoint(txManager::getLastAssignedXid, redoLsn);
+            needed = Math.min(needed, store.getRedoLsn());
+        }
+        wal.truncate(needed);
+        return needed;
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Log checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        worker.shutdown();
+    }
+}
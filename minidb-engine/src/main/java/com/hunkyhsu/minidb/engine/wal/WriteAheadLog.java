@@ -0,0 +1,545 @@
+package com.hunkyhsu.minidb.engine.wal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * A sequential redo log with group commit. Appenders copy records into an
+ * in-memory buffer under a short lock; a single flusher thread swaps the
+ * buffer out, writes it with one system call and, when any committer asked
+ * for it, issues one fsync that covers every commit in the batch.
+ * <p>
+ * Record layout: {@code [int bodyLength][int crc32c(body)][body]}, where the
+ * body is {@code [byte type][long xid]} followed, for inserts, by
+ * {@code [int tableOid][long pointer][payload]} and, for deletes, by
+ * {@code [int tableOid][long pointer][long nextVersion]}. The LSN of a record is the log offset of
+ * its end.
+ * <p>
+ * The log is kept in segments. Records are appended to the live segment at
+ * the configured path; once it reaches the segment size it is forced and
+ * renamed to {@code <path>.<base LSN in hex>}, and a new live segment starts
+ * at the next LSN. {@link #truncate(long)} deletes the segments a checkpoint
+ * made redundant, so the log only holds what a restart may have to redo.
+ * <p>
+ * Lifecycle: construct, {@link #replay(ReplayHandler, long)} once, {@link #start()},
+ * then append; {@link #close()} drains and syncs everything.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:05
+ */
+public class WriteAheadLog implements AutoCloseable {
+    public static final byte INSERT = 1;
+    public static final byte COMMIT = 2;
+    public static final byte ABORT = 3;
+    public static final byte DELETE = 4;
+
+    static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    static final int BODY_PREFIX_SIZE = Byte.BYTES + Long.BYTES;
+    static final int TABLE_PREFIX_SIZE = BODY_PREFIX_SIZE + Integer.BYTES;
+    static final int INSERT_PREFIX_SIZE = TABLE_PREFIX_SIZE + Long.BYTES;
+    static final int DELETE_BODY_SIZE = TABLE_PREFIX_SIZE + 2 * Long.BYTES;
+    private static final int INITIAL_BUFFER_SIZE = 1 << 20;
+    private static final int MAX_BODY_SIZE = 1 << 30;
+    public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    private final Path path;
+    private final long segmentSize;
+    private final long syncIntervalNanos;
+    private final Object segmentLock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private final ArrayDeque<Waiter> writeWaiters = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> syncWaiters = new ArrayDeque<>();
+    private final Thread flusher;
+
+    private FileChannel fileChannel;
+    // LSN of the first byte of the live segment
+    private long segmentBase;
+    private ByteBuffer activeBuffer;
+    private ByteBuffer flushingBuffer;
+    private volatile long appendedLsn;
+    private boolean syncRequested;
+    private boolean replayed;
+    private volatile boolean running;
+    private volatile long writtenLsn;
+    private volatile long durableLsn;
+    private volatile long syncCount;
+    private volatile IOException failure;
+
+    public WriteAheadLog(String filePath, long syncIntervalMillis) throws IOException {
+        this(filePath, syncIntervalMillis, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize size past which the live segment is retired and a
+     *                    new one started; a segment ends on a batch boundary,
+     *                    so it may run slightly over
+     */
+    public WriteAheadLog(String filePath, long syncIntervalMillis, long segmentSize) throws IOException {
+        if (syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive: " + syncIntervalMillis);
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        }
+        this.path = Paths.get(filePath);
+        this.segmentSize = segmentSize;
+        Path parentPath = path.getParent();
+        if (parentPath != null) {
+            File parentFile = parentPath.toFile();
+            if (!Files.exists(parentPath) && !parentFile.mkdirs()) {
+                throw new IOException("Can not create directory: " + parentPath);
+            }
+        }
+        // A crash between retiring a segment and creating the next leaves no live segment; it starts empty
+        List<Segment> archived = archivedSegments();
+        this.segmentBase = archived.isEmpty() ? 0 : archived.get(archived.size() - 1).end();
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.activeBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.flushingBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.flusher = new Thread(this::flushLoop, "minidb-wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Receives the records found by {@link #replay(ReplayHandler)}, in log order.
+     */
+    public interface ReplayHandler {
+        void onInsert(long xid, int tableOid, long pointer, ByteBuffer payload);
+        void onDelete(long xid, int tableOid, long pointer, long nextVersion);
+        void onCommit(long xid);
+        void onAbort(long xid);
+    }
+
+    /**
+     * Reads every intact record from the start of the log. Equivalent to
+     * {@code replay(handler, 0)}.
+     */
+    public long replay(ReplayHandler handler) throws IOException {
+        return replay(handler, 0);
+    }
+
+    /**
+     * Reads every intact record that ends after {@code fromLsn}, which must
+     * be a record boundary such as a checkpoint LSN, stopping at the first
+     * truncated or corrupt one in the live segment and cutting the segment
+     * there so new records follow the last good one. Retired segments were
+     * forced before they were renamed, so damage in one is an error.
+     *
+     * @return the LSN appends will continue from
+     */
+    public long replay(ReplayHandler handler, long fromLsn) throws IOException {
+        if (running) { throw new IllegalStateException("Replay must run before start()"); }
+        for (Segment segment : archivedSegments()) {
+            if (segment.end() <= fromLsn) { continue; }
+            try (FileChannel archive = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                long size = archive.size();
+                long start = Math.max(fromLsn - segment.base(), 0);
+                if (scan(archive, start, size, handler) != size) {
+                    throw new IOException("Corrupt log segment: " + segment.path());
+                }
+            }
+        }
+        long size = fileChannel.size();
+        long start = Math.min(Math.max(fromLsn - segmentBase, 0), size);
+        long position = scan(fileChannel, start, size, handler);
+        fileChannel.truncate(position);
+        fileChannel.position(position);
+        fileChannel.force(true);
+        appendedLsn = segmentBase + position;
+        writtenLsn = appendedLsn;
+        durableLsn = appendedLsn;
+        replayed = true;
+        return appendedLsn;
+    }
+
+    /**
+     * Dispatches the intact records of {@code channel} from
+     * {@code position} on.
+     *
+     * @return the end of the last intact record
+     */
+    private long scan(FileChannel channel, long position, long size, ReplayHandler handler) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        ByteBuffer body = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            int bodyLength = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            if (bodyLength < BODY_PREFIX_SIZE || bodyLength > MAX_BODY_SIZE
+                    || position + RECORD_HEADER_SIZE + bodyLength > size) {
+                break;
+            }
+            if (body.capacity() < bodyLength) { body = ByteBuffer.allocate(bodyLength); }
+            body.clear().limit(bodyLength);
+            readFully(channel, body, position + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(body.array(), 0, bodyLength);
+            if ((int) crc.getValue() != checksum) { break; }
+            if (handler != null) { dispatch(handler, body, bodyLength); }
+            position += RECORD_HEADER_SIZE + bodyLength;
+        }
+        return position;
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of log: " + path);
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void dispatch(ReplayHandler handler, ByteBuffer body, int bodyLength) {
+        byte type = body.get(0);
+        long xid = body.getLong(Byte.BYTES);
+        switch (type) {
+            case INSERT -> {
+                int tableOid = body.getInt(BODY_PREFIX_SIZE);
+                long pointer = body.getLong(TABLE_PREFIX_SIZE);
+                handler.onInsert(xid, tableOid, pointer, body.duplicate().position(INSERT_PREFIX_SIZE).limit(bodyLength).slice());
+            }
+            case DELETE -> handler.onDelete(xid, body.getInt(BODY_PREFIX_SIZE), body.getLong(TABLE_PREFIX_SIZE),
+                    body.getLong(TABLE_PREFIX_SIZE + Long.BYTES));
+            case COMMIT -> handler.onCommit(xid);
+            case ABORT -> handler.onAbort(xid);
+            default -> throw new IllegalStateException("Unknown log record type: " + type);
+        }
+    }
+
+    public void start() throws IOException {
+        if (!replayed) { replay(null); }
+        running = true;
+        flusher.start();
+    }
+
+    public long logInsert(long xid, int tableOid, long pointer, byte[] payload, int offset, int length) {
+        lock.lock();
+        try {
+            int start = beginRecord(INSERT, xid, INSERT_PREFIX_SIZE + length);
+            activeBuffer.putInt(tableOid);
+            activeBuffer.putLong(pointer);
+            activeBuffer.put(payload, offset, length);
+            return endRecord(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs {@code [index, index + length)} of {@code payload} without changing
+     * its position, so the source may be a mapped page.
+     */
+    public long logInsert(long xid, int tableOid, long pointer, ByteBuffer payload, int index, int length) {
+        lock.lock();
+        try {
+            int start = beginRecord(INSERT, xid, INSERT_PREFIX_SIZE + length);
+            activeBuffer.putInt(tableOid);
+            activeBuffer.putLong(pointer);
+            activeBuffer.put(activeBuffer.position(), payload, index, length);
+            activeBuffer.position(activeBuffer.position() + length);
+            return endRecord(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs {@code xid} stamping the tuple at {@code pointer} as deleted;
+     * {@code nextVersion} is the version that replaces it, or 0.
+     */
+    public long logDelete(long xid, int tableOid, long pointer, long nextVersion) {
+        lock.lock();
+        try {
+            int start = beginRecord(DELETE, xid, DELETE_BODY_SIZE);
+            activeBuffer.putInt(tableOid);
+            activeBuffer.putLong(pointer);
+            activeBuffer.putLong(nextVersion);
+            return endRecord(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long logAbort(long xid) {
+        lock.lock();
+        try {
+            return endRecord(beginRecord(ABORT, xid, BODY_PREFIX_SIZE));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a commit record. The returned future completes according to
+     * {@code durability}; concurrent {@link Durability#SYNC} commits are
+     * acknowledged together by the next fsync.
+     */
+    public CompletableFuture<Void> logCommit(long xid, Durability durability) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            long lsn = endRecord(beginRecord(COMMIT, xid, BODY_PREFIX_SIZE));
+            switch (durability) {
+                case SYNC -> {
+                    syncWaiters.add(new Waiter(lsn, future));
+                    syncRequested = true;
+                    flushNeeded.signal();
+                }
+                case ASYNC -> {
+                    writeWaiters.add(new Waiter(lsn, future));
+                    flushNeeded.signal();
+                }
+                case NONE -> future.complete(null);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    private int beginRecord(byte type, long xid, int bodyLength) {
+        if (failure != null) { throw new UncheckedIOException("Write-ahead log failed: " + path, failure); }
+        if (!running) { throw new IllegalStateException("Write-ahead log is not running: " + path); }
+        int required = RECORD_HEADER_SIZE + bodyLength;
+        if (activeBuffer.remaining() < required) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(activeBuffer.capacity() * 2, activeBuffer.position() + required));
+            grown.put(activeBuffer.flip());
+            activeBuffer = grown;
+        }
+        int start = activeBuffer.position();
+        activeBuffer.putInt(bodyLength);
+        activeBuffer.putInt(0);
+        activeBuffer.put(type);
+        activeBuffer.putLong(xid);
+        return start;
+    }
+
+    private long endRecord(int start) {
+        int bodyStart = start + RECORD_HEADER_SIZE;
+        int bodyLength = activeBuffer.position() - bodyStart;
+        crc.reset();
+        crc.update(activeBuffer.array(), bodyStart, bodyLength);
+        activeBuffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        appendedLsn += RECORD_HEADER_SIZE + bodyLength;
+        return appendedLsn;
+    }
+
+    private void flushLoop() {
+        long lastSync = System.nanoTime();
+        while (true) {
+            long target;
+            boolean sync;
+            lock.lock();
+            try {
+                while (running && activeBuffer.position() == 0 && !syncRequested
+                        && !(durableLsn < writtenLsn && System.nanoTime() - lastSync >= syncIntervalNanos)) {
+                    flushNeeded.awaitNanos(syncIntervalNanos);
+                }
+                if (!running && activeBuffer.position() == 0 && durableLsn == writtenLsn) { return; }
+                ByteBuffer swapped = flushingBuffer;
+                flushingBuffer = activeBuffer;
+                activeBuffer = swapped;
+                target = appendedLsn;
+                sync = syncRequested || !running || System.nanoTime() - lastSync >= syncIntervalNanos;
+                syncRequested = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                if (writtenLsn - segmentBase >= segmentSize) { retireSegment(); }
+                flushingBuffer.flip();
+                while (flushingBuffer.hasRemaining()) {
+                    fileChannel.write(flushingBuffer);
+                }
+                flushingBuffer.clear();
+                writtenLsn = target;
+                completeWaiters(writeWaiters, target);
+                if (sync) {
+                    fileChannel.force(false);
+                    syncCount++;
+                    lastSync = System.nanoTime();
+                    durableLsn = target;
+                    completeWaiters(syncWaiters, target);
+                }
+            } catch (IOException e) {
+                failure = e;
+                failWaiters(e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forces the live segment, renames it after its base LSN and starts an
+     * empty one at {@code writtenLsn}. Runs on the flusher between batches.
+     */
+    private void retireSegment() throws IOException {
+        synchronized (segmentLock) {
+            fileChannel.force(false);
+            fileChannel.close();
+            Files.move(path, archivePath(segmentBase), StandardCopyOption.ATOMIC_MOVE);
+            fileChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            segmentBase = writtenLsn;
+        }
+    }
+
+    /**
+     * Deletes the retired segments that end at or before {@code lsn}, which
+     * recovery will no longer read once every table has checkpointed past
+     * it. The newest retired segment is kept, since it fixes where the live
+     * one starts.
+     *
+     * @return the number of segments deleted
+     */
+    public int truncate(long lsn) throws IOException {
+        synchronized (segmentLock) {
+            List<Segment> archived = archivedSegments();
+            int deleted = 0;
+            for (int i = 0; i < archived.size() - 1 && archived.get(i).end() <= lsn; i++) {
+                Files.delete(archived.get(i).path());
+                deleted++;
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * The retired segments in LSN order, each ending where the next begins.
+     */
+    private List<Segment> archivedSegments() throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        List<long[]> found = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path entry : entries) {
+                String suffix = entry.getFileName().toString().substring(prefix.length());
+                if (suffix.length() != 16) { continue; }
+                try {
+                    found.add(new long[] {Long.parseUnsignedLong(suffix, 16), Files.size(entry)});
+                } catch (NumberFormatException e) {
+                    // Not a segment
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(entry -> entry[0]));
+        List<Segment> segments = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            long base = found.get(i)[0];
+            long end = base + found.get(i)[1];
+            if (i + 1 < found.size() && found.get(i + 1)[0] != end) {
+                throw new IOException("Log segments are not contiguous at LSN " + end + ": " + path);
+            }
+            segments.add(new Segment(archivePath(base), base, end));
+        }
+        return segments;
+    }
+
+    private Path archivePath(long base) {
+        return path.resolveSibling(path.getFileName() + "." + String.format("%016x", base));
+    }
+
+    private void completeWaiters(ArrayDeque<Waiter> waiters, long lsn) {
+        List<CompletableFuture<Void>> completed = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!waiters.isEmpty() && waiters.peekFirst().lsn() <= lsn) {
+                completed.add(waiters.pollFirst().future());
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (CompletableFuture<Void> future : completed) {
+            future.complete(null);
+        }
+    }
+
+    private void failWaiters(IOException e) {
+        List<Waiter> failed = new ArrayList<>();
+        lock.lock();
+        try {
+            failed.addAll(writeWaiters);
+            failed.addAll(syncWaiters);
+            writeWaiters.clear();
+            syncWaiters.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter waiter : failed) {
+            waiter.future().completeExceptionally(new UncheckedIOException("Write-ahead log failed: " + path, e));
+        }
+    }
+
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    public long getWrittenLsn() {
+        return writtenLsn;
+    }
+
+    /**
+     * LSN the next record will end after; every record appended so far ends
+     * at or before it.
+     */
+    public long getAppendedLsn() {
+        return appendedLsn;
+    }
+
+    /**
+     * Number of fsyncs issued by the flusher; with group commit this stays
+     * well below the number of durable commits.
+     */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            running = false;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fileChannel.close();
+        if (failure != null) { throw failure; }
+    }
+
+    private record Waiter(long lsn, CompletableFuture<Void> future) { }
+
+    private record Segment(Path path, long base, long end) { }
+}
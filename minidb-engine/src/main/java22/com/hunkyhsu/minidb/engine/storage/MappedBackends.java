@@ -0,0 +1,28 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * JDK 22 version of the backend factory: data files are mapped through the
+ * Foreign Memory API.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 21:40
+ */
+public final class MappedBackends {
+    private MappedBackends() {}
+
+    public static MappedSegmentBackend open(Path path, int segmentSize) throws IOException {
+        return open(path, segmentSize, PageLayout.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * An existing file keeps the page size in its superblock;
+     * {@code pageSize} only applies to a new one.
+     */
+    public static MappedSegmentBackend open(Path path, int segmentSize, int pageSize) throws IOException {
+        return new MemorySegmentBackend(path, segmentSize, Superblock.probePageSize(path, pageSize));
+    }
+}
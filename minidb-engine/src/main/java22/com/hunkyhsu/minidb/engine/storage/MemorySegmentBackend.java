@@ -0,0 +1,93 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * {@link MappedSegmentBackend} whose segments are mapped into a shared
+ * {@link Arena}. Scalar reads go through {@link VarHandle}s on the mapped
+ * {@link MemorySegment}s, whose bounds checks the JIT can hoist out of scan
+ * loops, and closing the backend closes the arena, which unmaps every
+ * segment at once.
+ * <p>
+ * Only these scalar and bulk reads use the segments. Writes, and reads
+ * through page actions, still go through {@code ByteBuffer} views of the
+ * same memory, because {@link StorageBackend.BufferAction} hands out a
+ * buffer; they run exactly as on the JDK 17 backend, and dirty tracking and
+ * forcing are inherited unchanged.
+ * <p>
+ * Values are big-endian, matching the byte order of the views, so files
+ * move freely between this backend and the JDK 17 one.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 21:40
+ */
+public class MemorySegmentBackend extends MappedSegmentBackend {
+    private static final VarHandle LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN).varHandle();
+    private static final VarHandle INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN).varHandle();
+
+    // Both are first assigned from mapSegment, which the superclass constructor already calls
+    private Arena arena;
+    private volatile MemorySegment[] memorySegments;
+
+    public MemorySegmentBackend(Path path, int segmentSize) throws IOException {
+        super(path, segmentSize);
+    }
+
+    public MemorySegmentBackend(Path path, int segmentSize, int pageSize) throws IOException {
+        super(path, segmentSize, pageSize);
+    }
+
+    /**
+     * Publishes the new segment before the superclass publishes its view, so
+     * a reader that sees the grown capacity also finds the segment.
+     */
+    @Override
+    protected MappedByteBuffer mapSegment(FileChannel channel, long position, long size) throws IOException {
+        if (arena == null) {
+            arena = Arena.ofShared();
+            memorySegments = new MemorySegment[0];
+        }
+        MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, position, size, arena);
+        int index = segmentIndex(position);
+        MemorySegment[] grown = Arrays.copyOf(memorySegments, Math.max(memorySegments.length, index + 1));
+        grown[index] = segment;
+        memorySegments = grown;
+        return (MappedByteBuffer) segment.asByteBuffer();
+    }
+
+    private MemorySegment memorySegment(long offset) {
+        return memorySegments[segmentIndex(offset)];
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return (long) LONG.get(memorySegment(offset), (long) segmentOffset(offset));
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return (int) INT.get(memorySegment(offset), (long) segmentOffset(offset));
+    }
+
+    @Override
+    public void get(long offset, byte[] dst, int dstOffset, int length) {
+        MemorySegment.copy(memorySegment(offset), ValueLayout.JAVA_BYTE, segmentOffset(offset), dst, dstOffset, length);
+    }
+
+    @Override
+    protected void unmapSegments(MappedByteBuffer[] mapped) {
+        arena.close();
+    }
+}
@@ -0,0 +1,50 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * JDK 22 version of a releasable window: each one is mapped into its own
+ * shared {@link Arena}, and closing the arena unmaps it at once.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:47
+ */
+final class SegmentMapping {
+    private final Arena arena;
+    private final MappedByteBuffer buffer;
+
+    private SegmentMapping(Arena arena, MappedByteBuffer buffer) {
+        this.arena = arena;
+        this.buffer = buffer;
+    }
+
+    static SegmentMapping map(FileChannel channel, long position, long size) throws IOException {
+        Arena arena = Arena.ofShared();
+        try {
+            return new SegmentMapping(arena,
+                    (MappedByteBuffer) channel.map(FileChannel.MapMode.READ_WRITE, position, size, arena).asByteBuffer());
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    static boolean canUnmap() {
+        return true;
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * The buffer must not be touched afterwards.
+     */
+    void unmap() {
+        arena.close();
+    }
+}
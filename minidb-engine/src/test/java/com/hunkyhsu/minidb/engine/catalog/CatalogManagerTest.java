@@ -0,0 +1,201 @@
+package com.hunkyhsu.minidb.engine.catalog;
+
+import com.hunkyhsu.minidb.engine.execution.DbIterator;
+import com.hunkyhsu.minidb.engine.execution.SeqScanNode;
+import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
+import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
+import com.hunkyhsu.minidb.engine.storage.OverflowStore;
+import com.hunkyhsu.minidb.engine.storage.RowFormat;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import com.hunkyhsu.minidb.engine.wal.Durability;
+import com.hunkyhsu.minidb.engine.wal.WalRecovery;
+import com.hunkyhsu.minidb.engine.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 20:50
+ */
+class CatalogManagerTest {
+    private static final Path DATA_DIR = Paths.get("test_catalog");
+    private static final Path WAL_PATH = DATA_DIR.resolve("minidb_test.wal");
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final List<Column> COLUMNS = List.of(new Column("id", Type.INT, 0));
+    private final AtomicInteger opened = new AtomicInteger();
+    private WriteAheadLog wal;
+    private CatalogManager catalog;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cleanUp();
+        wal = new WriteAheadLog(WAL_PATH.toString(), 10);
+        catalog = newCatalog();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        catalog.close();
+        wal.close();
+        cleanUp();
+    }
+
+    private CatalogManager newCatalog() {
+        CatalogManager manager = new CatalogManager(table -> {
+            opened.incrementAndGet();
+            MMapFileChannel channel = new MMapFileChannel(CatalogManager.dataFile(DATA_DIR, table).toString(), SEGMENT_SIZE);
+            AppendOnlyTableStore store = new AppendOnlyTableStore(channel, 1, wal, null, table.getOid());
+            if (!table.hasVariableWidthColumns()) { return TableStorage.rows(channel, store); }
+            MMapFileChannel overflowChannel = new MMapFileChannel(CatalogManager.overflowFile(DATA_DIR, table).toString(), SEGMENT_SIZE);
+            return TableStorage.rows(channel, store, new OverflowStore(overflowChannel,
+                    new AppendOnlyTableStore(overflowChannel, 1, wal, null, CatalogManager.overflowOid(table.getOid()))));
+        });
+        manager.createTable("users", COLUMNS);
+        manager.createTable("orders", COLUMNS);
+        return manager;
+    }
+
+    private static void cleanUp() throws IOException {
+        if (!Files.exists(DATA_DIR)) { return; }
+        try (var files = Files.list(DATA_DIR)) {
+            for (Path file : files.toList()) { Files.delete(file); }
+        }
+        Files.delete(DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("Tables Open Their Own File Lazily Test")
+    void tablesOpenTheirOwnFileLazilyTest() throws IOException {
+        wal.start();
+        assertEquals(1, catalog.getTable("users").getOid());
+        assertEquals(2, catalog.getTable("orders").getOid());
+        assertEquals("orders", catalog.getTable(2).getTableName());
+        assertThrows(NoSuchElementException.class, () -> catalog.getTable(3));
+        assertEquals(0, opened.get(), "Nothing is opened before first use");
+
+        AppendOnlyTableStore users = catalog.getStore("users");
+        assertSame(users, catalog.getStore(1));
+        assertEquals(1, opened.get());
+        assertTrue(Files.exists(DATA_DIR.resolve("1.dat")));
+        assertFalse(Files.exists(DATA_DIR.resolve("2.dat")));
+
+        AppendOnlyTableStore orders = catalog.getStore("orders");
+        long userPtr = users.insertTuple(1000L, new byte[4]);
+        long orderPtr = orders.insertTuple(1000L, new byte[4]);
+        assertEquals(userPtr, orderPtr, "Each table allocates from its own tail");
+    }
+
+    @Test
+    @DisplayName("Recovery Routes Records To Their Table Test")
+    void recoveryRoutesRecordsToTheirTableTest() throws IOException {
+        wal.start();
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(10000), 1000L, wal, Durability.SYNC);
+        long xid = txManager.beginWriteTransaction();
+        long userPtr = catalog.getStore("users").insertTuple(xid, "alice".getBytes(StandardCharsets.UTF_8));
+        catalog.getStore("orders").insertTuple(xid, "order-1".getBytes(StandardCharsets.UTF_8));
+        catalog.getStore("orders").insertTuple(xid, "order-2".getBytes(StandardCharsets.UTF_8));
+        txManager.commitTransaction(xid);
+        catalog.close();
+        wal.close();
+        // Nothing was checkpointed, so the rows only survive through the log
+        Files.delete(DATA_DIR.resolve("1.dat"));
+        Files.delete(DATA_DIR.resolve("2.dat"));
+
+        wal = new WriteAheadLog(WAL_PATH.toString(), 10);
+        catalog = newCatalog();
+        GlobalCommitLog clog = new GlobalCommitLog(10000);
+        assertEquals(xid, WalRecovery.recover(wal, catalog::getStore, clog));
+        wal.start();
+
+        TransactionContext snapshot = new TransactionManager(clog, xid + 1, wal, Durability.SYNC).beginReadSnapshot(9999);
+        assertEquals(1, count(catalog.getChannel("users"), catalog.getStore("users"), snapshot));
+        assertEquals(2, count(catalog.getChannel("orders"), catalog.getStore("orders"), snapshot));
+        assertArrayEquals("alice".getBytes(StandardCharsets.UTF_8), catalog.getChannel("users").readPayload(userPtr));
+    }
+
+    @Test
+    @DisplayName("Overflow Chains Are Recovered With Their Rows Test")
+    void overflowChainsAreRecoveredWithTheirRowsTest() throws IOException {
+        wal.start();
+        List<Column> documentColumns = List.of(new Column("id", Type.INT, 0), new Column("body", Type.VARCHAR, 0));
+        catalog.createTable("documents", documentColumns);
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(10000), 1000L, wal, Durability.SYNC);
+        RowFormat format = catalog.getRowFormat("documents");
+        int body = format.columnIndex("body");
+        String json = "{\"blob\":\"" + "x".repeat(100_000) + "\"}";
+        long xid = txManager.beginWriteTransaction();
+        long pointer = catalog.getStore("documents").insertTuple(xid, format.newRow().setString(body, json).build(xid));
+        txManager.commitTransaction(xid);
+        assertNull(catalog.getRowFormat("users").getOverflowStore(), "Tables without strings get no overflow store");
+        assertEquals(4, catalog.getLoggedStores().size(), "Three tables and one overflow store");
+        catalog.close();
+        wal.close();
+        Files.delete(DATA_DIR.resolve("3.dat"));
+        Files.delete(DATA_DIR.resolve("3.ovf"));
+
+        wal = new WriteAheadLog(WAL_PATH.toString(), 10);
+        catalog = newCatalog();
+        catalog.createTable("documents", documentColumns);
+        GlobalCommitLog clog = new GlobalCommitLog(10000);
+        assertEquals(xid, WalRecovery.recover(wal, catalog::getLoggedStore, clog));
+        wal.start();
+        assertEquals(json, catalog.getRowFormat("documents").getString(catalog.getChannel("documents"), pointer, body));
+        assertThrows(NoSuchElementException.class, () -> catalog.getLoggedStore(CatalogManager.overflowOid(1)));
+    }
+
+    @Test
+    @DisplayName("Every Table Gets Its Own Services Test")
+    void everyTableGetsItsOwnServicesTest() throws IOException {
+        wal.start();
+        List<String> events = new ArrayList<>();
+        catalog.startServices((table, storage) -> {
+            events.add("start " + table.getTableName());
+            return List.of(new TableService(table.getTableName(), storage, events));
+        });
+        assertEquals(List.of("start users", "start orders"), events, "Existing tables are opened and served");
+        assertSame(catalog.getStore("orders"), catalog.getService("orders", TableService.class).storage().rowStore());
+        assertNull(catalog.getService("users", String.class));
+        assertThrows(IllegalStateException.class, () -> catalog.startServices((table, storage) -> List.of()));
+
+        catalog.createTable("items", COLUMNS);
+        assertEquals(2, events.size(), "New tables are served on first use");
+        assertEquals("items", catalog.getService("items", TableService.class).table());
+        assertEquals("start items", events.get(2));
+
+        catalog.close();
+        assertTrue(events.containsAll(List.of("stop users", "stop orders", "stop items")));
+    }
+
+    private record TableService(String table, TableStorage storage, List<String> events) implements AutoCloseable {
+        @Override
+        public void close() {
+            events.add("stop " + table);
+        }
+    }
+
+    private static int count(MMapFileChannel channel, AppendOnlyTableStore store, TransactionContext snapshot) {
+        SeqScanNode scan = new SeqScanNode(channel, store, snapshot);
+        scan.open();
+        int rows = 0;
+        while (scan.next() != DbIterator.EOF) { rows++; }
+        scan.close();
+        return rows;
+    }
+}
@@ -29,7 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  */
 class FilterNodeTest {
     private static final String TEST_DB_PATH = "test_db/filter_test.dat";
-    private static final int FILE_SIZE = 10 * 1024 * 1024;
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
     private MMapFileChannel channel;
     private AppendOnlyTableStore store;
     private TransactionManager txManager;
@@ -37,13 +37,14 @@ class FilterNodeTest {
     @BeforeEach
     void setUp() throws Exception {
         Files.deleteIfExists(Paths.get(TEST_DB_PATH));
-        channel = new MMapFileChannel(TEST_DB_PATH, FILE_SIZE);
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
         store = new AppendOnlyTableStore(channel);
         GlobalCommitLog clog = new GlobalCommitLog(10000);
         txManager = new TransactionManager(clog);
     }
     @AfterEach
     void tearDown() throws IOException {
+        channel.close();
         Files.deleteIfExists(Paths.get(TEST_DB_PATH));
         Files.deleteIfExists(Paths.get("test_db"));
     }
@@ -76,7 +77,7 @@ class FilterNodeTest {
         Predicate<Long> ageGT18 = pointer -> {
             int pageId = TuplePointer.getPageId(pointer);
             int pageOffset = TuplePointer.getOffset(pointer);
-            int ageAbsOffset = pageId * PageLayout.PAGE_SIZE + pageOffset + PageLayout.HEADER_SIZE + Integer.BYTES;
+            int ageAbsOffset = pageId * PageLayout.DEFAULT_PAGE_SIZE + pageOffset + PageLayout.HEADER_SIZE + Integer.BYTES;
             byte[] payload = channel.readPayload(pointer);
             int age = ByteBuffer.wrap(payload).getInt(4);
             return age >= 18;
@@ -0,0 +1,89 @@
+package com.hunkyhsu.minidb.engine.execution;
+
+import com.hunkyhsu.minidb.engine.catalog.CatalogManager;
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.StorageLayout;
+import com.hunkyhsu.minidb.engine.catalog.Type;
+import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
+import com.hunkyhsu.minidb.engine.storage.PaxTableStore;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 19:25
+ */
+class PaxScanNodeTest {
+    private static final String TEST_DB_PATH = "test_db/pax_scan_test.dat";
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private MMapFileChannel channel;
+    private PaxTableStore store;
+    private TransactionManager txManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        CatalogManager catalog = new CatalogManager();
+        catalog.createTable("events", List.of(new Column("id", Type.INT, 0), new Column("age", Type.INT, 0)),
+                StorageLayout.PAX);
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new PaxTableStore(channel, catalog.getTable("events"));
+        txManager = new TransactionManager(new GlobalCommitLog(100000));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get("test_db"));
+    }
+
+    @Test
+    @DisplayName("PAX Scan Filters On One Column Test")
+    void paxScanFiltersOnOneColumnTest() {
+        int rows = 5000;
+        long writer = txManager.beginWriteTransaction();
+        for (int i = 0; i < rows; i++) {
+            store.insertRow(writer, ByteBuffer.allocate(8).putInt(0, i).putInt(4, i % 100));
+        }
+        txManager.commitTransaction(writer);
+        long aborted = txManager.beginWriteTransaction();
+        store.insertRow(aborted, ByteBuffer.allocate(8).putInt(0, -1).putInt(4, 99));
+        txManager.abortTransaction(aborted);
+
+        int age = store.columnIndex("age");
+        int id = store.columnIndex("id");
+        PaxScanNode scan = new PaxScanNode(store, txManager.beginReadSnapshot(99999), "age", value -> value >= 90);
+        scan.open();
+        int matched = 0;
+        long pointer;
+        while ((pointer = scan.next()) != DbIterator.EOF) {
+            assertTrue(store.readInt(pointer, age) >= 90);
+            assertTrue(store.readInt(pointer, id) >= 0, "Aborted row must stay invisible");
+            matched++;
+        }
+        scan.close();
+        assertEquals(rows / 10, matched);
+
+        PaxScanNode all = new PaxScanNode(store, txManager.beginReadSnapshot(99999));
+        all.open();
+        int count = 0;
+        while (all.next() != DbIterator.EOF) { count++; }
+        all.close();
+        assertEquals(rows, count);
+    }
+}
@@ -1,20 +1,36 @@
 package com.hunkyhsu.minidb.engine.execution;
 
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.Type;
 import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
 import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
 import com.hunkyhsu.minidb.engine.storage.PageLayout;
+import com.hunkyhsu.minidb.engine.storage.PageReadAhead;
+import com.hunkyhsu.minidb.engine.storage.Superblock;
+import com.hunkyhsu.minidb.engine.storage.ZoneMap;
 import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
 import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author hunkyhsu
@@ -23,19 +39,20 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  */
 class SeqScanNodeTest {
     private static final String TEST_DB_PATH = "test_db/seqscan_test.dat";
-    private static final int FILE_SIZE = 10 * 1024 * 1024;
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
     private MMapFileChannel channel;
     private AppendOnlyTableStore store;
     private GlobalCommitLog clog;
     @BeforeEach
     void setUp() throws IOException {
         Files.deleteIfExists(Paths.get(TEST_DB_PATH));
-        channel = new MMapFileChannel(TEST_DB_PATH, FILE_SIZE);
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
         store = new AppendOnlyTableStore(channel);
         clog = new GlobalCommitLog(1000);
     }
     @AfterEach
     void tearDown() throws IOException {
+        channel.close();
         Files.deleteIfExists(Paths.get(TEST_DB_PATH));
         Files.deleteIfExists(Paths.get("test_db"));
     }
@@ -46,7 +63,7 @@ class SeqScanNodeTest {
         clog.setStatus(1001, GlobalCommitLog.COMMITTED);
         long p2 = store.insertTuple(1002, new byte[100]);
         clog.setStatus(1002, GlobalCommitLog.ABORTED);
-        long p3 = store.insertTuple(1003, new byte[PageLayout.PAGE_SIZE - 150]);
+        long p3 = store.insertTuple(1003, new byte[PageLayout.DEFAULT_PAGE_SIZE - 150]);
         clog.setStatus(1003, GlobalCommitLog.COMMITTED);
         long p4 = store.insertTuple(1004, new byte[100]);
         clog.setStatus(1004, GlobalCommitLog.IN_PROGRESS);
@@ -65,4 +82,150 @@ class SeqScanNodeTest {
         node.close();
 
     }
+
+    @Test
+    @DisplayName("Scan Concurrent With Ingest Test")
+    void scanConcurrentWithIngestTest() throws Exception {
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(100000));
+        int numWriters = 4;
+        int txnsPerWriter = 2000;
+        ExecutorService executorService = Executors.newFixedThreadPool(numWriters);
+        CountDownLatch done = new CountDownLatch(numWriters);
+        for (int w = 0; w < numWriters; w++) {
+            final int payloadLength = 20 + w * 37;
+            executorService.submit(() -> {
+                try {
+                    for (int i = 0; i < txnsPerWriter; i++) {
+                        long xmin = txManager.beginWriteTransaction();
+                        byte[] payload = new byte[payloadLength];
+                        Arrays.fill(payload, (byte) xmin);
+                        store.insertTuple(xmin, payload);
+                        txManager.commitTransaction(xmin);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        int lastCount = 0;
+        while (done.getCount() > 0) {
+            int count = scanAndVerify(txManager.beginReadSnapshot(99999));
+            assertTrue(count >= lastCount, "Committed rows must never disappear from later snapshots");
+            lastCount = count;
+        }
+        executorService.shutdown();
+        assertEquals(numWriters * txnsPerWriter, scanAndVerify(txManager.beginReadSnapshot(99999)));
+    }
+
+    @Test
+    @DisplayName("Read-ahead Scan Test")
+    void readAheadScanTest() throws Exception {
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(100000));
+        int rows = 5000;
+        for (int i = 0; i < rows; i++) {
+            long xmin = txManager.beginWriteTransaction();
+            byte[] payload = new byte[50 + i % 200];
+            Arrays.fill(payload, (byte) xmin);
+            store.insertTuple(xmin, payload);
+            txManager.commitTransaction(xmin);
+        }
+        try (PageReadAhead readAhead = new PageReadAhead(channel, 8)) {
+            assertEquals(rows, scanAndVerify(txManager.beginReadSnapshot(99999), readAhead));
+        }
+    }
+
+    @Test
+    @DisplayName("Legacy Format Seq Scan Test")
+    void legacyFormatSeqScanTest() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        new AppendOnlyTableStore(channel);
+        // Downgrade the fresh file so the store falls back to headerless pages
+        try (FileChannel file = FileChannel.open(Paths.get(TEST_DB_PATH), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Superblock.LEGACY_FORMAT_VERSION), 4);
+        }
+        store = new AppendOnlyTableStore(channel);
+        long p1 = store.insertTuple(1001, new byte[100]);
+        clog.setStatus(1001, GlobalCommitLog.COMMITTED);
+        long p2 = store.insertTuple(1002, new byte[PageLayout.DEFAULT_PAGE_SIZE - 150]);
+        clog.setStatus(1002, GlobalCommitLog.COMMITTED);
+        SeqScanNode node = new SeqScanNode(channel, store, new TransactionContext(9999, 1003, 1003, new long[0], clog));
+        node.open();
+        assertEquals(p1, node.next());
+        assertEquals(p2, node.next());
+        assertEquals(DbIterator.EOF, node.next());
+        node.close();
+    }
+
+    @Test
+    @DisplayName("Pages Newer Than Snapshot Are Skipped Test")
+    void pagesNewerThanSnapshotAreSkippedTest() {
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(100000));
+        long old = txManager.beginWriteTransaction();
+        byte[] payload = new byte[16];
+        Arrays.fill(payload, (byte) old);
+        store.insertTuple(old, payload);
+        txManager.commitTransaction(old);
+        TransactionContext snapshot = txManager.beginReadSnapshot(99999);
+        for (int i = 0; i < 100; i++) {
+            long xmin = txManager.beginWriteTransaction();
+            payload = new byte[1000];
+            Arrays.fill(payload, (byte) xmin);
+            store.insertTuple(xmin, payload);
+            txManager.commitTransaction(xmin);
+        }
+        assertEquals(1, scanAndVerify(snapshot), "Rows committed after the snapshot must stay invisible");
+        assertEquals(101, scanAndVerify(txManager.beginReadSnapshot(99999)));
+    }
+
+    @Test
+    @DisplayName("Pushed Range Skips Pages Test")
+    void pushedRangeSkipsPagesTest() throws IOException {
+        TableMetadata users = new TableMetadata("users",
+                List.of(new Column("id", Type.INT, 0), new Column("age", Type.INT, 0)));
+        store = new AppendOnlyTableStore(channel, 1, null, new ZoneMap(users));
+        int rows = 4000;
+        for (int i = 0; i < rows; i++) {
+            // Ages rise with insertion order, so each page covers a narrow band
+            store.insertTuple(1001, ByteBuffer.allocate(8).putInt(0, i).putInt(4, i / 40));
+        }
+        clog.setStatus(1001, GlobalCommitLog.COMMITTED);
+        TransactionContext snapshot = new TransactionContext(9999, 1002, 1002, new long[0], clog);
+        int ageOffset = users.getColumnOffset("age");
+        FilterNode filter = new FilterNode(new SeqScanNode(channel, store, snapshot, null, ColumnRange.atLeast("age", 90)),
+                pointer -> ByteBuffer.wrap(channel.readPayload(pointer)).getInt(ageOffset) >= 90);
+        filter.open();
+        int matched = 0;
+        while (filter.next() != DbIterator.EOF) { matched++; }
+        filter.close();
+        assertEquals(rows - 90 * 40, matched);
+
+        SeqScanNode pruned = new SeqScanNode(channel, store, snapshot, null, ColumnRange.atLeast("age", 90));
+        pruned.open();
+        int scanned = 0;
+        while (pruned.next() != DbIterator.EOF) { scanned++; }
+        pruned.close();
+        assertTrue(scanned < rows / 2, "Most pages should be skipped, scanned " + scanned);
+    }
+
+    private int scanAndVerify(TransactionContext snapshot) {
+        return scanAndVerify(snapshot, null);
+    }
+
+    private int scanAndVerify(TransactionContext snapshot, PageReadAhead readAhead) {
+        SeqScanNode node = new SeqScanNode(channel, store, snapshot, readAhead);
+        node.open();
+        int count = 0;
+        long pointer;
+        while ((pointer = node.next()) != DbIterator.EOF) {
+            byte expected = (byte) channel.readXmin(pointer);
+            for (byte b : channel.readPayload(pointer)) {
+                assertEquals(expected, b, "Visible tuples must be completely written");
+            }
+            count++;
+        }
+        node.close();
+        return count;
+    }
 }
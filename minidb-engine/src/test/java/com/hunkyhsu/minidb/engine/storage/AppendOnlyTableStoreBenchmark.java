@@ -0,0 +1,221 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.execution.DbIterator;
+import com.hunkyhsu.minidb.engine.execution.SeqScanNode;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Insert throughput by writer count, the cost of page checksums, the
+ * effect of the page size on inserts and scans, and insert tail latency with
+ * and without a {@link TailPrefaulter}. Skipped unless run with
+ * {@code mvn test -Dtest=AppendOnlyTableStoreBenchmark -Dminidb.benchmark=true}.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 11:30
+ */
+@EnabledIfSystemProperty(named = "minidb.benchmark", matches = "true")
+class AppendOnlyTableStoreBenchmark {
+    private static final String TEST_DB_PATH = "test_db/store_benchmark.dat";
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int INSERTS_PER_THREAD = 200_000;
+    private static final int PAYLOAD_SIZE = 64;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get("test_db"));
+    }
+
+    @Test
+    @DisplayName("Insert Throughput Scaling")
+    void insertThroughputScaling() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-8s %-18s %-14s%n", "threads", "reservationPages", "inserts/sec");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            for (int reservationPages : new int[] {1, AppendOnlyTableStore.DEFAULT_RESERVATION_PAGES, 32}) {
+                double throughput = run(threads, reservationPages);
+                System.out.printf("%-8d %-18d %,14.0f%n", threads, reservationPages, throughput);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Batch Insert Per-Row Cost")
+    void batchInsertPerRowCost() throws Exception {
+        int batchSize = 1024;
+        int batches = 500;
+        byte[][] payloads = new byte[batchSize][];
+        for (int i = 0; i < batchSize; i++) {
+            payloads[i] = new byte[PAYLOAD_SIZE];
+        }
+        long[] pointers = new long[batchSize];
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        try (MMapFileChannel channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE)) {
+            AppendOnlyTableStore store = new AppendOnlyTableStore(channel);
+            for (int round = 0; round < 3; round++) {
+                long begin = System.nanoTime();
+                for (int b = 0; b < batches; b++) {
+                    for (int i = 0; i < batchSize; i++) {
+                        pointers[i] = store.insertTuple(1000L, payloads[i]);
+                    }
+                }
+                long single = System.nanoTime() - begin;
+                begin = System.nanoTime();
+                for (int b = 0; b < batches; b++) {
+                    store.insertTuples(1000L, payloads, pointers);
+                }
+                long batched = System.nanoTime() - begin;
+                long rows = (long) batches * batchSize;
+                System.out.printf("round %d: single %.1f ns/row, batched %.1f ns/row%n",
+                        round, (double) single / rows, (double) batched / rows);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Checksum Overhead")
+    void checksumOverhead() throws Exception {
+        int rows = 1_000_000;
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        try (MMapFileChannel channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE)) {
+            AppendOnlyTableStore store = new AppendOnlyTableStore(channel);
+            TransactionManager txManager = new TransactionManager(new GlobalCommitLog(100000));
+            long xid = txManager.beginWriteTransaction();
+            for (int i = 0; i < rows; i++) {
+                store.insertTuple(xid, payload);
+            }
+            txManager.commitTransaction(xid);
+            store.checkpoint(txManager::getLastAssignedXid);
+            long begin = System.nanoTime();
+            store.checkpoint(txManager::getLastAssignedXid);
+            long sealing = System.nanoTime() - begin;
+            long bytes = store.getValidEndOffset() - store.getValidStartOffset();
+            System.out.printf("checksumming on checkpoint: %.0f MB/s%n", bytes * 1000.0 / sealing);
+
+            TransactionContext snapshot = txManager.beginReadSnapshot(9999);
+            for (int round = 0; round < 3; round++) {
+                begin = System.nanoTime();
+                int scanned = scan(channel, store, snapshot);
+                long elapsed = System.nanoTime() - begin;
+                System.out.printf("scan %d (%s): %.1f ns/row%n", round, round == 0 ? "verifying" : "verified",
+                        (double) elapsed / scanned);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Page Size Comparison")
+    void pageSizeComparison() throws Exception {
+        int rows = 1_000_000;
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        System.out.printf("%-10s %-16s %-14s %-10s%n", "pageSize", "insert ns/row", "scan ns/row", "pages");
+        for (int pageSize : new int[] {4096, 8192, 16384, 65536}) {
+            Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+            try (MMapFileChannel channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE, pageSize)) {
+                AppendOnlyTableStore store = new AppendOnlyTableStore(channel);
+                TransactionManager txManager = new TransactionManager(new GlobalCommitLog(100000));
+                long xid = txManager.beginWriteTransaction();
+                long begin = System.nanoTime();
+                for (int i = 0; i < rows; i++) {
+                    store.insertTuple(xid, payload);
+                }
+                long inserting = System.nanoTime() - begin;
+                txManager.commitTransaction(xid);
+                store.checkpoint(txManager::getLastAssignedXid);
+                TransactionContext snapshot = txManager.beginReadSnapshot(9999);
+                scan(channel, store, snapshot);
+                begin = System.nanoTime();
+                int scanned = scan(channel, store, snapshot);
+                long scanning = System.nanoTime() - begin;
+                long pages = (store.getValidEndOffset() - store.getValidStartOffset()) / pageSize;
+                System.out.printf("%-10d %-16.1f %-14.1f %-10d%n", pageSize, (double) inserting / rows,
+                        (double) scanning / scanned, pages);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Prefaulted Insert Latency")
+    void prefaultedInsertLatency() throws Exception {
+        int rows = 1_000_000;
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        long[] latencies = new long[rows];
+        for (boolean prefault : new boolean[] {false, true}) {
+            Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+            try (MMapFileChannel channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE)) {
+                AppendOnlyTableStore store = new AppendOnlyTableStore(channel);
+                TailPrefaulter prefaulter = new TailPrefaulter(channel, store, 4096, 1);
+                if (prefault) {
+                    prefaulter.prefault();
+                    prefaulter.start();
+                }
+                for (int i = 0; i < rows; i++) {
+                    long begin = System.nanoTime();
+                    store.insertTuple(1000L, payload);
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                prefaulter.close();
+            }
+            Arrays.sort(latencies);
+            System.out.printf("prefault %-5s p50 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n", prefault,
+                    latencies[rows / 2], latencies[rows / 100 * 99], latencies[rows / 1000 * 999], latencies[rows - 1]);
+        }
+    }
+
+    private static int scan(MMapFileChannel channel, AppendOnlyTableStore store, TransactionContext snapshot) {
+        SeqScanNode scan = new SeqScanNode(channel, store, snapshot);
+        scan.open();
+        int rows = 0;
+        while (scan.next() != DbIterator.EOF) { rows++; }
+        scan.close();
+        return rows;
+    }
+
+    private double run(int threads, int reservationPages) throws Exception {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        try (MMapFileChannel channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE)) {
+            AppendOnlyTableStore store = new AppendOnlyTableStore(channel, reservationPages);
+            byte[] payload = new byte[PAYLOAD_SIZE];
+            ExecutorService executorService = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                final long xmin = 1000L + t;
+                executorService.submit(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+                            store.insertTuple(xmin, payload);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - begin;
+            executorService.shutdown();
+            return (double) threads * INSERTS_PER_THREAD * 1_000_000_000L / elapsed;
+        }
+    }
+}
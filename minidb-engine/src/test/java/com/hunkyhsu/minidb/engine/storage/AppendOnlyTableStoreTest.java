@@ -1,16 +1,24 @@
 package com.hunkyhsu.minidb.engine.storage;
 
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import com.hunkyhsu.minidb.engine.transaction.WriteConflictException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,18 +29,19 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class AppendOnlyTableStoreTest {
     private static final String TEST_DB_PATH = "test_db/minidb_store_test.dat";
-    private static final int FILE_SIZE = 10 * 1024 * 1024;
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
     private MMapFileChannel channel;
     private AppendOnlyTableStore store;
 
     @BeforeEach
     void setUp() throws IOException {
         Files.deleteIfExists(Paths.get(TEST_DB_PATH));
-        channel = new MMapFileChannel(TEST_DB_PATH, FILE_SIZE);
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
         store = new AppendOnlyTableStore(channel);
     }
     @AfterEach
     void tearDown() throws IOException {
+        channel.close();
         Files.deleteIfExists(Paths.get(TEST_DB_PATH));
         Files.deleteIfExists(Paths.get("test_db"));
     }
@@ -41,7 +50,7 @@ class AppendOnlyTableStoreTest {
     @DisplayName("Oversized File Test")
     void oversizedFileTest() throws IOException {
         long xmin = 100L;
-        byte[] payload = new byte[PageLayout.PAGE_SIZE + 1];
+        byte[] payload = new byte[PageLayout.DEFAULT_PAGE_SIZE + 1];
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             store.insertTuple(xmin, payload);
         });
@@ -67,8 +76,404 @@ class AppendOnlyTableStoreTest {
         }
         latch.await();
         executorService.shutdown();
-        int endOffset = store.getValidEndOffset();
+        long endOffset = store.getValidEndOffset();
         assertTrue(endOffset > 0, "End Offset should be greater than 0");
 
     }
+
+    @Test
+    @DisplayName("Inserts Grow Past First Segment Test")
+    void insertsGrowPastFirstSegmentTest() {
+        byte[] payload = new byte[PageLayout.maxPayloadSize(PageLayout.DEFAULT_PAGE_SIZE)];
+        int pagesPerSegment = SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE;
+        long lastPointer = 0;
+        // Page 0 holds the superblock, so the last insert opens the second segment
+        for (int i = 1; i <= pagesPerSegment; i++) {
+            payload[0] = (byte) i;
+            lastPointer = store.insertTuple(1000L + i, payload);
+        }
+        assertEquals(pagesPerSegment, TuplePointer.getPageId(lastPointer), "Last tuple should start the second segment");
+        assertEquals(2L * SEGMENT_SIZE, channel.getCapacity());
+        assertEquals(1000L + pagesPerSegment, channel.readXmin(lastPointer));
+        assertEquals((byte) pagesPerSegment, channel.readPayload(lastPointer)[0]);
+    }
+
+    @Test
+    @DisplayName("Restart Recovers Tail Test")
+    void restartRecoversTailTest() throws IOException {
+        long p1 = store.insertTuple(1001L, new byte[100]);
+        store.checkpoint(() -> 1001L);
+        long p2 = store.insertTuple(1002L, new byte[200]);
+        long p3 = store.insertTuple(1005L, new byte[PageLayout.maxPayloadSize(PageLayout.DEFAULT_PAGE_SIZE) - 100]);
+        channel.close();
+
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(1005L, store.getRecoveredXid(), "Recovered xid should cover tuples after the checkpoint");
+        assertEquals((TuplePointer.getPageId(p3) + 1L) * PageLayout.DEFAULT_PAGE_SIZE, store.getValidEndOffset(),
+                "Tail should be re-validated up to the page holding the last tuple");
+        long p4 = store.insertTuple(1006L, new byte[10]);
+        assertTrue(TuplePointer.getPageId(p4) > TuplePointer.getPageId(p3), "New tuples must not overwrite recovered ones");
+        assertEquals(1001L, channel.readXmin(p1));
+        assertEquals(1002L, channel.readXmin(p2));
+        assertEquals(1005L, channel.readXmin(p3));
+        assertEquals(1006L, channel.readXmin(p4));
+    }
+
+    @Test
+    @DisplayName("Checkpoint Persists Watermark Test")
+    void checkpointPersistsWatermarkTest() throws IOException {
+        long p1 = store.insertTuple(1001L, new byte[64]);
+        store.checkpoint(() -> 2000L);
+        Superblock superblock = new Superblock(channel);
+        assertEquals(Superblock.FORMAT_VERSION, superblock.getFormatVersion());
+        assertEquals(PageLayout.DEFAULT_PAGE_SIZE, superblock.getPageSize());
+        assertEquals(store.getReservedEndOffset(), superblock.getTailWatermark());
+        channel.close();
+
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(2000L, store.getRecoveredXid());
+        assertTrue(store.getValidEndOffset() > PageLayout.DEFAULT_PAGE_SIZE, "Tail should start past the checkpointed data");
+        assertEquals(1001L, channel.readXmin(p1));
+    }
+
+    @Test
+    @DisplayName("Headerless File Rejected Test")
+    void headerlessFileRejectedTest() {
+        // Simulate a legacy file whose first page holds a tuple instead of a superblock
+        channel.putLong(Superblock.MAGIC_OFFSET, 1234L);
+        assertThrows(IllegalStateException.class, () -> new AppendOnlyTableStore(channel));
+    }
+
+    @Test
+    @DisplayName("Writers Reserve Private Pages Test")
+    void writersReservePrivatePagesTest() throws InterruptedException {
+        int numThreads = 8;
+        int insertsPerThread = 500;
+        long[][] pointers = new long[numThreads][insertsPerThread];
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        CountDownLatch latch = new CountDownLatch(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            final int threadIndex = t;
+            executorService.submit(() -> {
+                try {
+                    for (int i = 0; i < insertsPerThread; i++) {
+                        pointers[threadIndex][i] = store.insertTuple(1000L + threadIndex, new byte[40]);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+        Map<Integer, Integer> pageOwners = new HashMap<>();
+        for (int t = 0; t < numThreads; t++) {
+            for (long pointer : pointers[t]) {
+                Integer owner = pageOwners.putIfAbsent(TuplePointer.getPageId(pointer), t);
+                assertTrue(owner == null || owner == t, "Each page must have a single writer");
+                assertEquals(1000L + t, channel.readXmin(pointer));
+            }
+        }
+        assertEquals(0, store.getValidEndOffset() % PageLayout.DEFAULT_PAGE_SIZE, "Tail should advance by whole pages");
+    }
+
+    @Test
+    @DisplayName("Batch Insert Splits Pages Test")
+    void batchInsertSplitsPagesTest() {
+        int rowCount = 50;
+        byte[][] payloads = new byte[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            payloads[i] = new byte[500 + i];
+            payloads[i][0] = (byte) i;
+        }
+        long[] pointers = new long[rowCount];
+        assertEquals(rowCount, store.insertTuples(2000L, payloads, pointers));
+        for (int i = 0; i < rowCount; i++) {
+            int offset = TuplePointer.getOffset(pointers[i]);
+            assertTrue(offset + PageLayout.HEADER_SIZE + payloads[i].length <= PageLayout.DEFAULT_PAGE_SIZE, "Tuple must not straddle a page");
+            assertEquals(2000L, channel.readXmin(pointers[i]));
+            assertArrayEquals(payloads[i], channel.readPayload(pointers[i]));
+        }
+        long next = store.insertTuple(2001L, new byte[8]);
+        assertEquals(TuplePointer.getPageId(pointers[rowCount - 1]), TuplePointer.getPageId(next),
+                "Single inserts should continue in the batch's last page");
+    }
+
+    @Test
+    @DisplayName("Packed Batch Insert Test")
+    void packedBatchInsertTest() {
+        ByteBuffer packedRows = ByteBuffer.allocateDirect(1024);
+        for (int i = 0; i < 10; i++) {
+            packedRows.putInt(Integer.BYTES);
+            packedRows.putInt(i * 7);
+        }
+        packedRows.flip();
+        long[] pointers = new long[10];
+        assertEquals(10, store.insertTuples(3000L, packedRows, pointers));
+        assertEquals(0, packedRows.position(), "Packed buffer position should be left untouched");
+        for (int i = 0; i < 10; i++) {
+            assertEquals(3000L, channel.readXmin(pointers[i]));
+            assertEquals(i * 7, ByteBuffer.wrap(channel.readPayload(pointers[i])).getInt());
+        }
+    }
+
+    @Test
+    @DisplayName("Batch Insert Rejects Bad Input Test")
+    void batchInsertRejectsBadInputTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> store.insertTuples(1L, new byte[][] {new byte[1], new byte[1]}, new long[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.insertTuples(1L, new byte[][] {new byte[PageLayout.DEFAULT_PAGE_SIZE]}, new long[1]));
+        ByteBuffer truncated = ByteBuffer.allocate(8).putInt(100).putInt(0).flip();
+        assertThrows(IllegalArgumentException.class, () -> store.insertTuples(1L, truncated, new long[1]));
+    }
+
+    @Test
+    @DisplayName("ByteBuffer And Encoder Insert Test")
+    void byteBufferAndEncoderInsertTest() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.putLong(0, 77L).putLong(8, 88L);
+        direct.position(8);
+        long p1 = store.insertTuple(4000L, direct);
+        assertEquals(8, direct.position(), "Source position should be left untouched");
+        assertEquals(88L, ByteBuffer.wrap(channel.readPayload(p1)).getLong());
+
+        ByteBuffer heap = ByteBuffer.wrap(new byte[] {1, 2, 3});
+        long p2 = store.insertTuple(4001L, heap);
+        assertArrayEquals(new byte[] {1, 2, 3}, channel.readPayload(p2));
+
+        long p3 = store.insertTuple(4002L, 2 * Integer.BYTES, (target, index) -> {
+            target.putInt(index, 7);
+            target.putInt(index + Integer.BYTES, 35);
+        });
+        ByteBuffer payload = ByteBuffer.wrap(channel.readPayload(p3));
+        assertEquals(4002L, channel.readXmin(p3));
+        assertEquals(7, payload.getInt());
+        assertEquals(35, payload.getInt());
+    }
+
+    @Test
+    @DisplayName("Failed Encoder Does Not Hide Later Tuples Test")
+    void failedEncoderDoesNotHideLaterTuplesTest() {
+        long p1 = store.insertTuple(5000L, new byte[16]);
+        assertThrows(IllegalStateException.class, () -> store.insertTuple(5001L, 16, (target, index) -> {
+            throw new IllegalStateException("encoder failed");
+        }));
+        long p2 = store.insertTuple(5002L, new byte[16]);
+        assertEquals(TuplePointer.getOffset(p1) + PageLayout.COMPACT_HEADER_SIZE + 16 + PageLayout.VERSION_HEADER_SIZE,
+                TuplePointer.getOffset(p2),
+                "The failed slot should be reused");
+        assertEquals(store.getReservedEndOffset(), store.getValidEndOffset(), "Everything reserved should be published");
+    }
+
+    @Test
+    @DisplayName("Slotted Page Header Test")
+    void slottedPageHeaderTest() {
+        assertEquals(Superblock.FORMAT_VERSION, store.getFormatVersion());
+        long p1 = store.insertTuple(1003L, new byte[10]);
+        long p2 = store.insertTuple(1001L, new byte[20]);
+        long p3 = store.insertTuple(1002L, new byte[30]);
+        int pageId = TuplePointer.getPageId(p1);
+        assertEquals(PageLayout.COMPACT_PAGE_HEADER_SIZE + PageLayout.VERSION_HEADER_SIZE, TuplePointer.getOffset(p1),
+                "Tuples start after the page header and their version header");
+        assertEquals(3, SlottedPage.tupleCount(channel, pageId));
+        assertEquals(p1, SlottedPage.tuplePointer(channel, pageId, 0));
+        assertEquals(p2, SlottedPage.tuplePointer(channel, pageId, 1));
+        assertEquals(p3, SlottedPage.tuplePointer(channel, pageId, 2));
+        assertEquals(1001L, SlottedPage.minXmin(channel, pageId));
+        assertEquals(1003L, SlottedPage.maxXmin(channel, pageId));
+        assertEquals(TuplePointer.getOffset(p3) + PageLayout.COMPACT_HEADER_SIZE + 30, SlottedPage.freeStart(channel, pageId));
+    }
+
+    @Test
+    @DisplayName("Slot Directory Bounds Page Fill Test")
+    void slotDirectoryBoundsPageFillTest() {
+        int rowCount = 400;
+        long[] pointers = new long[rowCount];
+        byte[][] payloads = new byte[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            payloads[i] = new byte[8];
+        }
+        store.insertTuples(1000L, payloads, pointers);
+        int firstPage = TuplePointer.getPageId(pointers[0]);
+        int lastPage = TuplePointer.getPageId(pointers[rowCount - 1]);
+        int total = 0;
+        for (int pageId = firstPage; pageId <= lastPage; pageId++) {
+            int count = SlottedPage.tupleCount(channel, pageId);
+            assertTrue(SlottedPage.freeStart(channel, pageId) <= PageLayout.DEFAULT_PAGE_SIZE - count * PageLayout.SLOT_SIZE,
+                    "Tuples must not run into the slot directory");
+            total += count;
+        }
+        assertEquals(rowCount, total);
+    }
+
+    @Test
+    @DisplayName("Legacy Format Stays Readable Test")
+    void legacyFormatStaysReadableTest() throws IOException {
+        channel.putInt(Superblock.VERSION_OFFSET, Superblock.LEGACY_FORMAT_VERSION);
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(Superblock.LEGACY_FORMAT_VERSION, store.getFormatVersion());
+        long p1 = store.insertTuple(1001L, new byte[100]);
+        long p2 = store.insertTuple(1002L, new byte[PageLayout.DEFAULT_PAGE_SIZE - PageLayout.HEADER_SIZE]);
+        assertEquals(PageLayout.DEFAULT_PAGE_SIZE % PageLayout.DEFAULT_PAGE_SIZE, TuplePointer.getOffset(p1), "Legacy pages have no header");
+        channel.close();
+
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(Superblock.LEGACY_FORMAT_VERSION, store.getFormatVersion());
+        assertEquals(1002L, store.getRecoveredXid());
+        assertEquals(1001L, channel.readXmin(p1));
+        assertEquals(1002L, channel.readXmin(p2));
+        long p3 = store.insertTuple(1003L, new byte[10]);
+        assertTrue(TuplePointer.getPageId(p3) > TuplePointer.getPageId(p2));
+    }
+
+    @Test
+    @DisplayName("Compact Tuples Are Aligned Test")
+    void compactTuplesAreAlignedTest() {
+        long p1 = store.insertTuple(1L << 40, new byte[13]);
+        long p2 = store.insertTuple((1L << 40) - 5, new byte[8]);
+        assertEquals(0, TuplePointer.getOffset(p1) % PageLayout.TUPLE_ALIGNMENT);
+        assertEquals(0, TuplePointer.getOffset(p2) % PageLayout.TUPLE_ALIGNMENT);
+        assertEquals(0, channel.payloadOffset(p2) % PageLayout.TUPLE_ALIGNMENT);
+        assertEquals(TuplePointer.getOffset(p1) + 24 + PageLayout.VERSION_HEADER_SIZE, TuplePointer.getOffset(p2),
+                "The 21-byte tuple is padded to the next boundary");
+        assertEquals((1L << 40) - 5, channel.readXmin(p2), "Xmins below the page epoch are relative too");
+        assertEquals(8, channel.readPayloadLength(p2));
+        assertEquals(PageLayout.VERSION_HEADER_SIZE + PageLayout.COMPACT_HEADER_SIZE + 8, store.tupleSpan(p2));
+
+        long far = store.insertTuple((1L << 40) + (1L << 32), new byte[8]);
+        assertNotEquals(TuplePointer.getPageId(p1), TuplePointer.getPageId(far),
+                "An xmin out of reach of the page epoch starts a new page");
+        assertEquals((1L << 40) + (1L << 32), channel.readXmin(far));
+    }
+
+    @Test
+    @DisplayName("Versioned Format Keeps Wide Headers Test")
+    void versionedFormatKeepsWideHeadersTest() throws IOException {
+        channel.putInt(Superblock.VERSION_OFFSET, Superblock.VERSIONED_FORMAT_VERSION);
+        store = new AppendOnlyTableStore(channel);
+        long p1 = store.insertTuple(1001L, new byte[13]);
+        long p2 = store.insertTuple(1002L, new byte[8]);
+        assertEquals(PageLayout.PAGE_HEADER_SIZE + PageLayout.VERSION_HEADER_SIZE, TuplePointer.getOffset(p1));
+        assertEquals(TuplePointer.getOffset(p1) + PageLayout.HEADER_SIZE + 13 + PageLayout.VERSION_HEADER_SIZE,
+                TuplePointer.getOffset(p2), "Version 3 tuples are packed without padding");
+        store.checkpoint(() -> 1002L);
+        store.checkpoint(() -> 1002L);
+        channel.close();
+
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(Superblock.VERSIONED_FORMAT_VERSION, store.getFormatVersion());
+        assertEquals(1002L, channel.readXmin(p2));
+        assertArrayEquals(new byte[8], channel.readPayload(p2));
+        assertEquals(List.of(), store.scrub(), "Wide pages keep their checksum");
+    }
+
+    @Test
+    @DisplayName("Update Builds Version Chain Test")
+    void updateBuildsVersionChainTest() {
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(10000));
+        long writer = txManager.beginWriteTransaction();
+        long v1 = store.insertTuple(writer, "v1".getBytes());
+        txManager.commitTransaction(writer);
+
+        long updater = txManager.beginWriteTransaction();
+        long v2 = store.updateTuple(txManager.beginReadSnapshot(updater), v1, "v2".getBytes());
+        assertEquals(updater, store.readXmax(v1));
+        assertEquals(v2, store.readNextVersion(v1));
+        assertEquals(TuplePointer.NONE, store.readNextVersion(v2));
+        assertEquals(0L, store.readXmax(v2));
+        assertArrayEquals("v2".getBytes(), channel.readPayload(v2));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.deleteTuple(txManager.beginReadSnapshot(updater), v1), "v1 is already replaced for its updater");
+        txManager.commitTransaction(updater);
+
+        long deleter = txManager.beginWriteTransaction();
+        store.deleteTuple(txManager.beginReadSnapshot(deleter), v2);
+        txManager.abortTransaction(deleter);
+        long retry = txManager.beginWriteTransaction();
+        store.deleteTuple(txManager.beginReadSnapshot(retry), v2);
+        assertEquals(retry, store.readXmax(v2), "An aborted stamp can be taken over");
+    }
+
+    @Test
+    @DisplayName("First Updater Wins Test")
+    void firstUpdaterWinsTest() throws InterruptedException {
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(10000));
+        long writer = txManager.beginWriteTransaction();
+        long pointer = store.insertTuple(writer, new byte[8]);
+        txManager.commitTransaction(writer);
+
+        int numWriters = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(numWriters);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(numWriters);
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        for (int w = 0; w < numWriters; w++) {
+            executorService.submit(() -> {
+                try {
+                    long xid = txManager.beginWriteTransaction();
+                    start.await();
+                    store.updateTuple(txManager.beginReadSnapshot(xid), pointer, new byte[8]);
+                    winners.incrementAndGet();
+                } catch (WriteConflictException e) {
+                    conflicts.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        done.await();
+        executorService.shutdown();
+        assertEquals(1, winners.get());
+        assertEquals(numWriters - 1, conflicts.get());
+    }
+
+    @Test
+    @DisplayName("Unversioned Format Rejects Delete Test")
+    void unversionedFormatRejectsDeleteTest() {
+        channel.putInt(Superblock.VERSION_OFFSET, Superblock.SLOTTED_FORMAT_VERSION);
+        store = new AppendOnlyTableStore(channel);
+        long pointer = store.insertTuple(1001L, new byte[8]);
+        assertEquals(PageLayout.PAGE_HEADER_SIZE, TuplePointer.getOffset(pointer), "Version 2 tuples have no version header");
+        assertEquals(0L, store.readXmax(pointer));
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(10000));
+        assertThrows(UnsupportedOperationException.class,
+                () -> store.deleteTuple(txManager.beginReadSnapshot(txManager.beginWriteTransaction()), pointer));
+    }
+
+    @Test
+    @DisplayName("Large Pages Round Trip Test")
+    void largePagesRoundTripTest() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        int pageSize = 64 * 1024;
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE, pageSize);
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(pageSize, store.getPageSize());
+        long large = store.insertTuple(1001L, new byte[PageLayout.maxPayloadSize(pageSize)]);
+        long small = store.insertTuple(1002L, new byte[16]);
+        assertEquals(pageSize, store.getValidStartOffset(), "The superblock fills the first page");
+        assertNotEquals(TuplePointer.getPageId(large), TuplePointer.getPageId(small));
+        store.checkpoint(() -> 2000L);
+        channel.close();
+
+        MMapFileChannel mismatched = new MMapFileChannel(new MappedSegmentBackend(Paths.get(TEST_DB_PATH), SEGMENT_SIZE));
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new AppendOnlyTableStore(mismatched));
+        assertTrue(exception.getMessage().contains("Page size mismatch"));
+        mismatched.close();
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        assertEquals(pageSize, channel.getPageSize(), "An existing file keeps its recorded page size");
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(pageSize, new Superblock(channel).getPageSize());
+        assertEquals(PageLayout.maxPayloadSize(pageSize), channel.readPayloadLength(large));
+        assertEquals(1002L, channel.readXmin(small));
+    }
 }
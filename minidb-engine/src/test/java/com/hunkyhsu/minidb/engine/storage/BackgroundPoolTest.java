@@ -0,0 +1,87 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 15:45
+ */
+class BackgroundPoolTest {
+    private BackgroundPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new BackgroundPool("minidb-background-test", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Workers Share The Pool Test")
+    void workersShareThePoolTest() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(8);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < 8; i++) {
+            int task = i;
+            new BackgroundWorker("minidb-worker-" + i, pool).execute(() -> {
+                threads[task] = Thread.currentThread();
+                ran.countDown();
+            });
+        }
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        for (Thread thread : threads) {
+            assertTrue(thread.getName().startsWith("minidb-background-test-"), thread.getName());
+        }
+    }
+
+    @Test
+    @DisplayName("A Worker's Tasks Never Overlap Test")
+    void aWorkersTasksNeverOverlapTest() throws InterruptedException {
+        BackgroundWorker worker = new BackgroundWorker("minidb-serial-test", pool);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            worker.execute(() -> {
+                if (running.incrementAndGet() > 1) { overlaps.incrementAndGet(); }
+                Thread.onSpinWait();
+                running.decrementAndGet();
+                ran.countDown();
+            });
+        }
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    @DisplayName("Shutting Down A Worker Leaves The Others Running Test")
+    void shuttingDownAWorkerLeavesTheOthersRunningTest() throws InterruptedException {
+        BackgroundWorker stopped = new BackgroundWorker("minidb-stopped-test", pool);
+        BackgroundWorker running = new BackgroundWorker("minidb-running-test", pool);
+        AtomicInteger stoppedRuns = new AtomicInteger();
+        stopped.scheduleWithFixedDelay(stoppedRuns::incrementAndGet, 0, 1);
+        assertTrue(stopped.shutdown());
+        int runsAtShutdown = stoppedRuns.get();
+        assertThrows(RejectedExecutionException.class, () -> stopped.execute(() -> {}));
+
+        CountDownLatch ticks = new CountDownLatch(3);
+        running.scheduleWithFixedDelay(ticks::countDown, 0, 1);
+        assertTrue(ticks.await(5, TimeUnit.SECONDS), "The pool still runs the other worker");
+        assertEquals(runsAtShutdown, stoppedRuns.get(), "The stopped worker ran nothing more");
+        assertTrue(running.shutdown());
+    }
+}
@@ -0,0 +1,129 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.execution.DbIterator;
+import com.hunkyhsu.minidb.engine.execution.SeqScanNode;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 17:20
+ */
+class BufferPoolBackendTest {
+    private static final Path TEST_PATH = Paths.get("test_pool/minidb_pool_test.dat");
+    private static final int GROWTH_SIZE = 1024 * 1024;
+    private static final int FRAME_COUNT = 8;
+    private MMapFileChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(TEST_PATH);
+        channel = new MMapFileChannel(new BufferPoolBackend(TEST_PATH, FRAME_COUNT, GROWTH_SIZE));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(TEST_PATH);
+        Files.deleteIfExists(TEST_PATH.getParent());
+    }
+
+    @Test
+    @DisplayName("Pages Survive Eviction")
+    void pagesSurviveEvictionTest() {
+        int pages = FRAME_COUNT * 4;
+        for (int i = 0; i < pages; i++) {
+            byte[] payload = new byte[32];
+            Arrays.fill(payload, (byte) i);
+            channel.writeTuple(TuplePointer.pack(i, 0), 1000L + i, payload);
+        }
+        assertTrue(channel.countDirtyPages() <= FRAME_COUNT, "Only resident frames can be dirty");
+        for (int i = 0; i < pages; i++) {
+            long pointer = TuplePointer.pack(i, 0);
+            assertEquals(1000L + i, channel.readXmin(pointer));
+            byte[] expected = new byte[32];
+            Arrays.fill(expected, (byte) i);
+            assertArrayEquals(expected, channel.readPayload(pointer));
+        }
+    }
+
+    @Test
+    @DisplayName("Reopen Reads Written Pages")
+    void reopenReadsWrittenPagesTest() throws IOException {
+        long pointer = TuplePointer.pack(200, 16);
+        channel.ensureCapacity(201L * PageLayout.DEFAULT_PAGE_SIZE);
+        channel.writeTuple(pointer, 7L, "Pooled".getBytes());
+        channel.close();
+        channel = new MMapFileChannel(new BufferPoolBackend(TEST_PATH, FRAME_COUNT, GROWTH_SIZE));
+        assertEquals(2L * GROWTH_SIZE, channel.getCapacity());
+        assertEquals(7L, channel.readXmin(pointer));
+        assertArrayEquals("Pooled".getBytes(), channel.readPayload(pointer));
+    }
+
+    @Test
+    @DisplayName("Pinned Frames Are Never Evicted")
+    void pinnedFramesAreNeverEvictedTest() throws IOException {
+        channel.close();
+        channel = new MMapFileChannel(new BufferPoolBackend(TEST_PATH, 2, GROWTH_SIZE));
+        channel.read(0, (first, i) -> channel.read(PageLayout.DEFAULT_PAGE_SIZE, (second, j) ->
+                assertThrows(IllegalStateException.class, () -> channel.getLong(2L * PageLayout.DEFAULT_PAGE_SIZE))));
+        assertEquals(0L, channel.getLong(2L * PageLayout.DEFAULT_PAGE_SIZE), "Frames are usable again once unpinned");
+    }
+
+    @Test
+    @DisplayName("Store Runs On A Small Pool")
+    void storeRunsOnSmallPoolTest() throws Exception {
+        AppendOnlyTableStore store = new AppendOnlyTableStore(channel, 1);
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(100000));
+        int numWriters = 4;
+        int rowsPerWriter = 1000;
+        ExecutorService executorService = Executors.newFixedThreadPool(numWriters);
+        CountDownLatch done = new CountDownLatch(numWriters);
+        for (int w = 0; w < numWriters; w++) {
+            executorService.submit(() -> {
+                try {
+                    for (int i = 0; i < rowsPerWriter; i++) {
+                        long xmin = txManager.beginWriteTransaction();
+                        byte[] payload = new byte[100];
+                        Arrays.fill(payload, (byte) xmin);
+                        store.insertTuple(xmin, payload);
+                        txManager.commitTransaction(xmin);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executorService.shutdown();
+        SeqScanNode scan = new SeqScanNode(channel, store, txManager.beginReadSnapshot(99999));
+        scan.open();
+        int count = 0;
+        long pointer;
+        while ((pointer = scan.next()) != DbIterator.EOF) {
+            byte expected = (byte) channel.readXmin(pointer);
+            for (byte b : channel.readPayload(pointer)) {
+                assertEquals(expected, b);
+            }
+            count++;
+        }
+        scan.close();
+        assertEquals(numWriters * rowsPerWriter, count);
+    }
+}
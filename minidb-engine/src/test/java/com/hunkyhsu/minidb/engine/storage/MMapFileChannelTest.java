@@ -8,15 +8,21 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author hunkyhsu
@@ -25,16 +31,17 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  */
 class MMapFileChannelTest {
     private static final String TEST_PATH = "test_data/minidb_test.dat";
-    private static final int FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
     private MMapFileChannel channel;
 
     @BeforeEach
     void setUp() throws Exception {
         Files.deleteIfExists(Paths.get(TEST_PATH));
-        channel = new MMapFileChannel(TEST_PATH, FILE_SIZE);
+        channel = new MMapFileChannel(TEST_PATH, SEGMENT_SIZE);
     }
     @AfterEach
     void tearDown() throws Exception {
+        channel.close();
         Files.deleteIfExists(Paths.get(TEST_PATH));
         Files.deleteIfExists(Paths.get("test_data"));
     }
@@ -81,4 +88,144 @@ class MMapFileChannelTest {
             assertArrayEquals(expectedPayload, channel.readPayload(pointer));
         }
     }
+    @Test
+    @DisplayName("Segment Growth")
+    void testSegmentGrowth() {
+        int pagesPerSegment = SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE;
+        long pointer = TuplePointer.pack(pagesPerSegment * 3 + 1, 16);
+        byte[] expectedPayload = "Beyond First Segment".getBytes(StandardCharsets.UTF_8);
+        assertEquals(SEGMENT_SIZE, channel.getCapacity(), "Only one segment should be mapped initially");
+        channel.ensureCapacity((pagesPerSegment * 3L + 2) * PageLayout.DEFAULT_PAGE_SIZE);
+        assertEquals(4L * SEGMENT_SIZE, channel.getCapacity(), "Channel should grow by whole segments");
+        channel.writeTuple(pointer, 42L, expectedPayload);
+        assertEquals(42L, channel.readXmin(pointer));
+        assertArrayEquals(expectedPayload, channel.readPayload(pointer));
+    }
+
+    @Test
+    @DisplayName("Reopen Maps Existing Segments")
+    void testReopenMapsExistingSegments() throws Exception {
+        long pointer = TuplePointer.pack(SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE, 0);
+        byte[] expectedPayload = "Persisted".getBytes(StandardCharsets.UTF_8);
+        channel.ensureCapacity(2L * SEGMENT_SIZE);
+        channel.writeTuple(pointer, 7L, expectedPayload);
+        channel.close();
+        channel = new MMapFileChannel(TEST_PATH, SEGMENT_SIZE);
+        assertEquals(2L * SEGMENT_SIZE, channel.getCapacity());
+        assertEquals(7L, channel.readXmin(pointer));
+        assertArrayEquals(expectedPayload, channel.readPayload(pointer));
+    }
+
+    @Test
+    @DisplayName("ByteBuffer Write")
+    void testByteBufferWrite() {
+        long pointer = TuplePointer.pack(2, 64);
+        ByteBuffer source = ByteBuffer.allocateDirect(32);
+        source.put("Direct Source".getBytes(StandardCharsets.UTF_8)).flip();
+        channel.writeTuple(pointer, 5L, source);
+        assertEquals(0, source.position());
+        assertArrayEquals("Direct Source".getBytes(StandardCharsets.UTF_8), channel.readPayload(pointer));
+    }
+
+    @Test
+    @DisplayName("Writes Mark Pages Dirty")
+    void testWritesMarkPagesDirty() {
+        byte[] payload = "Dirty".getBytes(StandardCharsets.UTF_8);
+        channel.writeTuple(TuplePointer.pack(3, 0), 1L, payload);
+        channel.writeTuple(TuplePointer.pack(3, 64), 1L, payload);
+        channel.writeTuple(TuplePointer.pack(4, 0), 1L, payload);
+        channel.writeTuple(TuplePointer.pack(9, 0), 1L, payload);
+        assertEquals(3, channel.countDirtyPages(), "Each written page should be tracked once");
+        assertEquals(3L * PageLayout.DEFAULT_PAGE_SIZE, channel.flushDirty(Long.MAX_VALUE));
+        assertEquals(0, channel.countDirtyPages());
+        assertEquals(0, channel.flushDirty(Long.MAX_VALUE), "Clean pages should not be forced again");
+    }
+
+    @Test
+    @DisplayName("Flush Budget Resumes Where It Stopped")
+    void testFlushBudgetResumes() {
+        int pagesPerSegment = SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE;
+        channel.ensureCapacity(2L * SEGMENT_SIZE);
+        byte[] payload = new byte[16];
+        channel.writeTuple(TuplePointer.pack(0, 0), 1L, payload);
+        channel.writeTuple(TuplePointer.pack(pagesPerSegment + 100, 0), 1L, payload);
+        assertEquals(PageLayout.DEFAULT_PAGE_SIZE, channel.flushDirty(1));
+        assertEquals(1, channel.countDirtyPages());
+        assertEquals(PageLayout.DEFAULT_PAGE_SIZE, channel.flushDirty(1));
+        assertEquals(0, channel.countDirtyPages());
+    }
+
+    @Test
+    @DisplayName("Ranged Force Clears Dirty Pages")
+    void testRangedForceClearsDirtyPages() {
+        byte[] payload = new byte[16];
+        channel.writeTuple(TuplePointer.pack(1, 0), 1L, payload);
+        channel.writeTuple(TuplePointer.pack(2, 0), 1L, payload);
+        channel.force(PageLayout.DEFAULT_PAGE_SIZE, PageLayout.DEFAULT_PAGE_SIZE);
+        assertEquals(1, channel.countDirtyPages());
+    }
+
+    @Test
+    @DisplayName("Prefault Keeps Bytes And Stays Ahead Of Tail")
+    void testPrefaultStaysAheadOfTail() {
+        AppendOnlyTableStore store = new AppendOnlyTableStore(channel);
+        long pointer = store.insertTuple(1001L, "Written".getBytes(StandardCharsets.UTF_8));
+        int windowPages = 2 * SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE;
+        TailPrefaulter prefaulter = new TailPrefaulter(channel, store, windowPages, 10);
+        long windowBytes = (long) windowPages * PageLayout.DEFAULT_PAGE_SIZE;
+        long dirtyPages = channel.countDirtyPages();
+
+        assertEquals(windowBytes, prefaulter.prefault());
+        assertTrue(channel.getCapacity() >= store.getReservedEndOffset() + windowBytes, "The window is mapped ahead of the tail");
+        assertEquals(0, prefaulter.prefault(), "Nothing to do until the tail moves");
+        assertEquals(dirtyPages, channel.countDirtyPages(), "Faulting does not mark pages for flushing");
+        assertArrayEquals("Written".getBytes(StandardCharsets.UTF_8), channel.readPayload(pointer));
+
+        long tail = store.getReservedEndOffset();
+        channel.prefault(0, channel.getCapacity());
+        assertEquals(1001L, channel.readXmin(pointer), "Faulting never changes a byte");
+        assertEquals(0L, channel.getLong(tail));
+        for (int i = 0; i <= AppendOnlyTableStore.DEFAULT_RESERVATION_PAGES; i++) {
+            store.insertTuple(1002L, new byte[PageLayout.maxPayloadSize(PageLayout.DEFAULT_PAGE_SIZE)]);
+        }
+        assertTrue(prefaulter.prefault() > 0, "A moved tail extends the window");
+    }
+
+    @Test
+    @DisplayName("Heat Survives Restart")
+    void testHeatSurvivesRestart() throws Exception {
+        Path heatFile = HotPageTracker.heatFile(Paths.get(TEST_PATH));
+        Files.deleteIfExists(heatFile);
+        long rangeSize = (long) HotPageTracker.DEFAULT_RANGE_PAGES * PageLayout.DEFAULT_PAGE_SIZE;
+        long cold = 10 * rangeSize;
+        long warm = 5 * rangeSize;
+        long hot = 2 * rangeSize;
+        try {
+            HotPageTracker tracker = new HotPageTracker(channel, heatFile, 60_000);
+            channel.prefetch(hot, rangeSize);
+            tracker.sample();
+            channel.prefetch(warm, rangeSize);
+            tracker.sample();
+            assertTrue(channel.isResident(hot, rangeSize));
+            assertFalse(channel.isResident(cold, rangeSize), "Untouched ranges of a sparse file are not resident");
+            assertTrue(tracker.heat(hot) > tracker.heat(warm), "Resident longer means hotter");
+            assertEquals(0, tracker.heat(cold));
+            tracker.close();
+
+            HotPageTracker restarted = new HotPageTracker(channel, heatFile, 60_000);
+            long[] order = restarted.prewarmOrder();
+            assertTrue(order.length >= 2);
+            List<Long> offsets = Arrays.stream(order).boxed().toList();
+            assertTrue(offsets.indexOf(hot) < offsets.indexOf(warm), "Hotter ranges are loaded first: " + offsets);
+            assertFalse(offsets.contains(cold));
+            assertEquals(order.length * rangeSize, restarted.prewarm());
+            restarted.close();
+
+            HotPageTracker regrained = new HotPageTracker(channel, heatFile, 60_000, HotPageTracker.DEFAULT_RANGE_PAGES * 2);
+            assertEquals(0, regrained.prewarmOrder().length, "Heat of another range size is ignored");
+            regrained.close();
+        } finally {
+            Files.deleteIfExists(heatFile);
+        }
+    }
 }
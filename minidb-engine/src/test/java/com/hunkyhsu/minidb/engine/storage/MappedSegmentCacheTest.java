@@ -0,0 +1,173 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.execution.DbIterator;
+import com.hunkyhsu.minidb.engine.execution.SeqScanNode;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 14:30
+ */
+class MappedSegmentCacheTest {
+    private static final Path TEST_PATH = Paths.get("test_segment_cache/minidb_cache_test.dat");
+    private static final Path OTHER_PATH = Paths.get("test_segment_cache/minidb_cache_other.dat");
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final int SLOTS = 3;
+    private MappedSegmentCache cache;
+    private MMapFileChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(TEST_PATH);
+        Files.deleteIfExists(OTHER_PATH);
+        cache = new MappedSegmentCache((long) SLOTS * SEGMENT_SIZE, SEGMENT_SIZE);
+        channel = new MMapFileChannel(new CachedSegmentBackend(TEST_PATH, cache));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(TEST_PATH);
+        Files.deleteIfExists(OTHER_PATH);
+        Files.deleteIfExists(TEST_PATH.getParent());
+    }
+
+    @Test
+    @DisplayName("Segments Survive Unmapping")
+    void segmentsSurviveUnmappingTest() {
+        int pagesPerSegment = SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE;
+        int segments = SLOTS * 4;
+        channel.ensureCapacity((long) segments * SEGMENT_SIZE);
+        for (int s = 0; s < segments; s++) {
+            byte[] payload = new byte[32];
+            Arrays.fill(payload, (byte) s);
+            channel.writeTuple(TuplePointer.pack(s * pagesPerSegment + 1, 0), 1000L + s, payload);
+            assertTrue(cache.getMappedBytes() <= cache.getMaxMappedBytes(), "The budget is never exceeded");
+        }
+        for (int s = 0; s < segments; s++) {
+            long pointer = TuplePointer.pack(s * pagesPerSegment + 1, 0);
+            assertEquals(1000L + s, channel.readXmin(pointer));
+            byte[] expected = new byte[32];
+            Arrays.fill(expected, (byte) s);
+            assertArrayEquals(expected, channel.readPayload(pointer));
+        }
+        assertTrue(channel.countDirtyPages() <= SLOTS, "Unmapped segments were written back");
+    }
+
+    @Test
+    @DisplayName("Pinned Segments Are Never Unmapped")
+    void pinnedSegmentsAreNeverUnmappedTest() {
+        channel.ensureCapacity((long) (SLOTS + 1) * SEGMENT_SIZE);
+        channel.read(0, (first, i) -> channel.read(SEGMENT_SIZE, (second, j) -> channel.read(2L * SEGMENT_SIZE, (third, k) -> {
+            assertThrows(IllegalStateException.class, () -> channel.getLong(3L * SEGMENT_SIZE));
+            assertEquals(0L, first.getLong(i), "Pinned mappings stay usable");
+        })));
+        assertEquals(0L, channel.getLong(3L * SEGMENT_SIZE), "Slots are usable again once unpinned");
+    }
+
+    @Test
+    @DisplayName("Files Share One Budget")
+    void filesShareOneBudgetTest() throws IOException {
+        MMapFileChannel other = new MMapFileChannel(new CachedSegmentBackend(OTHER_PATH, cache));
+        for (int s = 0; s < SLOTS; s++) {
+            channel.ensureCapacity((s + 1L) * SEGMENT_SIZE);
+            other.ensureCapacity((s + 1L) * SEGMENT_SIZE);
+            channel.putLong((long) s * SEGMENT_SIZE + 64, 10L + s);
+            other.putLong((long) s * SEGMENT_SIZE + 64, 20L + s);
+        }
+        assertEquals(cache.getMaxMappedBytes(), cache.getMappedBytes());
+        for (int s = 0; s < SLOTS; s++) {
+            assertEquals(10L + s, channel.getLong((long) s * SEGMENT_SIZE + 64));
+            assertEquals(20L + s, other.getLong((long) s * SEGMENT_SIZE + 64));
+        }
+        other.close();
+        assertTrue(cache.getMappedBytes() <= (long) (SLOTS - 1) * SEGMENT_SIZE, "Closing a file frees its slots");
+    }
+
+    @Test
+    @DisplayName("Mapped Backend Reads Cached Files")
+    void mappedBackendReadsCachedFilesTest() throws IOException {
+        AppendOnlyTableStore store = new AppendOnlyTableStore(channel);
+        long pointer = store.insertTuple(1001L, "Cached".getBytes());
+        store.checkpoint(() -> 2000L);
+        channel.close();
+        channel = new MMapFileChannel(TEST_PATH.toString(), SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel);
+        assertEquals(2000L, store.getRecoveredXid());
+        assertArrayEquals("Cached".getBytes(), channel.readPayload(pointer));
+    }
+
+    @Test
+    @DisplayName("Scans Run While Writers Evict")
+    void scansRunWhileWritersEvictTest() throws Exception {
+        AppendOnlyTableStore store = new AppendOnlyTableStore(channel, 1);
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(100000));
+        int numWriters = 4;
+        int rowsPerWriter = 2000;
+        ExecutorService executorService = Executors.newFixedThreadPool(numWriters + 1);
+        CountDownLatch done = new CountDownLatch(numWriters);
+        for (int w = 0; w < numWriters; w++) {
+            executorService.submit(() -> {
+                try {
+                    for (int i = 0; i < rowsPerWriter; i++) {
+                        long xmin = txManager.beginWriteTransaction();
+                        byte[] payload = new byte[1000];
+                        Arrays.fill(payload, (byte) xmin);
+                        store.insertTuple(xmin, payload);
+                        txManager.commitTransaction(xmin);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        Future<?> scanner = executorService.submit(() -> {
+            while (done.getCount() > 0) {
+                assertConsistent(scan(store, txManager));
+            }
+        });
+        done.await();
+        scanner.get();
+        executorService.shutdown();
+        assertTrue(store.getValidEndOffset() > cache.getMaxMappedBytes(), "The table outgrew the budget");
+        assertEquals(numWriters * rowsPerWriter, assertConsistent(scan(store, txManager)));
+    }
+
+    private SeqScanNode scan(AppendOnlyTableStore store, TransactionManager txManager) {
+        SeqScanNode scan = new SeqScanNode(channel, store, txManager.beginReadSnapshot(txManager.getLastAssignedXid()));
+        scan.open();
+        return scan;
+    }
+
+    private int assertConsistent(SeqScanNode scan) {
+        int count = 0;
+        long pointer;
+        while ((pointer = scan.next()) != DbIterator.EOF) {
+            byte expected = (byte) channel.readXmin(pointer);
+            for (byte b : channel.readPayload(pointer)) {
+                assertEquals(expected, b);
+            }
+            count++;
+        }
+        scan.close();
+        return count;
+    }
+}
@@ -0,0 +1,94 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the version-specific storage classes from the packaged jar, where the
+ * JDK picks them out of {@code META-INF/versions}. The {@code jdk22} profile
+ * runs it after {@code package}; from a classes directory it only ever sees
+ * the JDK 17 versions.
+ *
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 15:30
+ */
+class MultiReleaseIT {
+    private static final Path TEST_PATH = Paths.get("test_multi_release/minidb_multi_release_test.dat");
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final boolean FOREIGN_MEMORY = Runtime.version().feature() >= 22;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(TEST_PATH);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(TEST_PATH);
+        Files.deleteIfExists(TEST_PATH.getParent());
+    }
+
+    @Test
+    @DisplayName("Runs From The Multi-Release Jar Test")
+    void runsFromTheMultiReleaseJarTest() {
+        String location = MappedBackends.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        assertTrue(location.endsWith(".jar"), "Loaded from " + location);
+    }
+
+    @Test
+    @DisplayName("Mapped Backends Picks The Runtime's Backend Test")
+    void mappedBackendsPicksTheRuntimesBackendTest() throws IOException {
+        MappedSegmentBackend backend = MappedBackends.open(TEST_PATH, SEGMENT_SIZE);
+        assertEquals(FOREIGN_MEMORY ? "MemorySegmentBackend" : "MappedSegmentBackend",
+                backend.getClass().getSimpleName());
+        MMapFileChannel channel = new MMapFileChannel(backend);
+        channel.ensureCapacity(3L * SEGMENT_SIZE);
+        long pointer = TuplePointer.pack(2 * SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE + 1, 0);
+        channel.writeTuple(pointer, 1001L, "Grown".getBytes());
+        channel.close();
+
+        channel = new MMapFileChannel(MappedBackends.open(TEST_PATH, SEGMENT_SIZE));
+        assertEquals(1001L, channel.readXmin(pointer));
+        assertArrayEquals("Grown".getBytes(), channel.readPayload(pointer));
+        channel.close();
+    }
+
+    @Test
+    @DisplayName("Segment Mappings Survive Eviction Test")
+    void segmentMappingsSurviveEvictionTest() throws IOException {
+        assertEquals(FOREIGN_MEMORY, hasArena(), "SegmentMapping matches the runtime");
+        MappedSegmentCache cache = new MappedSegmentCache(2L * SEGMENT_SIZE, SEGMENT_SIZE);
+        MMapFileChannel channel = new MMapFileChannel(new CachedSegmentBackend(TEST_PATH, cache));
+        int pagesPerSegment = SEGMENT_SIZE / PageLayout.DEFAULT_PAGE_SIZE;
+        int segments = 6;
+        channel.ensureCapacity((long) segments * SEGMENT_SIZE);
+        for (int s = 0; s < segments; s++) {
+            byte[] payload = new byte[32];
+            Arrays.fill(payload, (byte) s);
+            channel.writeTuple(TuplePointer.pack(s * pagesPerSegment + 1, 0), 1000L + s, payload);
+            assertTrue(cache.getMappedBytes() <= cache.getMaxMappedBytes(), "The budget is never exceeded");
+        }
+        for (int s = 0; s < segments; s++) {
+            byte[] expected = new byte[32];
+            Arrays.fill(expected, (byte) s);
+            assertArrayEquals(expected, channel.readPayload(TuplePointer.pack(s * pagesPerSegment + 1, 0)));
+        }
+        channel.close();
+    }
+
+    private static boolean hasArena() {
+        return Arrays.stream(SegmentMapping.class.getDeclaredFields())
+                .anyMatch(field -> field.getName().equals("arena"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 22:40
+ */
+class OverflowStoreTest {
+    private static final String TEST_DB_PATH = "test_overflow/minidb_overflow_test.dat";
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private MMapFileChannel channel;
+    private OverflowStore overflow;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        overflow = new OverflowStore(channel, new AppendOnlyTableStore(channel));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get("test_overflow"));
+    }
+
+    @Test
+    @DisplayName("Chunk Chain Round Trip Test")
+    void chunkChainRoundTripTest() {
+        Random random = new Random(42);
+        for (int length : new int[] {1, overflow.getChunkDataSize(), overflow.getChunkDataSize() + 1, 200 * 1024}) {
+            byte[] value = new byte[length + 3];
+            random.nextBytes(value);
+            long firstChunk = overflow.write(1000L, value, 3, length);
+            byte[] expected = new byte[length];
+            System.arraycopy(value, 3, expected, 0, length);
+            assertArrayEquals(expected, overflow.read(firstChunk, length), "length " + length);
+        }
+    }
+
+    @Test
+    @DisplayName("Chunks Fill Their Pages Test")
+    void chunksFillTheirPagesTest() {
+        long before = overflow.getStore().getReservedEndOffset();
+        overflow.write(1000L, new byte[200 * 1024], 0, 200 * 1024);
+        long pages = (overflow.getStore().getReservedEndOffset() - before) / channel.getPageSize();
+        assertTrue(pages <= 200 * 1024 / overflow.getChunkDataSize() + 1 + AppendOnlyTableStore.DEFAULT_RESERVATION_PAGES,
+                "Pages used: " + pages);
+    }
+}
@@ -0,0 +1,149 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.execution.DbIterator;
+import com.hunkyhsu.minidb.engine.execution.SeqScanNode;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 21:20
+ */
+class PageChecksumsTest {
+    private static final String TEST_DB_PATH = "test_checksum/minidb_checksum_test.dat";
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private MMapFileChannel channel;
+    private AppendOnlyTableStore store;
+    private TransactionManager txManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel, 1);
+        txManager = new TransactionManager(new GlobalCommitLog(100000));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get("test_checksum"));
+    }
+
+    private long insertCommitted() {
+        long xid = txManager.beginWriteTransaction();
+        long pointer = store.insertTuple(xid, new byte[64]);
+        txManager.commitTransaction(xid);
+        return pointer;
+    }
+
+    /**
+     * Pages are checksummed one checkpoint after the one that sealed them.
+     */
+    private void sealAndChecksum() {
+        store.checkpoint(txManager::getLastAssignedXid);
+        store.checkpoint(txManager::getLastAssignedXid);
+    }
+
+    private int scan() {
+        SeqScanNode scan = new SeqScanNode(channel, store, txManager.beginReadSnapshot(9999));
+        scan.open();
+        int rows = 0;
+        while (scan.next() != DbIterator.EOF) { rows++; }
+        scan.close();
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Sealed Pages Get A Checksum Test")
+    void sealedPagesGetAChecksumTest() throws IOException {
+        long pointer = insertCommitted();
+        int pageId = TuplePointer.getPageId(pointer);
+        store.checkpoint(txManager::getLastAssignedXid);
+        assertEquals(0, SlottedPage.flags(channel, pageId) & PageLayout.PAGE_FLAG_CHECKSUMMED,
+                "A page is not checksummed by the checkpoint that seals it");
+        store.checkpoint(txManager::getLastAssignedXid);
+        assertNotEquals(0, SlottedPage.flags(channel, pageId) & PageLayout.PAGE_FLAG_CHECKSUMMED);
+        assertEquals(1, scan());
+        assertEquals(List.of(), store.scrub());
+
+        channel.close();
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel, 1);
+        assertEquals(1, scan(), "Checksums survive a restart");
+    }
+
+    @Test
+    @DisplayName("Corrupt Page Is Detected Test")
+    void corruptPageIsDetectedTest() {
+        long pointer = insertCommitted();
+        insertCommitted();
+        sealAndChecksum();
+        int pageId = TuplePointer.getPageId(pointer);
+        long payload = channel.payloadOffset(pointer);
+        channel.putInt(payload, 0xBADC0DE);
+
+        CorruptPageException e = assertThrows(CorruptPageException.class, this::scan);
+        assertEquals(pageId, e.getPageId());
+        assertEquals(List.of(pageId), store.scrub());
+
+        channel.putInt(payload, 0);
+        assertEquals(List.of(), store.scrub());
+        assertEquals(2, scan());
+    }
+
+    @Test
+    @DisplayName("Malformed Page Is Reported As Corrupt Test")
+    void malformedPageIsReportedAsCorruptTest() {
+        long pointer = insertCommitted();
+        int pageId = TuplePointer.getPageId(pointer);
+        store.checkpoint(txManager::getLastAssignedXid);
+        // A slot pointing into the page header can not be checksummed
+        channel.putInt(channel.pageStart(pageId + 1) - PageLayout.SLOT_SIZE, 0);
+        store.checkpoint(txManager::getLastAssignedXid);
+
+        assertNotEquals(0, SlottedPage.flags(channel, pageId) & PageLayout.PAGE_FLAG_MALFORMED);
+        assertEquals(pageId, assertThrows(CorruptPageException.class, this::scan).getPageId());
+        assertEquals(List.of(pageId), store.scrub());
+        store = new AppendOnlyTableStore(channel, 1);
+        assertEquals(List.of(pageId), store.scrub(), "The flag survives a restart");
+    }
+
+    @Test
+    @DisplayName("Verified Page Is Not Checked Again Test")
+    void verifiedPageIsNotCheckedAgainTest() {
+        long pointer = insertCommitted();
+        sealAndChecksum();
+        assertEquals(1, scan());
+        long payload = channel.payloadOffset(pointer);
+        channel.putInt(payload, 0xBADC0DE);
+        assertEquals(1, scan(), "Steady-state scans only test the verified bit");
+        assertEquals(1, store.scrub().size(), "Scrubbing re-checks verified pages");
+    }
+
+    @Test
+    @DisplayName("Deletes After Sealing Keep The Checksum Test")
+    void deletesAfterSealingKeepTheChecksumTest() {
+        long pointer = insertCommitted();
+        insertCommitted();
+        sealAndChecksum();
+        long xid = txManager.beginWriteTransaction();
+        store.deleteTuple(txManager.beginReadSnapshot(xid), pointer);
+        txManager.commitTransaction(xid);
+        store.addPageFlags(TuplePointer.getPageId(pointer), PageLayout.PAGE_FLAG_VACATED);
+        assertEquals(List.of(), store.scrub());
+    }
+}
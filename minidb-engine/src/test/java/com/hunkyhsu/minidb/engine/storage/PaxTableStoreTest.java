@@ -0,0 +1,111 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.StorageLayout;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 19:20
+ */
+class PaxTableStoreTest {
+    private static final String TEST_DB_PATH = "test_pax/minidb_pax_test.dat";
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final TableMetadata EVENTS = new TableMetadata("events",
+            List.of(new Column("id", Type.INT, 0), new Column("age", Type.INT, 0), new Column("score", Type.INT, 0)),
+            StorageLayout.PAX);
+    private MMapFileChannel channel;
+    private PaxTableStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new PaxTableStore(channel, EVENTS, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get("test_pax"));
+    }
+
+    private long insertEvent(long xmin, int id) {
+        return store.insertRow(xmin, ByteBuffer.allocate(12).putInt(0, id).putInt(4, id % 100).putInt(8, -id));
+    }
+
+    @Test
+    @DisplayName("Rows Are Split Into Column Minipages Test")
+    void rowsSplitIntoMinipagesTest() {
+        long first = insertEvent(1000L, 1);
+        long second = insertEvent(1001L, 2);
+        assertEquals(TuplePointer.getPageId(first), TuplePointer.getPageId(second));
+        assertEquals(0, TuplePointer.getOffset(first));
+        assertEquals(1, TuplePointer.getOffset(second));
+        int pageId = TuplePointer.getPageId(first);
+        assertEquals(2, store.getRowCount(pageId));
+        assertEquals(1000L, SlottedPage.minXmin(channel, pageId));
+        assertEquals(1001L, SlottedPage.maxXmin(channel, pageId));
+        assertEquals(1001L, store.readXmin(second));
+        assertEquals(2, store.readInt(second, store.columnIndex("id")));
+        assertEquals(-2, store.readInt(second, store.columnIndex("score")));
+        assertArrayEquals(ByteBuffer.allocate(12).putInt(1).putInt(1).putInt(-1).array(), store.readRow(first));
+        // The age minipage follows the whole id minipage
+        long ageMinipage = (long) pageId * PageLayout.DEFAULT_PAGE_SIZE + PageLayout.PAGE_HEADER_SIZE
+                + (long) store.getRowsPerPage() * (Long.BYTES + Integer.BYTES);
+        assertEquals(2, channel.getInt(ageMinipage + Integer.BYTES));
+    }
+
+    @Test
+    @DisplayName("Full Page Moves To Next Page Test")
+    void fullPageMovesToNextPageTest() {
+        int rowsPerPage = store.getRowsPerPage();
+        assertEquals((PageLayout.DEFAULT_PAGE_SIZE - PageLayout.PAGE_HEADER_SIZE) / (Long.BYTES + 12), rowsPerPage);
+        long first = insertEvent(1000L, 0);
+        long last = first;
+        for (int i = 1; i <= rowsPerPage; i++) {
+            last = insertEvent(1000L, i);
+        }
+        assertEquals(TuplePointer.getPageId(first) + 1, TuplePointer.getPageId(last), "Overflow row starts a fresh page");
+        assertEquals(0, TuplePointer.getOffset(last));
+        assertEquals(rowsPerPage, store.getRowCount(TuplePointer.getPageId(first)));
+    }
+
+    @Test
+    @DisplayName("Reopen Keeps Rows And Layout Test")
+    void reopenKeepsRowsTest() throws IOException {
+        long pointer = insertEvent(4242L, 7);
+        channel.close();
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        assertThrows(IllegalStateException.class, () -> new AppendOnlyTableStore(channel),
+                "A PAX file can not be opened as a row store");
+        store = new PaxTableStore(channel, EVENTS, 1);
+        assertEquals(4242L, store.getRecoveredXid());
+        assertEquals(7, store.readInt(pointer, store.columnIndex("id")));
+        long next = insertEvent(4243L, 8);
+        assertTrue(TuplePointer.getPageId(next) > TuplePointer.getPageId(pointer), "Writes resume past the recovered tail");
+    }
+
+    @Test
+    @DisplayName("Row Tables Are Rejected Test")
+    void rowTablesRejectedTest() {
+        TableMetadata rowTable = new TableMetadata("users", List.of(new Column("id", Type.INT, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new PaxTableStore(channel, rowTable));
+        assertThrows(IllegalArgumentException.class, () -> store.insertRow(1000L, new byte[8]));
+    }
+}
@@ -0,0 +1,137 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 22:10
+ */
+class RowFormatTest {
+    private static final String TEST_DB_PATH = "test_row_format/minidb_row_format_test.dat";
+    private static final String OVERFLOW_PATH = "test_row_format/minidb_row_format_test.overflow";
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final TableMetadata EVENTS = new TableMetadata("events", List.of(
+            new Column("id", Type.BIGINT, 0),
+            new Column("name", Type.VARCHAR, 0, true),
+            new Column("score", Type.DOUBLE, 0, true),
+            new Column("active", Type.BOOLEAN, 0),
+            new Column("note", Type.VARCHAR, 0),
+            new Column("created", Type.TIMESTAMP, 0),
+            new Column("age", Type.INT, 0)));
+    private MMapFileChannel channel;
+    private AppendOnlyTableStore store;
+    private RowFormat format;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel);
+        format = new RowFormat(EVENTS);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get(OVERFLOW_PATH));
+        Files.deleteIfExists(Paths.get("test_row_format"));
+    }
+
+    @Test
+    @DisplayName("Fixed Columns Keep Constant Offsets Test")
+    void fixedColumnsKeepConstantOffsetsTest() {
+        assertEquals(1, EVENTS.getNullBitmapSize());
+        assertEquals(1, EVENTS.getColumnOffset("id"));
+        assertEquals(17, EVENTS.getColumnOffset("score"), "A string's fixed part is its offset table entry");
+        assertEquals(1 + 8 + 8 + 8 + 1 + 8 + 8 + 4, EVENTS.getTupleSize());
+        assertTrue(EVENTS.hasVariableWidthColumns());
+
+        TableMetadata plain = new TableMetadata("users", List.of(new Column("id", Type.INT, 0), new Column("age", Type.INT, 0)));
+        assertEquals(0, plain.getNullBitmapSize());
+        assertEquals(4, plain.getColumnOffset("age"), "Tables without nullable columns keep the packed layout");
+    }
+
+    @Test
+    @DisplayName("Typed Columns Round Trip Test")
+    void typedColumnsRoundTripTest() {
+        int id = format.columnIndex("id");
+        int name = format.columnIndex("name");
+        int score = format.columnIndex("score");
+        int active = format.columnIndex("active");
+        int note = format.columnIndex("note");
+        int created = format.columnIndex("created");
+        int age = format.columnIndex("age");
+        long full = store.insertTuple(1000L, format.newRow()
+                .setLong(id, 1L << 40).setString(name, "héllo").setDouble(score, 2.5).setBoolean(active, true)
+                .setString(note, "").setTimestamp(created, 1_700_000_000_000_000L).setInt(age, 42).build());
+        long sparse = store.insertTuple(1000L, format.newRow().setLong(id, 7L).setNull(name).build());
+
+        assertEquals(1L << 40, format.getLong(channel, full, id));
+        assertEquals("héllo", format.getString(channel, full, name));
+        assertEquals(2.5, format.getDouble(channel, full, score));
+        assertTrue(format.getBoolean(channel, full, active));
+        assertEquals("", format.getString(channel, full, note));
+        assertEquals(1_700_000_000_000_000L, format.getLong(channel, full, created));
+        assertEquals(42, format.getInt(channel, full, age));
+        assertFalse(format.isNull(channel, full, name));
+
+        assertTrue(format.isNull(channel, sparse, name));
+        assertNull(format.getString(channel, sparse, name));
+        assertTrue(format.isNull(channel, sparse, score));
+        assertFalse(format.isNull(channel, sparse, id));
+        assertEquals("", format.getString(channel, sparse, note), "Unset non-null strings are empty");
+        assertEquals(0, format.getInt(channel, sparse, age));
+    }
+
+    @Test
+    @DisplayName("Long Strings Overflow Out Of Line Test")
+    void longStringsOverflowOutOfLineTest() throws IOException {
+        Files.deleteIfExists(Paths.get(OVERFLOW_PATH));
+        MMapFileChannel overflowChannel = new MMapFileChannel(OVERFLOW_PATH, SEGMENT_SIZE);
+        OverflowStore overflow = new OverflowStore(overflowChannel, new AppendOnlyTableStore(overflowChannel));
+        RowFormat toasting = new RowFormat(EVENTS, overflow);
+        int name = toasting.columnIndex("name");
+        int note = toasting.columnIndex("note");
+        int age = toasting.columnIndex("age");
+        String blob = "{\"k\":\"" + "é".repeat(50_000) + "\"}";
+        byte[] row = toasting.newRow().setString(name, "short").setString(note, blob).setInt(age, 9).build(1000L);
+        assertTrue(row.length < 256, "The row keeps only a reference and a prefix: " + row.length);
+        long pointer = store.insertTuple(1000L, row);
+
+        assertEquals(9, toasting.getInt(channel, pointer, age));
+        assertEquals("short", toasting.getString(channel, pointer, name));
+        assertEquals(blob, toasting.getString(channel, pointer, note));
+        assertEquals(blob.getBytes(StandardCharsets.UTF_8).length, toasting.getStringLength(channel, pointer, note));
+        String prefix = toasting.getStringPrefix(channel, pointer, note);
+        assertTrue(blob.startsWith(prefix) && prefix.length() > 0, "Prefix is cut on a character boundary: " + prefix);
+        assertThrows(IllegalStateException.class, () -> format.getString(channel, pointer, note),
+                "Reading the value needs the overflow store");
+        overflowChannel.close();
+    }
+
+    @Test
+    @DisplayName("Type And Nullability Are Checked Test")
+    void typeAndNullabilityAreCheckedTest() {
+        RowFormat.Builder row = format.newRow();
+        assertThrows(IllegalArgumentException.class, () -> row.setInt(format.columnIndex("id"), 1));
+        assertThrows(IllegalArgumentException.class, () -> row.setNull(format.columnIndex("note")));
+        long pointer = store.insertTuple(1000L, row.build());
+        assertThrows(IllegalArgumentException.class, () -> format.getInt(channel, pointer, format.columnIndex("name")));
+    }
+}
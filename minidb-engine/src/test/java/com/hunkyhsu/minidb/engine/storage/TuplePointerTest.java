@@ -34,7 +34,7 @@ class TuplePointerTest {
     @DisplayName("Extreme Pointer")
     void testExtremesPointer() {
         int expectedPageId = 999999;
-        int expectedOffset = PageLayout.PAGE_SIZE - 1;
+        int expectedOffset = PageLayout.DEFAULT_PAGE_SIZE - 1;
         long pointer = TuplePointer.pack(expectedPageId, expectedOffset);
         assertEquals(expectedPageId, TuplePointer.getPageId(pointer), "PageId Unpack failed");
         assertEquals(expectedOffset, TuplePointer.getOffset(pointer), "Offset Unpack failed");
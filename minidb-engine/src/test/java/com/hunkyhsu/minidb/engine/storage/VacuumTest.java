@@ -0,0 +1,294 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.Type;
+import com.hunkyhsu.minidb.engine.execution.DbIterator;
+import com.hunkyhsu.minidb.engine.execution.SeqScanNode;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionContext;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import com.hunkyhsu.minidb.engine.transaction.WriteConflictException;
+import com.hunkyhsu.minidb.engine.wal.Durability;
+import com.hunkyhsu.minidb.engine.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 20:30
+ */
+class VacuumTest {
+    private static final String TEST_DB_PATH = "test_vacuum/minidb_vacuum_test.dat";
+    private static final String TEST_WAL_PATH = "test_vacuum/minidb_vacuum_test.wal";
+    private static final String TEST_OVERFLOW_PATH = "test_vacuum/minidb_vacuum_test.ovf";
+    private static final TableMetadata DOCUMENTS = new TableMetadata("documents",
+            List.of(new Column("id", Type.INT, 0), new Column("body", Type.VARCHAR, 0)));
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final int ROWS = 200;
+    private MMapFileChannel channel;
+    private AppendOnlyTableStore store;
+    private TransactionManager txManager;
+    private Vacuum vacuum;
+    private WriteAheadLog wal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel, 1);
+        txManager = new TransactionManager(new GlobalCommitLog(100000));
+        vacuum = new Vacuum(channel, store, txManager, 0.5, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        vacuum.close();
+        channel.close();
+        if (wal != null) { wal.close(); }
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get(TEST_WAL_PATH));
+        Files.deleteIfExists(Paths.get(TEST_OVERFLOW_PATH));
+        Files.deleteIfExists(Paths.get("test_vacuum"));
+    }
+
+    private long[] insertRows(int rows) {
+        long xid = txManager.beginWriteTransaction();
+        long[] pointers = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            pointers[i] = store.insertTuple(xid, ByteBuffer.allocate(64).putInt(0, i));
+        }
+        txManager.commitTransaction(xid);
+        return pointers;
+    }
+
+    private void seal() {
+        store.checkpoint(txManager::getLastAssignedXid);
+    }
+
+    private List<Integer> scanIds(TransactionContext snapshot) {
+        SeqScanNode scan = new SeqScanNode(channel, store, snapshot);
+        scan.open();
+        List<Integer> ids = new ArrayList<>();
+        long pointer;
+        while ((pointer = scan.next()) != DbIterator.EOF) {
+            ids.add(ByteBuffer.wrap(channel.readPayload(pointer)).getInt());
+        }
+        scan.close();
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Aborted Pages Are Vacated Test")
+    void abortedPagesAreVacatedTest() {
+        long aborted = txManager.beginWriteTransaction();
+        long first = store.insertTuple(aborted, new byte[4000]);
+        store.insertTuple(aborted, new byte[4000]);
+        txManager.abortTransaction(aborted);
+        seal();
+        int pageId = TuplePointer.getPageId(first);
+        assertEquals(1, vacuum.vacuum());
+        assertNotEquals(0, SlottedPage.flags(channel, pageId) & PageLayout.PAGE_FLAG_VACATED);
+        assertEquals(1, vacuum.getPagesVacated());
+        assertEquals(0, vacuum.vacuum(), "A vacated page is not visited again");
+    }
+
+    @Test
+    @DisplayName("Live Tuples Move Out Without Duplicates Test")
+    void liveTuplesMoveOutTest() {
+        long[] pointers = insertRows(ROWS);
+        long deleter = txManager.beginWriteTransaction();
+        TransactionContext deleterSnapshot = txManager.beginReadSnapshot(deleter);
+        for (int i = 1; i < ROWS; i++) {
+            store.deleteTuple(deleterSnapshot, pointers[i]);
+        }
+        txManager.commitTransaction(deleter);
+        seal();
+
+        TransactionContext before = txManager.openSnapshot(99999);
+        vacuum.vacuum();
+        assertEquals(1, vacuum.getTuplesMoved(), "Only row 0 is live");
+        long moved = store.readNextVersion(pointers[0]);
+        assertNotEquals(TuplePointer.NONE, moved);
+        assertTrue(TuplePointer.getPageId(moved) > TuplePointer.getPageId(pointers[0]));
+        assertEquals(List.of(0), scanIds(before), "An older snapshot keeps reading the old copy");
+        TransactionContext after = txManager.openSnapshot(99999);
+        assertEquals(List.of(0), scanIds(after), "A newer snapshot reads the moved copy");
+        txManager.releaseSnapshot(after);
+
+        seal();
+        vacuum.vacuum();
+        assertEquals(0, SlottedPage.flags(channel, TuplePointer.getPageId(pointers[0])) & PageLayout.PAGE_FLAG_VACATED,
+                "The open snapshot still holds the old copies");
+        txManager.releaseSnapshot(before);
+        vacuum.vacuum();
+        assertNotEquals(0, SlottedPage.flags(channel, TuplePointer.getPageId(pointers[0])) & PageLayout.PAGE_FLAG_VACATED);
+        assertEquals(List.of(0), scanIds(txManager.beginReadSnapshot(99999)));
+    }
+
+    @Test
+    @DisplayName("Writers Older Than The Mover Update Moved Rows Test")
+    void writersOlderThanTheMoverUpdateMovedRowsTest() {
+        long[] pointers = insertRows(ROWS);
+        long deleter = txManager.beginWriteTransaction();
+        TransactionContext deleterSnapshot = txManager.beginReadSnapshot(deleter);
+        for (int i = 2; i < ROWS; i++) {
+            store.deleteTuple(deleterSnapshot, pointers[i]);
+        }
+        txManager.commitTransaction(deleter);
+        seal();
+
+        long updater = txManager.beginWriteTransaction();
+        TransactionContext updaterSnapshot = txManager.beginReadSnapshot(updater);
+        long deleter2 = txManager.beginWriteTransaction();
+        TransactionContext deleter2Snapshot = txManager.beginReadSnapshot(deleter2);
+        vacuum.vacuum();
+        assertEquals(2, vacuum.getTuplesMoved());
+
+        long updated = store.updateTuple(updaterSnapshot, pointers[0], ByteBuffer.allocate(64).putInt(0, 1000).array());
+        store.deleteTuple(deleter2Snapshot, pointers[1]);
+        txManager.commitTransaction(updater);
+        txManager.commitTransaction(deleter2);
+        assertEquals(updated, store.readNextVersion(store.readNextVersion(pointers[0])),
+                "The update hangs off the moved copy");
+        assertEquals(List.of(1000), scanIds(txManager.beginReadSnapshot(99999)), "Each row is seen once");
+
+        long late = txManager.beginWriteTransaction();
+        TransactionContext lateSnapshot = txManager.beginReadSnapshot(late);
+        assertThrows(WriteConflictException.class, () -> store.deleteTuple(lateSnapshot, pointers[0]),
+                "A committed update behind the move still conflicts");
+        txManager.abortTransaction(late);
+    }
+
+    @Test
+    @DisplayName("Committed Tuples Are Hinted Test")
+    void committedTuplesAreHintedTest() {
+        TransactionContext before = txManager.beginReadSnapshot(99999);
+        long[] pointers = insertRows(ROWS);
+        long aborted = txManager.beginWriteTransaction();
+        long abortedPointer = store.insertTuple(aborted, new byte[64]);
+        txManager.abortTransaction(aborted);
+        seal();
+
+        vacuum.vacuum();
+        assertEquals(ROWS, vacuum.getTuplesHinted());
+        assertNotEquals(0, channel.readTupleFlags(pointers[0]) & PageLayout.TUPLE_FLAG_XMIN_COMMITTED);
+        assertEquals(0, channel.readTupleFlags(abortedPointer));
+        assertEquals(64, channel.readPayloadLength(pointers[0]), "The length keeps its half of the word");
+        assertEquals(List.of(), store.scrub(), "Hints lie outside the checksum");
+        assertEquals(List.of(), scanIds(before), "A hint does not make a row visible to an older snapshot");
+        assertEquals(ROWS, scanIds(txManager.beginReadSnapshot(99999)).size());
+        vacuum.vacuum();
+        assertEquals(ROWS, vacuum.getTuplesHinted(), "Hinted tuples are not written again");
+    }
+
+    @Test
+    @DisplayName("Unsealed Pages Are Left Alone Test")
+    void unsealedPagesAreLeftAloneTest() {
+        long aborted = txManager.beginWriteTransaction();
+        store.insertTuple(aborted, new byte[64]);
+        txManager.abortTransaction(aborted);
+        assertEquals(0, vacuum.vacuum(), "The writer's open page may still receive tuples");
+    }
+
+    @Test
+    @DisplayName("Vacated Pages Are Refilled Test")
+    void vacatedPagesAreRefilledTest() throws IOException {
+        wal = new WriteAheadLog(TEST_WAL_PATH, 10);
+        wal.start();
+        store = new AppendOnlyTableStore(channel, 1, wal);
+        txManager = new TransactionManager(new GlobalCommitLog(100000), TransactionManager.FIRST_XID, wal, Durability.SYNC);
+        vacuum = new Vacuum(channel, store, txManager, 0.5, 1000);
+        long committed = insertRows(1)[0];
+        // Sealing makes the aborted rows start a page of their own
+        walCheckpoint();
+        long aborted = txManager.beginWriteTransaction();
+        int pageId = TuplePointer.getPageId(store.insertTuple(aborted, new byte[4000]));
+        store.insertTuple(aborted, new byte[4000]);
+        txManager.abortTransaction(aborted);
+        // The second checkpoint takes the page's checksum, after which it may change again
+        walCheckpoint();
+        walCheckpoint();
+
+        assertEquals(1, vacuum.vacuum());
+        assertEquals(0, SlottedPage.tupleCount(channel, pageId), "A vacated page reads as empty");
+        long early = insertRows(1)[0];
+        assertEquals(0, vacuum.vacuum(), "Handed back once the horizon passes");
+        assertEquals(1, store.countFreePages());
+        // Seals the open reservation without moving the redo position past the last insert
+        seal();
+        long endBefore = store.getValidEndOffset();
+        long late = insertRows(1)[0];
+        assertNotEquals(pageId, TuplePointer.getPageId(late), "Not reused before the log moves past it");
+        assertNotEquals(pageId, TuplePointer.getPageId(early));
+
+        walCheckpoint();
+        long xid = txManager.beginWriteTransaction();
+        long reused = store.insertTuple(xid, ByteBuffer.allocate(64).putInt(0, 7));
+        txManager.commitTransaction(xid);
+        assertEquals(pageId, TuplePointer.getPageId(reused), "The vacated page is refilled");
+        assertEquals(0, store.countFreePages());
+        assertEquals(0, SlottedPage.flags(channel, pageId) & PageLayout.PAGE_FLAG_VACATED);
+        assertTrue(store.getValidEndOffset() <= endBefore + store.getPageSize(), "The file grew by at most one page");
+        List<Integer> ids = scanIds(txManager.beginReadSnapshot(99999));
+        assertTrue(ids.contains(7));
+        assertEquals(4, ids.size(), "Rows " + ids + " besides the aborted ones");
+        assertEquals(0, ByteBuffer.wrap(channel.readPayload(committed)).getInt());
+    }
+
+    @Test
+    @DisplayName("Deleted Rows Free Their Overflow Chains Test")
+    void deletedRowsFreeTheirOverflowChainsTest() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_OVERFLOW_PATH));
+        MMapFileChannel overflowChannel = new MMapFileChannel(TEST_OVERFLOW_PATH, SEGMENT_SIZE);
+        AppendOnlyTableStore overflowStore = new AppendOnlyTableStore(overflowChannel, 1);
+        RowFormat format = new RowFormat(DOCUMENTS, new OverflowStore(overflowChannel, overflowStore));
+        int body = format.columnIndex("body");
+        vacuum = new Vacuum(channel, store, txManager, 0.5, 1000, format);
+        String deletedBody = "d".repeat(20_000);
+        String movedBody = "m".repeat(20_000);
+
+        long writer = txManager.beginWriteTransaction();
+        long deleted = store.insertTuple(writer, format.newRow().setString(body, deletedBody).build(writer));
+        long moved = store.insertTuple(writer, format.newRow().setString(body, movedBody).build(writer));
+        txManager.commitTransaction(writer);
+        seal();
+        long deleter = txManager.beginWriteTransaction();
+        TransactionContext context = txManager.beginReadSnapshot(deleter);
+        store.deleteTuple(context, deleted);
+        // A copy of the payload, as the mover makes, shares the old version's chain
+        long successor = store.updateTuple(context, moved, channel.readPayload(moved));
+        txManager.commitTransaction(deleter);
+        seal();
+
+        assertEquals(1, vacuum.vacuum());
+        int chunks = (deletedBody.length() + format.getOverflowStore().getChunkDataSize() - 1)
+                / format.getOverflowStore().getChunkDataSize();
+        assertEquals(chunks, vacuum.getChunksFreed(), "Only the deleted row's chain is freed");
+        assertEquals(movedBody, format.getString(channel, successor, body));
+
+        overflowStore.checkpoint(txManager::getLastAssignedXid);
+        try (Vacuum overflowVacuum = new Vacuum(overflowChannel, overflowStore, txManager, 1.0, 1000)) {
+            assertEquals(chunks, overflowVacuum.vacuum(), "Every chunk filled a page of its own");
+            assertEquals(0, overflowVacuum.getTuplesMoved(), "Chunks never move");
+        }
+        assertEquals(movedBody, format.getString(channel, successor, body));
+        overflowChannel.close();
+    }
+
+    private void walCheckpoint() {
+        store.checkpoint(txManager::getLastAssignedXid, txManager.getRedoLsn());
+    }
+}
@@ -0,0 +1,90 @@
+package com.hunkyhsu.minidb.engine.storage;
+
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 18:50
+ */
+class ZoneMapTest {
+    private static final String TEST_DB_PATH = "test_zone/minidb_zone_test.dat";
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final TableMetadata USERS = new TableMetadata("users",
+            List.of(new Column("id", Type.INT, 0), new Column("age", Type.INT, 0)));
+    private MMapFileChannel channel;
+    private AppendOnlyTableStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel, 1, null, new ZoneMap(USERS));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(Paths.get(TEST_DB_PATH));
+        Files.deleteIfExists(Paths.get("test_zone"));
+    }
+
+    private long insertUser(int id, int age) {
+        return store.insertTuple(1000L, ByteBuffer.allocate(8).putInt(0, id).putInt(4, age));
+    }
+
+    @Test
+    @DisplayName("Insert Widens Page Summary Test")
+    void insertWidensPageSummaryTest() {
+        ZoneMap zoneMap = store.getZoneMap();
+        int age = zoneMap.columnIndex("age");
+        int pageId = TuplePointer.getPageId(insertUser(1, 30));
+        insertUser(2, 45);
+        assertTrue(zoneMap.mayMatch(pageId, age, 30, 30));
+        assertTrue(zoneMap.mayMatch(pageId, age, 40, 50));
+        assertFalse(zoneMap.mayMatch(pageId, age, 46, Integer.MAX_VALUE));
+        assertFalse(zoneMap.mayMatch(pageId, age, Integer.MIN_VALUE, 29));
+        assertFalse(zoneMap.mayMatch(pageId + 1, age, Integer.MIN_VALUE, Integer.MAX_VALUE),
+                "A page without rows matches nothing");
+        assertTrue(zoneMap.mayMatch(1_000_000, age, 0, 0), "Pages never summarized may match");
+        assertThrows(java.util.NoSuchElementException.class, () -> zoneMap.columnIndex("name"));
+    }
+
+    @Test
+    @DisplayName("Short Payload Widens To Full Range Test")
+    void shortPayloadWidensToFullRangeTest() {
+        int pageId = TuplePointer.getPageId(store.insertTuple(1000L, new byte[4]));
+        assertTrue(store.getZoneMap().mayMatch(pageId, store.getZoneMap().columnIndex("age"), 1234, 1234));
+    }
+
+    @Test
+    @DisplayName("Summaries Rebuilt Lazily On Reopen Test")
+    void summariesRebuiltLazilyOnReopenTest() throws IOException {
+        int pageId = TuplePointer.getPageId(insertUser(1, 20));
+        insertUser(2, 25);
+        channel.close();
+        channel = new MMapFileChannel(TEST_DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel, 1, null, new ZoneMap(USERS));
+        int age = store.getZoneMap().columnIndex("age");
+        int newPageId = TuplePointer.getPageId(insertUser(3, 99));
+        assertNotEquals(pageId, newPageId, "Appends resume on a fresh page");
+        assertTrue(store.getZoneMap().mayMatch(pageId, age, 25, 100));
+        assertFalse(store.getZoneMap().mayMatch(pageId, age, 26, 100));
+        assertFalse(store.getZoneMap().mayMatch(pageId, age, 99, 99), "Later inserts never widen old pages");
+        assertTrue(store.getZoneMap().mayMatch(newPageId, age, 99, 99));
+    }
+}
@@ -9,6 +9,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author hunkyhsu
@@ -49,6 +50,23 @@ class GlobalCommitLogTest {
         assertEquals(GlobalCommitLog.ABORTED, clog.getStatus(32));
     }
 
+    @Test
+    @DisplayName("Grows Past Initial Size")
+    void testGrowsPastInitialSize() {
+        GlobalCommitLog small = new GlobalCommitLog(100);
+        long farXid = 10L * GlobalCommitLog.XIDS_PER_SEGMENT + 7;
+        assertEquals(GlobalCommitLog.IN_PROGRESS, small.getStatus(farXid));
+        small.setStatus(farXid, GlobalCommitLog.COMMITTED);
+        small.setStatus(farXid + 1, GlobalCommitLog.ABORTED);
+        small.setStatus(3, GlobalCommitLog.COMMITTED);
+
+        assertEquals(GlobalCommitLog.COMMITTED, small.getStatus(farXid));
+        assertEquals(GlobalCommitLog.ABORTED, small.getStatus(farXid + 1));
+        assertEquals(GlobalCommitLog.COMMITTED, small.getStatus(3));
+        assertEquals(GlobalCommitLog.IN_PROGRESS, small.getStatus(5L * GlobalCommitLog.XIDS_PER_SEGMENT));
+        assertTrue(small.getCapacity() > farXid);
+    }
+
     @Test
     @DisplayName("Mutil Thread Test")
     void testMutilThread() throws InterruptedException {
@@ -54,4 +54,17 @@ class TransactionContextTest {
         assertTrue(snapshot.isVisible(13), "Active But Committed Transaction should be visible");
         assertFalse(snapshot.isVisible(14), "Active Transaction should be invisible");
     }
+    @Test
+    @DisplayName("Deleted Version Test")
+    void deletedVersionTest() {
+        assertTrue(snapshot.isVisible(10, 0), "Never deleted version should be visible");
+        assertFalse(snapshot.isVisible(10, 13), "Committed delete should hide the version");
+        assertTrue(snapshot.isVisible(10, 11), "Aborted delete should be ignored");
+        assertTrue(snapshot.isVisible(10, 14), "Concurrent delete should be ignored");
+        assertFalse(snapshot.isVisible(10, 15), "Own delete should hide the version");
+        assertTrue(snapshot.canOverwrite(0));
+        assertTrue(snapshot.canOverwrite(11), "Aborted stamp can be taken over");
+        assertFalse(snapshot.canOverwrite(13), "Committed stamp wins");
+        assertFalse(snapshot.canOverwrite(14), "In-progress stamp wins");
+    }
 }
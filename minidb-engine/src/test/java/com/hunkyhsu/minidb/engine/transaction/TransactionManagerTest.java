@@ -75,4 +75,14 @@ class TransactionManagerTest {
         assertTrue(finalSnapshot.isVisible(1000), "First Transaction should be visible");
         assertTrue(finalSnapshot.isVisible(1000 + writerCount - 1), "Last Transaction should be visible");
     }
+
+    @Test
+    @DisplayName("Seeded First Xid Test")
+    void seededFirstXidTest() {
+        TransactionManager restarted = new TransactionManager(clog, 5000L);
+        assertEquals(5000L, restarted.beginWriteTransaction(), "Xids should resume after the recovered xid");
+        assertEquals(5000L, restarted.getLastAssignedXid());
+        TransactionManager fresh = new TransactionManager(clog, 1L);
+        assertEquals(TransactionManager.FIRST_XID, fresh.beginWriteTransaction(), "Seed never goes below FIRST_XID");
+    }
 }
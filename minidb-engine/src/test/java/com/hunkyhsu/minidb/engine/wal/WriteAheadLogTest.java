@@ -0,0 +1,271 @@
+package com.hunkyhsu.minidb.engine.wal;
+
+import com.hunkyhsu.minidb.engine.execution.DbIterator;
+import com.hunkyhsu.minidb.engine.execution.SeqScanNode;
+import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
+import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
+import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
+import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author hunkyhsu
+ * @version 1.0
+ * @date 2026/10/18 15:10
+ */
+class WriteAheadLogTest {
+    private static final String WAL_PATH = "test_wal/minidb_test.wal";
+    private static final String DB_PATH = "test_wal/minidb_test.dat";
+    private static final String CLOG_PATH = "test_wal/minidb_test.clog";
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private WriteAheadLog wal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(WAL_PATH));
+        Files.deleteIfExists(Paths.get(DB_PATH));
+        wal = new WriteAheadLog(WAL_PATH, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        wal.close();
+        Files.deleteIfExists(Paths.get(WAL_PATH));
+        Files.deleteIfExists(Paths.get(DB_PATH));
+        Files.deleteIfExists(Paths.get(CLOG_PATH));
+        try (Stream<Path> segments = Files.list(Paths.get("test_wal"))) {
+            for (Path segment : segments.toList()) {
+                Files.delete(segment);
+            }
+        }
+        Files.deleteIfExists(Paths.get("test_wal"));
+    }
+
+    @Test
+    @DisplayName("Group Commit Shares Fsync Test")
+    void groupCommitSharesFsyncTest() throws Exception {
+        wal.start();
+        int numThreads = 32;
+        int commitsPerThread = 50;
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        CountDownLatch latch = new CountDownLatch(numThreads);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final long base = 1000L + t * commitsPerThread;
+            executorService.submit(() -> {
+                try {
+                    for (int i = 0; i < commitsPerThread; i++) {
+                        CompletableFuture<Void> future = wal.logCommit(base + i, Durability.SYNC);
+                        synchronized (futures) { futures.add(future); }
+                        future.join();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+        assertEquals(numThreads * commitsPerThread, futures.size());
+        assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+        assertEquals(wal.getWrittenLsn(), wal.getDurableLsn(), "Every acknowledged commit must be durable");
+        assertTrue(wal.getSyncCount() < numThreads * commitsPerThread,
+                "Concurrent commits should share fsyncs: " + wal.getSyncCount());
+    }
+
+    @Test
+    @DisplayName("Replay Round Trip Test")
+    void replayRoundTripTest() throws IOException {
+        wal.start();
+        byte[] payload = "row-1".getBytes(StandardCharsets.UTF_8);
+        wal.logInsert(1001L, 7, 42L, payload, 0, payload.length);
+        wal.logCommit(1001L, Durability.ASYNC).join();
+        wal.logDelete(1002L, 7, 42L, 43L);
+        wal.logAbort(1002L);
+        wal.close();
+
+        List<String> events = new ArrayList<>();
+        wal = new WriteAheadLog(WAL_PATH, 10);
+        wal.replay(new WriteAheadLog.ReplayHandler() {
+            public void onInsert(long xid, int tableOid, long pointer, ByteBuffer recordPayload) {
+                events.add("insert:" + xid + ":" + tableOid + ":" + pointer + ":" + StandardCharsets.UTF_8.decode(recordPayload));
+            }
+            public void onDelete(long xid, int tableOid, long pointer, long nextVersion) {
+                events.add("delete:" + xid + ":" + tableOid + ":" + pointer + ":" + nextVersion);
+            }
+            public void onCommit(long xid) { events.add("commit:" + xid); }
+            public void onAbort(long xid) { events.add("abort:" + xid); }
+        });
+        assertEquals(List.of("insert:1001:7:42:row-1", "commit:1001", "delete:1002:7:42:43", "abort:1002"), events);
+    }
+
+    @Test
+    @DisplayName("Torn Tail Is Truncated Test")
+    void tornTailIsTruncatedTest() throws IOException {
+        wal.start();
+        wal.logCommit(1001L, Durability.SYNC).join();
+        long goodEnd = wal.getDurableLsn();
+        wal.close();
+        try (FileChannel file = FileChannel.open(Paths.get(WAL_PATH), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            file.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        wal = new WriteAheadLog(WAL_PATH, 10);
+        assertEquals(goodEnd, wal.replay(null), "Replay should stop before the torn record");
+        assertEquals(goodEnd, Files.size(Paths.get(WAL_PATH)));
+        wal.start();
+        wal.logCommit(1002L, Durability.SYNC).join();
+        assertTrue(wal.getDurableLsn() > goodEnd);
+    }
+
+    @Test
+    @DisplayName("Recovery Restores Committed Rows Test")
+    void recoveryRestoresCommittedRowsTest() throws IOException {
+        wal.start();
+        MMapFileChannel channel = new MMapFileChannel(DB_PATH, SEGMENT_SIZE);
+        AppendOnlyTableStore store = new AppendOnlyTableStore(channel, 1, wal);
+        TransactionManager txManager = new TransactionManager(new GlobalCommitLog(10000), 1000L, wal, Durability.SYNC);
+        long committed = txManager.beginWriteTransaction();
+        long committedPtr = store.insertTuple(committed, "kept".getBytes(StandardCharsets.UTF_8));
+        txManager.commitTransaction(committed);
+        long deleter = txManager.beginWriteTransaction();
+        long deletedPtr = store.insertTuple(deleter, "gone".getBytes(StandardCharsets.UTF_8));
+        store.deleteTuple(txManager.beginReadSnapshot(deleter), deletedPtr);
+        txManager.commitTransaction(deleter);
+        long unfinished = txManager.beginWriteTransaction();
+        store.insertTuple(unfinished, "lost".getBytes(StandardCharsets.UTF_8));
+        store.deleteTuple(txManager.beginReadSnapshot(unfinished), committedPtr);
+        wal.close();
+        channel.close();
+        // Simulate losing every data page that was never checkpointed
+        Files.delete(Paths.get(DB_PATH));
+
+        wal = new WriteAheadLog(WAL_PATH, 10);
+        channel = new MMapFileChannel(DB_PATH, SEGMENT_SIZE);
+        store = new AppendOnlyTableStore(channel, 1, wal);
+        GlobalCommitLog clog = new GlobalCommitLog(10000);
+        long maxXid = WalRecovery.recover(wal, store, clog);
+        wal.start();
+        assertEquals(unfinished, maxXid);
+        assertEquals(GlobalCommitLog.COMMITTED, clog.getStatus(committed));
+        assertEquals(GlobalCommitLog.ABORTED, clog.getStatus(unfinished));
+        assertEquals(deleter, store.readXmax(deletedPtr));
+        assertEquals(unfinished, store.readXmax(committedPtr), "An aborted delete leaves a stamp that is ignored");
+
+        txManager = new TransactionManager(clog, maxXid + 1, wal, Durability.SYNC);
+        SeqScanNode scan = new SeqScanNode(channel, store, txManager.beginReadSnapshot(9999));
+        scan.open();
+        assertEquals(committedPtr, scan.next());
+        assertArrayEquals("kept".getBytes(StandardCharsets.UTF_8), channel.readPayload(committedPtr));
+        assertEquals(DbIterator.EOF, scan.next());
+        scan.close();
+        long next = store.insertTuple(txManager.beginWriteTransaction(), new byte[4]);
+        assertNotEquals(committedPtr, next, "Recovered tuples must not be overwritten");
+        channel.close();
+    }
+
+    @Test
+    @DisplayName("Retired Segments Are Truncated Test")
+    void retiredSegmentsAreTruncatedTest() throws IOException {
+        wal.close();
+        wal = new WriteAheadLog(WAL_PATH, 10, 256);
+        wal.start();
+        List<Long> lsns = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            wal.logCommit(1000L + i, Durability.SYNC).join();
+            lsns.add(wal.getDurableLsn());
+        }
+        long checkpointLsn = lsns.get(29);
+        assertTrue(wal.truncate(checkpointLsn) > 0, "Segments below the checkpoint should be deleted");
+        wal.close();
+
+        List<Long> replayed = new ArrayList<>();
+        wal = new WriteAheadLog(WAL_PATH, 10, 256);
+        assertEquals(lsns.get(39), wal.replay(new CommitCollector(replayed), checkpointLsn));
+        List<Long> expected = new ArrayList<>();
+        for (int i = 30; i < 40; i++) {
+            expected.add(1000L + i);
+        }
+        assertEquals(expected, replayed);
+        wal.start();
+        wal.logCommit(2000L, Durability.SYNC).join();
+        assertTrue(wal.getDurableLsn() > lsns.get(39), "Appends continue after the last segment");
+    }
+
+    @Test
+    @DisplayName("Checkpoint Bounds Recovery Test")
+    void checkpointBoundsRecoveryTest() throws IOException {
+        wal.start();
+        MMapFileChannel channel = new MMapFileChannel(DB_PATH, SEGMENT_SIZE);
+        AppendOnlyTableStore store = new AppendOnlyTableStore(channel, 1, wal);
+        GlobalCommitLog clog = new GlobalCommitLog();
+        TransactionManager txManager = new TransactionManager(clog, 1000L, wal, Durability.SYNC);
+        WalCheckpointer checkpointer = new WalCheckpointer(wal, txManager, clog, Paths.get(CLOG_PATH),
+                () -> List.of(store), 1000);
+        long before = txManager.beginWriteTransaction();
+        long beforePtr = store.insertTuple(before, "old".getBytes(StandardCharsets.UTF_8));
+        txManager.commitTransaction(before);
+        long straddling = txManager.beginWriteTransaction();
+        long straddlingPtr = store.insertTuple(straddling, "straddling".getBytes(StandardCharsets.UTF_8));
+        long redoLsn = checkpointer.checkpoint();
+        txManager.commitTransaction(straddling);
+        long after = txManager.beginWriteTransaction();
+        store.insertTuple(after, "new".getBytes(StandardCharsets.UTF_8));
+        txManager.commitTransaction(after);
+        long unfinished = txManager.beginWriteTransaction();
+        store.insertTuple(unfinished, "lost".getBytes(StandardCharsets.UTF_8));
+        checkpointer.close();
+        wal.close();
+        channel.close();
+
+        channel = new MMapFileChannel(DB_PATH, SEGMENT_SIZE);
+        AppendOnlyTableStore reopened = new AppendOnlyTableStore(channel, 1, wal);
+        assertEquals(redoLsn, reopened.getRedoLsn());
+        List<Long> replayed = new ArrayList<>();
+        try (WriteAheadLog peek = new WriteAheadLog(WAL_PATH, 10)) {
+            peek.replay(new CommitCollector(replayed), redoLsn);
+        }
+        assertEquals(List.of(straddling, after), replayed, "Transactions finished before the checkpoint are skipped");
+
+        wal = new WriteAheadLog(WAL_PATH, 10);
+        GlobalCommitLog recovered = GlobalCommitLog.load(Paths.get(CLOG_PATH));
+        long maxXid = WalRecovery.recover(wal, tableOid -> reopened, recovered, reopened.getRedoLsn());
+        wal.start();
+        assertEquals(unfinished, maxXid);
+        assertEquals(GlobalCommitLog.COMMITTED, recovered.getStatus(before), "Restored from the saved commit log");
+        assertEquals(GlobalCommitLog.COMMITTED, recovered.getStatus(straddling));
+        assertEquals(GlobalCommitLog.COMMITTED, recovered.getStatus(after));
+        assertEquals(GlobalCommitLog.ABORTED, recovered.getStatus(unfinished));
+        assertArrayEquals("old".getBytes(StandardCharsets.UTF_8), channel.readPayload(beforePtr));
+        assertArrayEquals("straddling".getBytes(StandardCharsets.UTF_8), channel.readPayload(straddlingPtr));
+        channel.close();
+    }
+
+    private record CommitCollector(List<Long> commits) implements WriteAheadLog.ReplayHandler {
+        public void onInsert(long xid, int tableOid, long pointer, ByteBuffer payload) { }
+        public void onDelete(long xid, int tableOid, long pointer, long nextVersion) { }
+        public void onCommit(long xid) { commits.add(xid); }
+        public void onAbort(long xid) { }
+    }
+}
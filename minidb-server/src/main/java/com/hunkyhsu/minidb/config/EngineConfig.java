@@ -2,49 +2,281 @@ package com.hunkyhsu.minidb.config;
 
 import com.hunkyhsu.minidb.engine.MiniDbEngine;
 import com.hunkyhsu.minidb.engine.catalog.CatalogManager;
+import com.hunkyhsu.minidb.engine.catalog.Column;
+import com.hunkyhsu.minidb.engine.catalog.StorageLayout;
+import com.hunkyhsu.minidb.engine.catalog.TableMetadata;
+import com.hunkyhsu.minidb.engine.catalog.TableServiceFactory;
+import com.hunkyhsu.minidb.engine.catalog.TableStorage;
+import com.hunkyhsu.minidb.engine.catalog.Type;
 import com.hunkyhsu.minidb.engine.storage.AppendOnlyTableStore;
+import com.hunkyhsu.minidb.engine.storage.BackgroundPool;
+import com.hunkyhsu.minidb.engine.storage.BufferPoolBackend;
+import com.hunkyhsu.minidb.engine.storage.CachedSegmentBackend;
+import com.hunkyhsu.minidb.engine.storage.DirtyPageFlusher;
+import com.hunkyhsu.minidb.engine.storage.HotPageTracker;
 import com.hunkyhsu.minidb.engine.storage.MMapFileChannel;
+import com.hunkyhsu.minidb.engine.storage.PageReadAhead;
+import com.hunkyhsu.minidb.engine.storage.RowFormat;
+import com.hunkyhsu.minidb.engine.storage.MappedBackends;
+import com.hunkyhsu.minidb.engine.storage.MappedSegmentCache;
+import com.hunkyhsu.minidb.engine.storage.OverflowStore;
+import com.hunkyhsu.minidb.engine.storage.StorageBackend;
+import com.hunkyhsu.minidb.engine.storage.Superblock;
+import com.hunkyhsu.minidb.engine.storage.TailCheckpointer;
+import com.hunkyhsu.minidb.engine.storage.TailPrefaulter;
+import com.hunkyhsu.minidb.engine.storage.Vacuum;
+import com.hunkyhsu.minidb.engine.storage.ZoneMap;
 import com.hunkyhsu.minidb.engine.transaction.GlobalCommitLog;
 import com.hunkyhsu.minidb.engine.transaction.TransactionManager;
+import com.hunkyhsu.minidb.engine.wal.Durability;
+import com.hunkyhsu.minidb.engine.wal.WalCheckpointer;
+import com.hunkyhsu.minidb.engine.wal.WalRecovery;
+import com.hunkyhsu.minidb.engine.wal.WriteAheadLog;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class EngineConfig {
-    @Value("${engine.db-path: ./data/minidb.dat}")
-    private String dbPath;
-    @Value("${engine.file-size: 104857600}")
-    private int fileSize;
-    @Value("${engine.max-transactions: 100000}")
-    private int maxTransactions;
+    @Value("${engine.data-dir: ./data/tables}")
+    private String dataDir;
+    @Value("${engine.segment-size: 67108864}")
+    private int segmentSize;
+    @Value("${engine.page-size: 8192}")
+    private int pageSize;
+    @Value("${engine.storage-backend: mmap}")
+    private String storageBackend;
+    @Value("${engine.max-mapped-bytes: 1073741824}")
+    private long maxMappedBytes;
+    @Value("${engine.buffer-pool-pages: 16384}")
+    private int bufferPoolPages;
+    @Value("${engine.reservation-pages: 4}")
+    private int reservationPages;
+    @Value("${engine.clog-path: ./data/minidb.clog}")
+    private String clogPath;
+    @Value("${engine.checkpoint-interval-ms: 1000}")
+    private long checkpointIntervalMillis;
+    @Value("${engine.flush-interval-ms: 100}")
+    private long flushIntervalMillis;
+    @Value("${engine.flush-max-bytes-per-sec: 67108864}")
+    private long flushMaxBytesPerSecond;
+    @Value("${engine.prefault-pages: 1024}")
+    private int prefaultPages;
+    @Value("${engine.prefault-interval-ms: 5}")
+    private long prefaultIntervalMillis;
+    @Value("${engine.prefault-preallocate: false}")
+    private boolean prefaultPreallocate;
+    @Value("${engine.heat-sample-interval-ms: 30000}")
+    private long heatSampleIntervalMillis;
+    @Value("${engine.read-ahead-pages: 256}")
+    private int readAheadPages;
+    @Value("${engine.wal-path: ./data/minidb.wal}")
+    private String walPath;
+    @Value("${engine.wal-sync-interval-ms: 10}")
+    private long walSyncIntervalMillis;
+    @Value("${engine.wal-checkpoint-interval-ms: 60000}")
+    private long walCheckpointIntervalMillis;
+    @Value("${engine.commit-durability: SYNC}")
+    private Durability commitDurability;
+    @Value("${engine.vacuum-interval-ms: 5000}")
+    private long vacuumIntervalMillis;
+    @Value("${engine.vacuum-dead-ratio: 0.5}")
+    private double vacuumDeadRatio;
+    @Value("${engine.background-threads: 4}")
+    private int backgroundThreads;
+    // Shared by every table opened with the mmap-cache backend
+    private MappedSegmentCache segmentCache;
 
-    @Bean(destroyMethod = "close")
-    public MMapFileChannel mmapFileChannel() throws IOException {
-        Paths.get(dbPath).getParent().toFile().mkdirs();
-        return new MMapFileChannel(dbPath, fileSize);
+    /**
+     * Opens a table's data file and, if it has string columns, the overflow
+     * store beside it that their long values are moved to.
+     */
+    private TableStorage openTable(TableMetadata table, WriteAheadLog wal) throws IOException {
+        MMapFileChannel channel = openChannel(CatalogManager.dataFile(Paths.get(dataDir), table), table.getPageSize());
+        AppendOnlyTableStore store = new AppendOnlyTableStore(channel, reservationPages, wal, new ZoneMap(table),
+                table.getOid());
+        if (!table.hasVariableWidthColumns()) { return TableStorage.rows(channel, store); }
+        try {
+            MMapFileChannel overflowChannel = openChannel(CatalogManager.overflowFile(Paths.get(dataDir), table),
+                    table.getPageSize());
+            return TableStorage.rows(channel, store, new OverflowStore(overflowChannel, new AppendOnlyTableStore(
+                    overflowChannel, reservationPages, wal, null, CatalogManager.overflowOid(table.getOid()))));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MMapFileChannel openChannel(Path dataFile, int pageSize) throws IOException {
+        dataFile.getParent().toFile().mkdirs();
+        // engine.page-size only shapes new files; existing ones keep the size they were formatted with
+        int filePageSize = Superblock.probePageSize(dataFile, pageSize);
+        StorageBackend backend = switch (storageBackend) {
+            case "mmap" -> MappedBackends.open(dataFile, segmentSize, filePageSize);
+            case "mmap-cache" -> new CachedSegmentBackend(dataFile, segmentCache(), filePageSize);
+            case "buffer-pool" -> new BufferPoolBackend(dataFile, bufferPoolPages, segmentSize, filePageSize);
+            default -> throw new IllegalArgumentException("Unknown storage backend: " + storageBackend);
+        };
+        return new MMapFileChannel(backend);
     }
 
+    private synchronized MappedSegmentCache segmentCache() {
+        if (segmentCache == null) { segmentCache = new MappedSegmentCache(maxMappedBytes, segmentSize); }
+        return segmentCache;
+    }
+
+    // The catalog owns and closes every table file
+    @Bean(destroyMethod = "")
+    public MMapFileChannel mmapFileChannel(CatalogManager catalogManager) {
+        return catalogManager.getChannel("users");
+    }
+
+    /**
+     * The background services of one table. Row tables also get the ones
+     * that work on the store's tail and its dead tuples, and an overflow
+     * store gets its own flusher, checkpointer and vacuum.
+     */
+    private List<AutoCloseable> startServices(TableMetadata table, TableStorage storage, TransactionManager txManager,
+                                              BackgroundPool pool) throws IOException {
+        MMapFileChannel channel = storage.channel();
+        List<AutoCloseable> services = new ArrayList<>();
+        try {
+            DirtyPageFlusher flusher = new DirtyPageFlusher(channel, flushIntervalMillis, flushMaxBytesPerSecond, pool);
+            services.add(flusher);
+            flusher.start();
+            Path dataFile = CatalogManager.dataFile(Paths.get(dataDir), table);
+            HotPageTracker hotPageTracker = new HotPageTracker(channel, HotPageTracker.heatFile(dataFile),
+                    heatSampleIntervalMillis, HotPageTracker.DEFAULT_RANGE_PAGES, pool);
+            services.add(hotPageTracker);
+            hotPageTracker.start();
+            services.add(new PageReadAhead(channel, readAheadPages, pool));
+            AppendOnlyTableStore store = storage.rowStore();
+            if (store != null) {
+                TailCheckpointer checkpointer = new TailCheckpointer(store, txManager::getLastAssignedXid,
+                        checkpointIntervalMillis, pool);
+                services.add(checkpointer);
+                checkpointer.start();
+                TailPrefaulter prefaulter = new TailPrefaulter(channel, store, prefaultPages, prefaultIntervalMillis,
+                        prefaultPreallocate, pool);
+                services.add(prefaulter);
+                prefaulter.start();
+                Vacuum vacuum = new Vacuum(channel, store, txManager, vacuumDeadRatio, vacuumIntervalMillis,
+                        new RowFormat(table, storage.overflow()), pool);
+                services.add(vacuum);
+                vacuum.start();
+            }
+            OverflowStore overflow = storage.overflow();
+            if (overflow != null) {
+                // Chunks are reached by pointer, so their pages are only ever vacated, never compacted
+                DirtyPageFlusher overflowFlusher = new DirtyPageFlusher(overflow.getChannel(), flushIntervalMillis,
+                        flushMaxBytesPerSecond, pool);
+                services.add(overflowFlusher);
+                overflowFlusher.start();
+                TailCheckpointer overflowCheckpointer = new TailCheckpointer(overflow.getStore(),
+                        txManager::getLastAssignedXid, checkpointIntervalMillis, pool);
+                services.add(overflowCheckpointer);
+                overflowCheckpointer.start();
+                Vacuum overflowVacuum = new Vacuum(overflow.getChannel(), overflow.getStore(), txManager, 1.0,
+                        vacuumIntervalMillis, null, pool);
+                services.add(overflowVacuum);
+                overflowVacuum.start();
+            }
+            return services;
+        } catch (IOException | RuntimeException e) {
+            for (int i = services.size() - 1; i >= 0; i--) {
+                try {
+                    services.get(i).close();
+                } catch (Exception suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the services of every table once recovery is done; the catalog
+     * stops them before closing each table.
+     */
     @Bean
-    public AppendOnlyTableStore appendOnlyTableStore(MMapFileChannel channel) {
-        return new AppendOnlyTableStore(channel);
+    public TableServiceFactory tableServices(CatalogManager catalogManager, TransactionManager txManager,
+                                             BackgroundPool backgroundPool) {
+        TableServiceFactory factory = (table, storage) -> startServices(table, storage, txManager, backgroundPool);
+        catalogManager.startServices(factory);
+        return factory;
+    }
+
+    @Bean(destroyMethod = "")
+    public PageReadAhead pageReadAhead(CatalogManager catalogManager, TableServiceFactory tableServices) {
+        return catalogManager.getService("users", PageReadAhead.class);
+    }
+
+    @Bean(destroyMethod = "close")
+    public WriteAheadLog writeAheadLog() throws IOException {
+        Paths.get(walPath).getParent().toFile().mkdirs();
+        return new WriteAheadLog(walPath, walSyncIntervalMillis);
     }
 
     @Bean
-    public GlobalCommitLog globalCommitLog() {
-        return new GlobalCommitLog(maxTransactions);
+    public AppendOnlyTableStore appendOnlyTableStore(CatalogManager catalogManager) {
+        return catalogManager.getStore("users");
     }
 
     @Bean
-    public TransactionManager transactionManager(GlobalCommitLog cLog) {
-        return new TransactionManager(cLog);
+    public GlobalCommitLog globalCommitLog() throws IOException {
+        return GlobalCommitLog.load(Paths.get(clogPath));
     }
 
+    /**
+     * Replays the log from the oldest redo LSN among the tables and their
+     * overflow stores; without a saved commit log every status has to come
+     * from the log, so it is replayed from the start.
+     */
     @Bean
-    public CatalogManager catalogManager() {
-        return new CatalogManager();
+    public TransactionManager transactionManager(GlobalCommitLog cLog, CatalogManager catalogManager,
+                                                 WriteAheadLog wal) throws IOException {
+        List<AppendOnlyTableStore> stores = catalogManager.getLoggedStores();
+        long redoLsn = Files.exists(Paths.get(clogPath))
+                ? stores.stream().mapToLong(AppendOnlyTableStore::getRedoLsn).min().orElse(0) : 0;
+        long lastXid = WalRecovery.recover(wal, catalogManager::getLoggedStore, cLog, redoLsn);
+        for (AppendOnlyTableStore store : stores) {
+            lastXid = Math.max(lastXid, store.getRecoveredXid());
+        }
+        wal.start();
+        return new TransactionManager(cLog, lastXid + 1, wal, commitDurability);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public WalCheckpointer walCheckpointer(WriteAheadLog wal, TransactionManager txManager, GlobalCommitLog cLog,
+                                           CatalogManager catalogManager, BackgroundPool backgroundPool) {
+        return new WalCheckpointer(wal, txManager, cLog, Paths.get(clogPath), catalogManager::getLoggedStores,
+                walCheckpointIntervalMillis, backgroundPool);
+    }
+
+    /**
+     * The threads every table's background services run on.
+     */
+    @Bean(destroyMethod = "close")
+    public BackgroundPool backgroundPool() {
+        return new BackgroundPool("minidb-background", backgroundThreads);
+    }
+
+    // Takes the pool only so that it is closed after the catalog stops the services running on it
+    @Bean(destroyMethod = "close")
+    public CatalogManager catalogManager(WriteAheadLog wal, BackgroundPool backgroundPool) {
+        CatalogManager catalogManager = new CatalogManager(table -> openTable(table, wal));
+        List<Column> columns = List.of(
+                new Column("id", Type.INT, 0), // 最后的 0 是占位符，TableMetadata 会重新推导
+                new Column("age", Type.INT, 0)
+        );
+        catalogManager.createTable("users", columns, StorageLayout.ROW, pageSize);
+        return catalogManager;
     }
 }